@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.benchmark;
+
+import com.umbraltech.rxchange.adapter.collections.ListChangeAdapter;
+import com.umbraltech.rxchange.adapter.collections.ListStorage;
+import com.umbraltech.rxchange.adapter.collections.ReadMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of lookups, removals by value and positional changes between the storages of the list adapter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListStorageBenchmark {
+    private static final int SIZE = 200_000;
+
+    @Param({"ARRAY", "INDEXED", "TREE"})
+    public ListStorage storage;
+
+    private ListChangeAdapter<Integer> listChangeAdapter;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final List<Integer> dataList = new ArrayList<>();
+
+        for (int i = 0; i < SIZE; i++) {
+            dataList.add(i);
+        }
+
+        listChangeAdapter = new ListChangeAdapter<>(dataList, ReadMode.LOCKED, storage);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return listChangeAdapter.contains(-1);
+    }
+
+    @Benchmark
+    public boolean removeAbsent() {
+        return listChangeAdapter.remove(-1);
+    }
+
+    @Benchmark
+    public boolean removeAndAdd() {
+        // Remove an element from the tail, where shifting is cheap, and add it back
+        final Integer data = SIZE - 1 - (next++ & 1023);
+
+        listChangeAdapter.remove(data);
+        return listChangeAdapter.add(data);
+    }
+
+    @Benchmark
+    public boolean addAndRemoveAtMiddle() {
+        final int index = SIZE / 2;
+
+        listChangeAdapter.addAt(index, index);
+        return listChangeAdapter.removeAt(index);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.benchmark;
+
+import com.umbraltech.rxchange.adapter.SingleChangeAdapter;
+import com.umbraltech.rxchange.adapter.collections.MapChangeAdapter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of updates with and without pooled change messages, intended to be run
+ * with {@code -prof gc} to compare the allocation rate per update
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessagePoolingBenchmark {
+    private static final int SIZE = 1024;
+
+    @Param({"false", "true"})
+    public boolean pooling;
+
+    private SingleChangeAdapter<Integer> singleChangeAdapter;
+    private MapChangeAdapter<Integer, Integer> mapChangeAdapter;
+
+    // Preallocated values, so that boxing does not show up in the allocation rate
+    private final Integer[] values = new Integer[SIZE];
+    private int index;
+    private long checksum;
+
+    @Setup
+    public void setUp() {
+        final Map<Integer, Integer> dataMap = new HashMap<>();
+
+        for (int i = 0; i < SIZE; i++) {
+            values[i] = i + SIZE;
+            dataMap.put(values[i], values[i]);
+        }
+
+        singleChangeAdapter = new SingleChangeAdapter<>(values[0]);
+        mapChangeAdapter = new MapChangeAdapter<>(dataMap);
+
+        singleChangeAdapter.setMessagePooling(pooling);
+        mapChangeAdapter.setMessagePooling(pooling);
+
+        // Observers only read the change, as observers of pooled change messages are required to
+        singleChangeAdapter.getObservable().subscribe(new ChangeMessageObserver<Integer>() {
+            @Override
+            public void onNext(ChangeMessage<Integer> changeMessage) {
+                checksum += changeMessage.getNewData();
+            }
+        });
+
+        mapChangeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, Integer>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, Integer>> changeMessage) {
+                checksum += changeMessage.getNewData().size();
+            }
+        });
+    }
+
+    @Benchmark
+    public boolean singleUpdate() {
+        index = (index + 1) & (SIZE - 1);
+        return singleChangeAdapter.update(values[index]);
+    }
+
+    @Benchmark
+    public boolean mapUpdate() {
+        index = (index + 1) & (SIZE - 1);
+        return mapChangeAdapter.update(values[index], values[(index + 1) & (SIZE - 1)]);
+    }
+}
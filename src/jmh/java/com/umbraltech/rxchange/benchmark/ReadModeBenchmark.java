@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.benchmark;
+
+import com.umbraltech.rxchange.adapter.collections.ListChangeAdapter;
+import com.umbraltech.rxchange.adapter.collections.MapChangeAdapter;
+import com.umbraltech.rxchange.adapter.collections.ReadMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of point lookups between the read modes of the collection adapters,
+ * with and without a concurrent writer
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadModeBenchmark {
+    private static final int SIZE = 1024;
+    private static final long WRITE_BACKOFF_TOKENS = 100_000L;
+
+    @Param({"LOCKED", "SNAPSHOT"})
+    public ReadMode readMode;
+
+    private MapChangeAdapter<Integer, Integer> mapChangeAdapter;
+    private ListChangeAdapter<Integer> listChangeAdapter;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        int next() {
+            index = (index + 1) & (SIZE - 1);
+            return index;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final Map<Integer, Integer> dataMap = new HashMap<>();
+        final List<Integer> dataList = new ArrayList<>();
+
+        for (int i = 0; i < SIZE; i++) {
+            dataMap.put(i, i);
+            dataList.add(i);
+        }
+
+        mapChangeAdapter = new MapChangeAdapter<>(dataMap, readMode);
+        listChangeAdapter = new ListChangeAdapter<>(dataList, readMode);
+    }
+
+    @Benchmark
+    @Group("mapGet")
+    @GroupThreads(8)
+    public Integer mapGet(final Cursor cursor) {
+        return mapChangeAdapter.get(cursor.next());
+    }
+
+    @Benchmark
+    @Group("mapGetWithWriter")
+    @GroupThreads(7)
+    public Integer mapGetWithWriterRead(final Cursor cursor) {
+        return mapChangeAdapter.get(cursor.next());
+    }
+
+    @Benchmark
+    @Group("mapGetWithWriter")
+    @GroupThreads(1)
+    public boolean mapGetWithWriterWrite(final Cursor cursor) {
+        // Keep the writer infrequent relative to the readers
+        Blackhole.consumeCPU(WRITE_BACKOFF_TOKENS);
+
+        final int key = cursor.next();
+        return mapChangeAdapter.update(key, key);
+    }
+
+    @Benchmark
+    @Group("listGet")
+    @GroupThreads(8)
+    public Integer listGet(final Cursor cursor) {
+        return listChangeAdapter.get(cursor.next());
+    }
+
+    @Benchmark
+    @Group("listSize")
+    @GroupThreads(8)
+    public int listSize() {
+        return listChangeAdapter.size();
+    }
+}
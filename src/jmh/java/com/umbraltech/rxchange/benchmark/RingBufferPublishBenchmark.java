@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.benchmark;
+
+import com.umbraltech.rxchange.adapter.collections.MapChangeAdapter;
+import com.umbraltech.rxchange.dispatch.ChangeEventHandler;
+import com.umbraltech.rxchange.dispatch.ChangeRingBuffer;
+import com.umbraltech.rxchange.dispatch.WaitStrategy;
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of single-entry updates published to a ring buffer for different map sizes,
+ * intended to be run with {@code -prof gc} to check that the allocation rate per update does not
+ * grow with the size of the map
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RingBufferPublishBenchmark {
+    private static final int BUFFER_SIZE = 1024;
+
+    @Param({"16", "65536"})
+    public int size;
+
+    private MapChangeAdapter<Integer, Integer> mapChangeAdapter;
+    private ChangeRingBuffer<Map<Integer, Integer>, Object> ringBuffer;
+    private ExecutorService executorService;
+
+    // Preallocated values, so that boxing does not show up in the allocation rate
+    private Integer[] values;
+    private int index;
+    private int round = 1;
+    private long checksum;
+
+    @Setup
+    public void setUp() {
+        final Map<Integer, Integer> dataMap = new HashMap<>();
+        values = new Integer[size];
+
+        for (int i = 0; i < size; i++) {
+            values[i] = i + size;
+            dataMap.put(values[i], values[i]);
+        }
+
+        mapChangeAdapter = new MapChangeAdapter<>(dataMap);
+        executorService = Executors.newSingleThreadExecutor();
+        ringBuffer = new ChangeRingBuffer<>(BUFFER_SIZE, WaitStrategy.YIELD, executorService);
+
+        // The handler only reads the change, as handlers of the ring buffer are required to
+        ringBuffer.addHandler(new ChangeEventHandler<Map<Integer, Integer>, Object>() {
+            @Override
+            public void onEvent(MutableChangeMessage<Map<Integer, Integer>, Object> changeMessage, long sequence,
+                                boolean endOfBatch) {
+                checksum += changeMessage.getNewData().size();
+            }
+        });
+
+        ringBuffer.start();
+        mapChangeAdapter.setRingBuffer(ringBuffer);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ringBuffer.halt();
+        executorService.shutdown();
+    }
+
+    @Benchmark
+    public boolean mapUpdate() {
+        // Shift the values on every pass over the keys, so that each update changes the value
+        if (++index == size) {
+            index = 0;
+            round++;
+        }
+
+        return mapChangeAdapter.update(values[index], values[(index + round) % size]);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter;
+
+import com.umbraltech.rxchange.filter.NonEmptyBatchFilter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.type.ChangeType;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adapter that implements the reactive change model for a counter updated at a high frequency
+ * <p>
+ * The counter is striped across cells, so concurrent updates never block nor contend on a single value.
+ * Rather than emitting a change message per update, the counter is sampled: a change message with the
+ * aggregated old and new values is emitted once the maximum number of updates has been reached, or once
+ * the maximum delay has elapsed since the previous change message. Sampling is attempted by the updating
+ * threads, and is skipped when another thread is already emitting. Updates made after the last sample
+ * are emitted by the next sample, or by {@link #flush()}.
+ * <p>
+ * Since reading the number of pending updates touches every cell, the thresholds are only checked by a random
+ * subset of the updates: on average once every sixteenth of the maximum number of updates, rounded down to a
+ * power of two and capped at {@value #MAX_CHECK_INTERVAL} updates. A change message may therefore aggregate
+ * slightly more updates than the maximum, and be emitted slightly after the maximum delay.
+ */
+public class CounterChangeAdapter {
+    private static final long MAX_CHECK_INTERVAL = 64L;
+
+    private final PublishSubject<ChangeMessage<Long>> publishSubject = PublishSubject.create();
+    private final LongAdder counter = new LongAdder();
+    private final LongAdder pendingUpdateCount = new LongAdder();
+    private final Lock sampleLock = new ReentrantLock();
+    private final long maxUpdates;
+    private final long maxDelayNanos;
+    private final int checkMask;
+    private volatile long nextSampleNanos;
+    private long sampledValue;
+
+    /**
+     * Initializes the adapter with a value and a sampling rate, without emitting a change message
+     *
+     * @param initialValue the initial value of the counter
+     * @param maxUpdates   the maximum number of updates aggregated into a change message
+     * @param maxDelay     the maximum time between change messages while the counter is updated
+     * @param unit         the unit of the maximum delay
+     */
+    public CounterChangeAdapter(final long initialValue, final long maxUpdates, final long maxDelay,
+                                final TimeUnit unit) {
+        if (maxUpdates <= 0) {
+            throw new IllegalArgumentException("Maximum updates must be positive: " + maxUpdates);
+        }
+
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("Maximum delay must not be negative: " + maxDelay);
+        }
+
+        this.maxUpdates = maxUpdates;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.checkMask = (int) Long.highestOneBit(Math.min(Math.max(maxUpdates / 16L, 1L), MAX_CHECK_INTERVAL)) - 1;
+
+        counter.add(initialValue);
+        sampledValue = initialValue;
+        nextSampleNanos = System.nanoTime() + maxDelayNanos;
+    }
+
+    /**
+     * Increments the counter by one
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Decrements the counter by one
+     */
+    public void decrement() {
+        add(-1L);
+    }
+
+    /**
+     * Adds a delta to the counter, emitting a change message to surrounding observers if a sample is due
+     * <p>
+     * The metadata in the emitted change message will contain the number of updates aggregated into it.
+     * This number is approximate under concurrent updates, since the pending updates are counted separately
+     * from the value: an update made while a sample is taken may be counted by the adjacent change message.
+     *
+     * @param delta the value to be added
+     */
+    public void add(final long delta) {
+        counter.add(delta);
+        pendingUpdateCount.increment();
+
+        // Only check the thresholds for a random subset of the updates
+        if ((ThreadLocalRandom.current().nextInt() & checkMask) != 0) {
+            return;
+        }
+
+        // Check if sample is due, leaving it to the thread already emitting otherwise
+        if (isSampleDue() && sampleLock.tryLock()) {
+            try {
+                if (isSampleDue()) {
+                    sample();
+                }
+            } finally {
+                sampleLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Emits a change message for the updates made since the last sample, waiting for any concurrent sample
+     *
+     * @return {@code true} if a change message was emitted, {@code false} if the value was unchanged
+     */
+    public boolean flush() {
+        sampleLock.lock();
+
+        try {
+            return sample();
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current value of the counter
+     * <p>
+     * The value is only exact in the absence of concurrent updates
+     *
+     * @return the current value
+     */
+    public long get() {
+        return counter.sum();
+    }
+
+    /**
+     * Returns a reference to the observable used for listening to change messages
+     *
+     * @return the observable reference
+     */
+    public Observable<ChangeMessage<Long>> getObservable() {
+        return publishSubject;
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, so that observers can amortize
+     * their per-message cost
+     * <p>
+     * A batch is emitted once it reaches the maximum size, or once the maximum delay has elapsed
+     * since the previous batch. Empty batches are not emitted.
+     *
+     * @param maxSize  the maximum number of change messages in a batch
+     * @param maxDelay the maximum time a change message waits for its batch to be emitted
+     * @param unit     the unit of the maximum delay
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Long>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                      final TimeUnit unit) {
+        return getBatchedObservable(maxSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, timed on the specified scheduler
+     *
+     * @param maxSize   the maximum number of change messages in a batch
+     * @param maxDelay  the maximum time a change message waits for its batch to be emitted
+     * @param unit      the unit of the maximum delay
+     * @param scheduler the scheduler on which batches are emitted when the maximum delay elapses
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Long>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                      final TimeUnit unit,
+                                                                      final Scheduler scheduler) {
+        return publishSubject.buffer(maxDelay, unit, scheduler, maxSize).filter(new NonEmptyBatchFilter());
+    }
+
+    private boolean isSampleDue() {
+        return System.nanoTime() - nextSampleNanos >= 0 || pendingUpdateCount.sum() >= maxUpdates;
+    }
+
+    private boolean sample() {
+        final long updateCount = pendingUpdateCount.sumThenReset();
+        final long oldValue = sampledValue;
+        final long newValue = counter.sum();
+
+        nextSampleNanos = System.nanoTime() + maxDelayNanos;
+
+        // Check if value is unchanged
+        if (newValue == oldValue) {
+            return false;
+        }
+
+        sampledValue = newValue;
+
+        // Signal update
+        publishSubject.onNext(new MetaChangeMessage<Long, Long>(oldValue, newValue, ChangeType.UPDATE,
+                updateCount));
+
+        return true;
+    }
+}
@@ -16,12 +16,21 @@
 
 package com.umbraltech.rxchange.adapter;
 
+import com.google.common.base.Equivalence;
+import com.umbraltech.rxchange.filter.NonEmptyBatchFilter;
 import com.umbraltech.rxchange.message.ChangeMessage;
 import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import com.umbraltech.rxchange.message.RetainFunction;
 import com.umbraltech.rxchange.type.ChangeType;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.PublishSubject;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -35,6 +44,10 @@ public class SingleChangeAdapter<D> {
     private final PublishSubject<ChangeMessage<D>> publishSubject = PublishSubject.create();
     private volatile D data;
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private MutableChangeMessage<D, Object> pooledMessage;
+    private boolean pooledMessageInUse;
+    private Equivalence<? super D> equivalence;
+    private final AtomicLong suppressedUpdateCount = new AtomicLong();
 
     /**
      * Initializes the adapter with a value, without emitting a change message
@@ -59,8 +72,36 @@ public class SingleChangeAdapter<D> {
 
         try {
             final D oldData = this.data;
+
+            // Check if value is unchanged
+            if (equivalence != null && equivalence.equivalent(oldData, data)) {
+                suppressedUpdateCount.incrementAndGet();
+                return false;
+            }
+
             this.data = data;
 
+            // Only allocate a change message if it will be observed
+            if (!publishSubject.hasObservers()) {
+                return true;
+            }
+
+            // Reuse the pooled change message, unless an observer is updating the element while it is delivered
+            if (pooledMessage != null && !pooledMessageInUse) {
+                pooledMessageInUse = true;
+                pooledMessage.set(oldData, data, ChangeType.UPDATE, null);
+
+                try {
+                    // Signal update
+                    publishSubject.onNext(pooledMessage);
+                } finally {
+                    pooledMessage.clear();
+                    pooledMessageInUse = false;
+                }
+
+                return true;
+            }
+
             // Signal update
             publishSubject.onNext(new MetaChangeMessage<>(oldData, this.data, ChangeType.UPDATE, null));
 
@@ -86,6 +127,57 @@ public class SingleChangeAdapter<D> {
         }
     }
 
+    /**
+     * Sets whether a single change message is reused for every update, so that updates do not allocate
+     * <p>
+     * While pooling is enabled, the emitted change messages are only valid until {@code onNext} returns,
+     * and observers must copy the values they need to keep, or call {@link MutableChangeMessage#copy()}.
+     * Observers must therefore not be scheduled on other threads with operators such as {@code observeOn}
+     * without first mapping the change messages with a {@link RetainFunction}. The batched observables
+     * and the dispatchers retain the change messages themselves.
+     *
+     * @param enabled whether change messages are pooled
+     */
+    public void setMessagePooling(final boolean enabled) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            pooledMessage = enabled ? new MutableChangeMessage<D, Object>() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the equivalence used for detecting updates that do not change the element
+     * <p>
+     * Updates to a value equivalent to the current one are suppressed: they return {@code false},
+     * leave the data untouched and emit no change message. Use {@link Equivalence#equals()} for
+     * value equality, {@link Equivalence#identity()} for reference equality, or a custom equivalence.
+     *
+     * @param equivalence the equivalence, null to emit every update
+     */
+    public void setEquivalence(final Equivalence<? super D> equivalence) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            this.equivalence = equivalence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of updates suppressed because the new value was equivalent to the current one
+     *
+     * @return the number of suppressed updates
+     */
+    public long getSuppressedUpdateCount() {
+        return suppressedUpdateCount.get();
+    }
+
     /**
      * Returns a reference to the observable used for listening to change messages
      *
@@ -94,4 +186,38 @@ public class SingleChangeAdapter<D> {
     public Observable<ChangeMessage<D>> getObservable() {
         return publishSubject;
     }
+
+    /**
+     * Returns an observable emitting the change messages in batches, so that observers can amortize
+     * their per-message cost
+     * <p>
+     * A batch is emitted once it reaches the maximum size, or once the maximum delay has elapsed
+     * since the previous batch. Empty batches are not emitted.
+     *
+     * @param maxSize  the maximum number of change messages in a batch
+     * @param maxDelay the maximum time a change message waits for its batch to be emitted
+     * @param unit     the unit of the maximum delay
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<D>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                   final TimeUnit unit) {
+        return getBatchedObservable(maxSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, timed on the specified scheduler
+     *
+     * @param maxSize   the maximum number of change messages in a batch
+     * @param maxDelay  the maximum time a change message waits for its batch to be emitted
+     * @param unit      the unit of the maximum delay
+     * @param scheduler the scheduler on which batches are emitted when the maximum delay elapses
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<D>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                   final TimeUnit unit,
+                                                                   final Scheduler scheduler) {
+        // Pooled change messages must be copied before they are buffered
+        return publishSubject.map(new RetainFunction<D>()).buffer(maxDelay, unit, scheduler, maxSize)
+                .filter(new NonEmptyBatchFilter());
+    }
 }
@@ -0,0 +1,443 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.umbraltech.rxchange.filter.NonEmptyBatchFilter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.type.ChangeType;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adapter that implements the reactive change model for maps bounded to a maximum number of entries,
+ * such as caches
+ * <p>
+ * Once the map exceeds its maximum size, entries are evicted following the W-TinyLFU policy: new entries
+ * enter a small LRU window, and the least recently used entry of the window is only admitted into the main
+ * segmented LRU space if it was accessed more often than the entry it would replace, as estimated by
+ * a {@link FrequencySketch}. Evictions are emitted as change messages of type {@link ChangeType#EVICT},
+ * so that observers can tell them apart from explicit removals.
+ * <p>
+ * The map is persistent and reads never acquire a lock. Reads of existing keys record their accesses into
+ * lossy buffers, striped by thread so that concurrent readers rarely contend on the same buffer. The buffers
+ * are replayed against the policy by the next write, so some accesses may be dropped under contention.
+ *
+ * @param <K> the type used for the keys
+ * @param <D> the type used for the data
+ */
+public class BoundedMapChangeAdapter<K, D> {
+    private static final int READ_BUFFER_SIZE = 32;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int MAX_READ_BUFFER_COUNT = 16;
+
+    private final PublishSubject<ChangeMessage<Map<K, D>>> publishSubject = PublishSubject.create();
+    private final Lock writeLock = new ReentrantLock();
+    private volatile PersistentMap<K, D> dataMap = PersistentMap.empty();
+    private final ReadBuffer<K>[] readBuffers = newReadBuffers();
+    private final int maximumSize;
+    private final int windowMaximumSize;
+    private final int protectedMaximumSize;
+    private final FrequencySketch frequencySketch;
+    private final LinkedHashSet<K> windowSegment = new LinkedHashSet<>();
+    private final LinkedHashSet<K> probationSegment = new LinkedHashSet<>();
+    private final LinkedHashSet<K> protectedSegment = new LinkedHashSet<>();
+
+    /**
+     * Initializes the adapter with the specified maximum size
+     *
+     * @param maximumSize the maximum number of entries
+     */
+    public BoundedMapChangeAdapter(final int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+
+        this.maximumSize = maximumSize;
+        this.windowMaximumSize = Math.max(1, maximumSize / 100);
+        this.protectedMaximumSize = (int) ((maximumSize - windowMaximumSize) * 8L / 10);
+        this.frequencySketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Adds a key-value pair to the map and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain a snapshot of the entry that was just added.
+     * If the map exceeds its maximum size, a second change message of type {@link ChangeType#EVICT} is emitted,
+     * whose metadata will contain a map of the entries that were evicted.
+     * In that case, the new data of the first change message holds {@code maximumSize + 1} entries, and so does
+     * the map as seen by readers until the eviction is applied.
+     *
+     * @param key  the key used for accessing the data
+     * @param data the value associated with the key
+     * @return {@code true} if the entry was added to the map, {@code false} if the key already exists
+     */
+    public boolean add(final K key, final D data) {
+        writeLock.lock();
+
+        try {
+            drainReadBuffers();
+
+            final PersistentMap<K, D> oldMapSnapshot = dataMap;
+
+            // Check if entry already exists
+            if (oldMapSnapshot.containsKey(key)) {
+                return false;
+            }
+
+            final PersistentMap<K, D> newMapSnapshot = oldMapSnapshot.plus(key, data);
+            final List<K> evictedKeyList = onAdd(key);
+            dataMap = newMapSnapshot;
+
+            // Signal addition
+            publishSubject.onNext(new MetaChangeMessage<Map<K, D>, Map.Entry<K, D>>(oldMapSnapshot,
+                    newMapSnapshot, ChangeType.ADD, Maps.immutableEntry(key, data)));
+
+            // Check if any entry was evicted
+            if (!evictedKeyList.isEmpty()) {
+                evict(newMapSnapshot, evictedKeyList);
+            }
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the value of an entry, counting as an access, and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain a snapshot of the entry that was just updated
+     *
+     * @param key  the key used for accessing the data
+     * @param data the new value associated with the key
+     * @return {@code true} if the entry was updated, {@code false} if the key does not exist
+     */
+    public boolean update(final K key, final D data) {
+        writeLock.lock();
+
+        try {
+            drainReadBuffers();
+
+            final PersistentMap<K, D> oldMapSnapshot = dataMap;
+
+            // Check if entry exists
+            if (!oldMapSnapshot.containsKey(key)) {
+                return false;
+            }
+
+            final PersistentMap<K, D> newMapSnapshot = oldMapSnapshot.plus(key, data);
+            onAccess(key);
+            dataMap = newMapSnapshot;
+
+            // Signal update
+            publishSubject.onNext(new MetaChangeMessage<Map<K, D>, Map.Entry<K, D>>(oldMapSnapshot,
+                    newMapSnapshot, ChangeType.UPDATE, Maps.immutableEntry(key, data)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes an entry from the map and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain a snapshot of the entry that was just removed
+     *
+     * @param key the key of the entry to be removed
+     * @return {@code true} if the entry was removed, {@code false} if the key does not exist
+     */
+    public boolean remove(final K key) {
+        writeLock.lock();
+
+        try {
+            drainReadBuffers();
+
+            final PersistentMap<K, D> oldMapSnapshot = dataMap;
+            final D data = oldMapSnapshot.get(key);
+
+            // Check if entry exists
+            if (data == null) {
+                return false;
+            }
+
+            final PersistentMap<K, D> newMapSnapshot = oldMapSnapshot.minus(key);
+            removeFromPolicy(key);
+            dataMap = newMapSnapshot;
+
+            // Signal removal
+            publishSubject.onNext(new MetaChangeMessage<Map<K, D>, Map.Entry<K, D>>(oldMapSnapshot,
+                    newMapSnapshot, ChangeType.REMOVE, Maps.immutableEntry(key, data)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the value associated with a key, recording an access of the key
+     *
+     * @param key the key
+     * @return the value, or {@code null} if the key does not exist
+     */
+    public D get(final K key) {
+        final D data = dataMap.get(key);
+
+        // Check if key exists, as misses have no entry to promote
+        if (data != null) {
+            recordRead(key);
+        }
+
+        return data;
+    }
+
+    /**
+     * Returns whether an entry exists for a key, without recording an access
+     *
+     * @param key the key
+     * @return {@code true} if the key exists, {@code false} otherwise
+     */
+    public boolean containsKey(final K key) {
+        return dataMap.containsKey(key);
+    }
+
+    /**
+     * Returns the number of entries in the map
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return dataMap.size();
+    }
+
+    /**
+     * Returns an immutable snapshot of the current map of entries, without copying
+     *
+     * @return the map of entries
+     */
+    public Map<K, D> getAll() {
+        return dataMap;
+    }
+
+    /**
+     * Returns a reference to the observable used for listening to change messages
+     *
+     * @return the observable reference
+     */
+    public Observable<ChangeMessage<Map<K, D>>> getObservable() {
+        return publishSubject;
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, so that observers can amortize
+     * their per-message cost
+     * <p>
+     * A batch is emitted once it reaches the maximum size, or once the maximum delay has elapsed
+     * since the previous batch. Empty batches are not emitted.
+     *
+     * @param maxSize  the maximum number of change messages in a batch
+     * @param maxDelay the maximum time a change message waits for its batch to be emitted
+     * @param unit     the unit of the maximum delay
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Map<K, D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                           final TimeUnit unit) {
+        return getBatchedObservable(maxSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, timed on the specified scheduler
+     *
+     * @param maxSize   the maximum number of change messages in a batch
+     * @param maxDelay  the maximum time a change message waits for its batch to be emitted
+     * @param unit      the unit of the maximum delay
+     * @param scheduler the scheduler on which batches are emitted when the maximum delay elapses
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Map<K, D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                           final TimeUnit unit,
+                                                                           final Scheduler scheduler) {
+        return publishSubject.buffer(maxDelay, unit, scheduler, maxSize).filter(new NonEmptyBatchFilter());
+    }
+
+    private void recordRead(final K key) {
+        final ReadBuffer<K> readBuffer = readBuffers[stripeOf(Thread.currentThread()) & (readBuffers.length - 1)];
+
+        // Replay the buffers once this one is full, unless another thread is already writing
+        if (readBuffer.record(key) && writeLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffers() {
+        for (final ReadBuffer<K> readBuffer : readBuffers) {
+            readBuffer.drain(this);
+        }
+    }
+
+    private void onAccess(final K key) {
+        frequencySketch.increment(key);
+
+        if (windowSegment.remove(key)) {
+            windowSegment.add(key);
+        } else if (probationSegment.remove(key)) {
+            protectedSegment.add(key);
+
+            // Demote the least recently used protected entry once over capacity
+            if (protectedSegment.size() > protectedMaximumSize) {
+                final K demotedKey = first(protectedSegment);
+                protectedSegment.remove(demotedKey);
+                probationSegment.add(demotedKey);
+            }
+        } else if (protectedSegment.remove(key)) {
+            protectedSegment.add(key);
+        }
+    }
+
+    private List<K> onAdd(final K key) {
+        frequencySketch.increment(key);
+        windowSegment.add(key);
+
+        K candidateKey = null;
+
+        // Move the least recently used window entry to the main space, as a candidate for admission
+        if (windowSegment.size() > windowMaximumSize) {
+            candidateKey = first(windowSegment);
+            windowSegment.remove(candidateKey);
+            probationSegment.add(candidateKey);
+        }
+
+        final List<K> evictedKeyList = new ArrayList<>();
+
+        while (windowSegment.size() + probationSegment.size() + protectedSegment.size() > maximumSize) {
+            final K victimKey = !probationSegment.isEmpty() ? first(probationSegment)
+                    : !protectedSegment.isEmpty() ? first(protectedSegment) : first(windowSegment);
+
+            // Admit the candidate only if it is more frequently used than the victim
+            final boolean rejectCandidate = candidateKey != null && !candidateKey.equals(victimKey)
+                    && frequencySketch.frequency(candidateKey) <= frequencySketch.frequency(victimKey);
+            final K evictedKey = rejectCandidate ? candidateKey : victimKey;
+
+            if (evictedKey.equals(candidateKey)) {
+                candidateKey = null;
+            }
+
+            removeFromPolicy(evictedKey);
+            evictedKeyList.add(evictedKey);
+        }
+
+        return evictedKeyList;
+    }
+
+    private void removeFromPolicy(final K key) {
+        if (!windowSegment.remove(key) && !probationSegment.remove(key)) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    private void evict(final PersistentMap<K, D> oldMapSnapshot, final List<K> evictedKeyList) {
+        final ImmutableMap.Builder<K, D> changeBuilder = ImmutableMap.builder();
+        PersistentMap<K, D> newMapSnapshot = oldMapSnapshot;
+
+        for (final K key : evictedKeyList) {
+            changeBuilder.put(key, oldMapSnapshot.get(key));
+            newMapSnapshot = newMapSnapshot.minus(key);
+        }
+
+        dataMap = newMapSnapshot;
+
+        // Signal eviction
+        publishSubject.onNext(new MetaChangeMessage<Map<K, D>, Map<K, D>>(oldMapSnapshot, newMapSnapshot,
+                ChangeType.EVICT, changeBuilder.build()));
+    }
+
+    private static <K> K first(final LinkedHashSet<K> segment) {
+        return segment.iterator().next();
+    }
+
+    private static int stripeOf(final Thread thread) {
+        // Spread the sequential thread identifiers over the stripes
+        return (int) ((thread.getId() * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> ReadBuffer<K>[] newReadBuffers() {
+        int readBufferCount = 1;
+
+        // Round the number of processors up to a power of two
+        while (readBufferCount < Runtime.getRuntime().availableProcessors()
+                && readBufferCount < MAX_READ_BUFFER_COUNT) {
+            readBufferCount <<= 1;
+        }
+
+        final ReadBuffer<K>[] readBuffers = new ReadBuffer[readBufferCount];
+
+        for (int i = 0; i < readBufferCount; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+
+        return readBuffers;
+    }
+
+    private static final class ReadBuffer<K> {
+        private final AtomicReferenceArray<K> keyBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong readCount = new AtomicLong();
+        private long drainedReadCount;
+
+        boolean record(final K key) {
+            final long index = readCount.getAndIncrement();
+            keyBuffer.lazySet((int) (index & READ_BUFFER_MASK), key);
+
+            return (index & READ_BUFFER_MASK) == READ_BUFFER_MASK;
+        }
+
+        void drain(final BoundedMapChangeAdapter<K, ?> adapter) {
+            final long count = readCount.get();
+
+            // Skip the reads that were overwritten before being replayed
+            for (long index = Math.max(drainedReadCount, count - READ_BUFFER_SIZE); index < count; index++) {
+                final K key = keyBuffer.getAndSet((int) (index & READ_BUFFER_MASK), null);
+
+                if (key != null) {
+                    adapter.onAccess(key);
+                }
+            }
+
+            drainedReadCount = count;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.BiFunction;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The lock used by the collection adapters, selected by their read mode
+ * <p>
+ * In the snapshot mode, reads apply to the immutable snapshot published by the last change
+ * and do not acquire the lock at all, see {@link #read(Object, Object, BiFunction, Object)}.
+ */
+final class ChangeAdapterLock implements ReadWriteLock {
+    private final ReadWriteLock reentrantLock = new ReentrantReadWriteLock();
+    private final boolean snapshotReads;
+
+    ChangeAdapterLock(final ReadMode readMode) {
+        snapshotReads = (readMode == ReadMode.SNAPSHOT);
+    }
+
+    @Override
+    public Lock readLock() {
+        return reentrantLock.readLock();
+    }
+
+    @Override
+    public Lock writeLock() {
+        return reentrantLock.writeLock();
+    }
+
+    /**
+     * Applies a read function to the data, without acquiring a lock if a snapshot is published
+     * <p>
+     * In the snapshot mode, the function is applied to the immutable snapshot published by the last change,
+     * which is never mutated and is therefore safe to read while another thread writes. Otherwise, that is in the
+     * locked mode or while no snapshot is published, the function is applied to the live data under the read lock.
+     *
+     * @param snapshot the snapshot published by the last change, null if none is published
+     * @param data     the live data, only read under the read lock
+     * @param function the function reading the data
+     * @param argument the argument passed to the function along with the data
+     * @param <T>      the type of the data
+     * @param <A>      the type of the argument
+     * @param <R>      the type of the result
+     * @return the result of the function
+     */
+    <T, A, R> R read(final T snapshot, final T data, final BiFunction<? super T, ? super A, ? extends R> function,
+                     final A argument) {
+        try {
+            // Read the published snapshot without locking
+            if (snapshotReads && snapshot != null) {
+                return function.apply(snapshot, argument);
+            }
+
+            final Lock readLock = reentrantLock.readLock();
+            readLock.lock();
+
+            try {
+                return function.apply(data, argument);
+            } finally {
+                readLock.unlock();
+            }
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+}
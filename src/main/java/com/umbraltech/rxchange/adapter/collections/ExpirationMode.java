@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+/**
+ * The events from which the expiring map adapter measures the lifetime of its entries
+ */
+public enum ExpirationMode {
+    /**
+     * An entry expires once its duration has elapsed since it was added or last updated
+     */
+    AFTER_WRITE,
+
+    /**
+     * An entry expires once its duration has elapsed since it was added, last updated or last read
+     */
+    AFTER_ACCESS
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.umbraltech.rxchange.filter.NonEmptyBatchFilter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.type.ChangeType;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adapter that implements the reactive change model for maps whose entries expire
+ * <p>
+ * Each entry is added with its own lifetime, measured from its last write or its last access. The expirations
+ * are tracked by a hierarchical timing wheel, which a single periodic task advances once per tick on the
+ * scheduler. All of the entries expiring within a tick are removed together and emitted in a single change
+ * message of type {@link ChangeType#EXPIRE}, so expirations may be observed up to two ticks late.
+ * <p>
+ * The map is persistent, so the snapshots carried by the change messages share their structure with each other.
+ * Reads never acquire a lock.
+ *
+ * @param <K> the type used for the keys
+ * @param <D> the type used for the data
+ */
+public class ExpiringMapChangeAdapter<K, D> {
+    private final PublishSubject<ChangeMessage<Map<K, D>>> publishSubject = PublishSubject.create();
+    private final Lock writeLock = new ReentrantLock();
+    private volatile PersistentMap<K, D> dataMap = PersistentMap.empty();
+    private final Map<K, TimerWheel.Node<K>> nodeMap = new ConcurrentHashMap<>();
+    private final TimerWheel<K> timerWheel;
+    private final Scheduler scheduler;
+    private final long originNanos;
+    private final Disposable expirationTask;
+
+    /**
+     * Initializes the adapter with the specified tick, advancing the expirations on the computation scheduler
+     *
+     * @param tickDuration the interval at which the expirations are processed
+     * @param unit         the unit of the tick duration
+     */
+    public ExpiringMapChangeAdapter(final long tickDuration, final TimeUnit unit) {
+        this(tickDuration, unit, Schedulers.computation());
+    }
+
+    /**
+     * Initializes the adapter with the specified tick, advancing the expirations on the specified scheduler
+     * <p>
+     * The scheduler also serves as the clock for the lifetimes of the entries
+     *
+     * @param tickDuration the interval at which the expirations are processed
+     * @param unit         the unit of the tick duration
+     * @param scheduler    the scheduler on which expired entries are removed and their change messages emitted
+     */
+    public ExpiringMapChangeAdapter(final long tickDuration, final TimeUnit unit, final Scheduler scheduler) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive: " + tickDuration);
+        }
+
+        this.scheduler = scheduler;
+        this.originNanos = scheduler.now(TimeUnit.NANOSECONDS);
+        this.timerWheel = new TimerWheel<>(unit.toNanos(tickDuration));
+        this.expirationTask = scheduler.schedulePeriodicallyDirect(new Runnable() {
+            @Override
+            public void run() {
+                expire();
+            }
+        }, tickDuration, tickDuration, unit);
+    }
+
+    /**
+     * Adds a key-value pair expiring after a write and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain a snapshot of the entry that was just added
+     *
+     * @param key      the key used for accessing the data
+     * @param data     the value associated with the key
+     * @param duration the lifetime of the entry since it was last written
+     * @param unit     the unit of the duration
+     * @return {@code true} if the entry was added to the map, {@code false} if the key already exists
+     */
+    public boolean add(final K key, final D data, final long duration, final TimeUnit unit) {
+        return add(key, data, duration, unit, ExpirationMode.AFTER_WRITE);
+    }
+
+    /**
+     * Adds a key-value pair expiring according to the specified mode and emits a change message
+     * to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain a snapshot of the entry that was just added
+     *
+     * @param key            the key used for accessing the data
+     * @param data           the value associated with the key
+     * @param duration       the lifetime of the entry
+     * @param unit           the unit of the duration
+     * @param expirationMode the events from which the lifetime is measured
+     * @return {@code true} if the entry was added to the map, {@code false} if the key already exists
+     */
+    public boolean add(final K key, final D data, final long duration, final TimeUnit unit,
+                       final ExpirationMode expirationMode) {
+        writeLock.lock();
+
+        try {
+            final PersistentMap<K, D> oldMapSnapshot = dataMap;
+
+            // Check if entry already exists
+            if (oldMapSnapshot.containsKey(key)) {
+                return false;
+            }
+
+            final PersistentMap<K, D> newMapSnapshot = oldMapSnapshot.plus(key, data);
+            final TimerWheel.Node<K> node = new TimerWheel.Node<>(key, expirationMode, unit.toNanos(duration),
+                    currentNanos());
+
+            nodeMap.put(key, node);
+            timerWheel.schedule(node);
+            dataMap = newMapSnapshot;
+
+            // Signal addition
+            publishSubject.onNext(new MetaChangeMessage<Map<K, D>, Map.Entry<K, D>>(oldMapSnapshot,
+                    newMapSnapshot, ChangeType.ADD, Maps.immutableEntry(key, data)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the value of an entry, restarting its lifetime, and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain a snapshot of the entry that was just updated
+     *
+     * @param key  the key used for accessing the data
+     * @param data the new value associated with the key
+     * @return {@code true} if the entry was updated, {@code false} if the key does not exist
+     */
+    public boolean update(final K key, final D data) {
+        writeLock.lock();
+
+        try {
+            final PersistentMap<K, D> oldMapSnapshot = dataMap;
+
+            // Check if entry exists
+            if (!oldMapSnapshot.containsKey(key)) {
+                return false;
+            }
+
+            final PersistentMap<K, D> newMapSnapshot = oldMapSnapshot.plus(key, data);
+            final TimerWheel.Node<K> node = nodeMap.get(key);
+
+            timerWheel.deschedule(node);
+            node.recordWrite(currentNanos());
+            timerWheel.schedule(node);
+            dataMap = newMapSnapshot;
+
+            // Signal update
+            publishSubject.onNext(new MetaChangeMessage<Map<K, D>, Map.Entry<K, D>>(oldMapSnapshot,
+                    newMapSnapshot, ChangeType.UPDATE, Maps.immutableEntry(key, data)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes an entry before it expires and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain a snapshot of the entry that was just removed
+     *
+     * @param key the key of the entry to be removed
+     * @return {@code true} if the entry was removed, {@code false} if the key does not exist
+     */
+    public boolean remove(final K key) {
+        writeLock.lock();
+
+        try {
+            final PersistentMap<K, D> oldMapSnapshot = dataMap;
+            final D data = oldMapSnapshot.get(key);
+
+            // Check if entry exists
+            if (data == null) {
+                return false;
+            }
+
+            final PersistentMap<K, D> newMapSnapshot = oldMapSnapshot.minus(key);
+
+            timerWheel.deschedule(nodeMap.remove(key));
+            dataMap = newMapSnapshot;
+
+            // Signal removal
+            publishSubject.onNext(new MetaChangeMessage<Map<K, D>, Map.Entry<K, D>>(oldMapSnapshot,
+                    newMapSnapshot, ChangeType.REMOVE, Maps.immutableEntry(key, data)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entries that expired since the last tick and emits a change message to surrounding observers
+     * <p>
+     * This is invoked on the scheduler once per tick, and only needs to be invoked directly for expirations
+     * to be observed sooner. The metadata in the emitted change message will contain a map of the entries
+     * that expired.
+     *
+     * @return {@code true} if any entry expired, {@code false} otherwise
+     */
+    public boolean expire() {
+        writeLock.lock();
+
+        try {
+            final List<TimerWheel.Node<K>> expiredList = new ArrayList<>();
+            timerWheel.advance(currentNanos(), expiredList);
+
+            // Check if any entry expired
+            if (expiredList.isEmpty()) {
+                return false;
+            }
+
+            final PersistentMap<K, D> oldMapSnapshot = dataMap;
+            final ImmutableMap.Builder<K, D> changeBuilder = ImmutableMap.builder();
+            PersistentMap<K, D> newMapSnapshot = oldMapSnapshot;
+
+            for (final TimerWheel.Node<K> node : expiredList) {
+                final K key = node.getKey();
+
+                changeBuilder.put(key, oldMapSnapshot.get(key));
+                newMapSnapshot = newMapSnapshot.minus(key);
+                nodeMap.remove(key);
+            }
+
+            dataMap = newMapSnapshot;
+
+            // Signal expiration
+            publishSubject.onNext(new MetaChangeMessage<Map<K, D>, Map<K, D>>(oldMapSnapshot, newMapSnapshot,
+                    ChangeType.EXPIRE, changeBuilder.build()));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the value associated with a key, recording an access for entries expiring after an access
+     *
+     * @param key the key
+     * @return the value, or {@code null} if the key does not exist
+     */
+    public D get(final K key) {
+        final TimerWheel.Node<K> node = nodeMap.get(key);
+
+        if (node != null) {
+            node.recordAccess(currentNanos());
+        }
+
+        return dataMap.get(key);
+    }
+
+    /**
+     * Returns whether an entry exists for a key, without recording an access
+     *
+     * @param key the key
+     * @return {@code true} if the key exists, {@code false} otherwise
+     */
+    public boolean containsKey(final K key) {
+        return dataMap.containsKey(key);
+    }
+
+    /**
+     * Returns the number of entries in the map
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return dataMap.size();
+    }
+
+    /**
+     * Returns an immutable snapshot of the current map of entries, without copying
+     *
+     * @return the map of entries
+     */
+    public Map<K, D> getAll() {
+        return dataMap;
+    }
+
+    /**
+     * Stops processing expirations on the scheduler
+     * <p>
+     * Entries no longer expire unless {@link #expire()} is invoked directly
+     */
+    public void dispose() {
+        expirationTask.dispose();
+    }
+
+    /**
+     * Returns a reference to the observable used for listening to change messages
+     *
+     * @return the observable reference
+     */
+    public Observable<ChangeMessage<Map<K, D>>> getObservable() {
+        return publishSubject;
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, so that observers can amortize
+     * their per-message cost
+     * <p>
+     * A batch is emitted once it reaches the maximum size, or once the maximum delay has elapsed
+     * since the previous batch. Empty batches are not emitted.
+     *
+     * @param maxSize  the maximum number of change messages in a batch
+     * @param maxDelay the maximum time a change message waits for its batch to be emitted
+     * @param unit     the unit of the maximum delay
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Map<K, D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                           final TimeUnit unit) {
+        return getBatchedObservable(maxSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, timed on the specified scheduler
+     *
+     * @param maxSize   the maximum number of change messages in a batch
+     * @param maxDelay  the maximum time a change message waits for its batch to be emitted
+     * @param unit      the unit of the maximum delay
+     * @param scheduler the scheduler on which batches are emitted when the maximum delay elapses
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Map<K, D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                           final TimeUnit unit,
+                                                                           final Scheduler scheduler) {
+        return publishSubject.buffer(maxDelay, unit, scheduler, maxSize).filter(new NonEmptyBatchFilter());
+    }
+
+    private long currentNanos() {
+        return scheduler.now(TimeUnit.NANOSECONDS) - originNanos;
+    }
+}
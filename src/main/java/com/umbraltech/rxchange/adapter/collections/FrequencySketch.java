@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+/**
+ * A count-min sketch estimating how often keys were accessed, used for admission by {@link BoundedMapChangeAdapter}
+ * <p>
+ * Each key is hashed into one saturating 4-bit counter per row, and its frequency is estimated as the minimum
+ * of those counters, which are packed sixteen to a {@code long}. Once the number of increments reaches ten times
+ * the maximum size of the map, all counters are halved, so that the estimates favour recent accesses.
+ */
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int MAX_WIDTH = 1 << 24;
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int[] SEEDS = {0x97cb3127, 0xc2b2ae35, 0x85ebca6b, 0x27d4eb2f};
+
+    private final long[][] table;
+    private final int indexMask;
+    private final long sampleSize;
+    private long additionCount;
+
+    /**
+     * Creates an empty sketch
+     *
+     * @param maximumSize the maximum number of entries of the map
+     */
+    FrequencySketch(final int maximumSize) {
+        int width = 16;
+
+        while (width < maximumSize && width < MAX_WIDTH) {
+            width <<= 1;
+        }
+
+        table = new long[DEPTH][width >>> 4];
+        indexMask = width - 1;
+        sampleSize = 10L * maximumSize;
+    }
+
+    /**
+     * Returns the estimated number of accesses of a key since the counters were last halved
+     *
+     * @param key the key
+     * @return the estimated frequency, at most {@value #MAX_COUNT}
+     */
+    int frequency(final Object key) {
+        final int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, count(row, index(hash, row)));
+        }
+
+        return frequency;
+    }
+
+    /**
+     * Records an access of a key
+     *
+     * @param key the key
+     */
+    void increment(final Object key) {
+        final int hash = spread(key.hashCode());
+        boolean incremented = false;
+
+        for (int row = 0; row < DEPTH; row++) {
+            final int index = index(hash, row);
+
+            if (count(row, index) < MAX_COUNT) {
+                table[row][index >>> 4] += 1L << shift(index);
+                incremented = true;
+            }
+        }
+
+        // Age the counters once enough accesses were recorded
+        if (incremented && ++additionCount >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        // Halve the sixteen counters of each word at once
+        for (final long[] counters : table) {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = (counters[i] >>> 1) & RESET_MASK;
+            }
+        }
+
+        additionCount >>>= 1;
+    }
+
+    private int count(final int row, final int index) {
+        return (int) ((table[row][index >>> 4] >>> shift(index)) & MAX_COUNT);
+    }
+
+    private int index(final int hash, final int row) {
+        int index = (hash + SEEDS[row]) * SEEDS[row];
+        index += index >>> 16;
+
+        return index & indexMask;
+    }
+
+    private static int shift(final int index) {
+        return (index & 15) << 2;
+    }
+
+    private static int spread(final int hashCode) {
+        final int hash = hashCode * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * An array-backed list that maintains a hash-based count of its elements, used by {@link ListChangeAdapter}
+ * for the indexed storage
+ * <p>
+ * Membership checks take constant expected time, and lookups by value only scan the array
+ * when the element is known to be present.
+ *
+ * @param <D> the type of the elements
+ */
+final class IndexedList<D> extends AbstractList<D> implements RandomAccess {
+    private final List<D> elementList = new ArrayList<>();
+    private final Multiset<D> countMultiset = HashMultiset.create();
+
+    @Override
+    public D get(final int index) {
+        return elementList.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elementList.size();
+    }
+
+    @Override
+    public D set(final int index, final D element) {
+        final D oldElement = elementList.set(index, element);
+        countMultiset.remove(oldElement);
+        countMultiset.add(element);
+
+        return oldElement;
+    }
+
+    @Override
+    public void add(final int index, final D element) {
+        elementList.add(index, element);
+        countMultiset.add(element);
+        modCount++;
+    }
+
+    @Override
+    public D remove(final int index) {
+        final D element = elementList.remove(index);
+        countMultiset.remove(element);
+        modCount++;
+
+        return element;
+    }
+
+    @Override
+    public boolean remove(final Object element) {
+        // Check if element is absent without scanning
+        if (!countMultiset.contains(element)) {
+            return false;
+        }
+
+        elementList.remove(element);
+        countMultiset.remove(element);
+        modCount++;
+
+        return true;
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends D> collection) {
+        if (!elementList.addAll(collection)) {
+            return false;
+        }
+
+        countMultiset.addAll(collection);
+        modCount++;
+
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> collection) {
+        final Set<?> elementSet = (collection instanceof Set) ? (Set<?>) collection : new HashSet<>(collection);
+
+        // Remove all occurrences in a single pass over the array
+        if (!elementList.removeAll(elementSet)) {
+            return false;
+        }
+
+        countMultiset.elementSet().removeAll(elementSet);
+        modCount++;
+
+        return true;
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return countMultiset.contains(element);
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> collection) {
+        return countMultiset.containsAll(collection);
+    }
+
+    @Override
+    public int indexOf(final Object element) {
+        return countMultiset.contains(element) ? elementList.indexOf(element) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(final Object element) {
+        return countMultiset.contains(element) ? elementList.lastIndexOf(element) : -1;
+    }
+
+    @Override
+    public void clear() {
+        elementList.clear();
+        countMultiset.clear();
+        modCount++;
+    }
+}
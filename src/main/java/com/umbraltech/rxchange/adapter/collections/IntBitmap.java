@@ -0,0 +1,741 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable compressed bitmap of integers, used as the data and the bulk metadata
+ * of {@link IntBitmapSetChangeAdapter}
+ * <p>
+ * Following the Roaring layout, the integers are partitioned by their high 16 bits into containers,
+ * each holding the low 16 bits either as a sorted array when sparse or as a bitmap when dense.
+ * Modifications return a new bitmap sharing every unmodified container with this one.
+ * Integers are ordered as unsigned values.
+ */
+public final class IntBitmap implements Iterable<Integer> {
+    private static final int ARRAY_MAX_SIZE = 4096;
+    private static final int WORD_COUNT = 1024;
+    private static final IntBitmap EMPTY = new IntBitmap(new int[0], new Container[0]);
+
+    private final int[] keys;
+    private final Container[] containers;
+    private final long cardinality;
+
+    private IntBitmap(final int[] keys, final Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+
+        long cardinality = 0;
+
+        for (final Container container : containers) {
+            cardinality += container.cardinality();
+        }
+
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * Returns the empty bitmap
+     *
+     * @return the empty bitmap
+     */
+    public static IntBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a bitmap of the specified integers
+     *
+     * @param values the integers
+     * @return the bitmap
+     */
+    public static IntBitmap of(final int... values) {
+        final int[] sortedValues = values.clone();
+
+        // Sort as unsigned values, so that integers sharing their high bits are adjacent
+        for (int i = 0; i < sortedValues.length; i++) {
+            sortedValues[i] ^= Integer.MIN_VALUE;
+        }
+
+        Arrays.sort(sortedValues);
+
+        for (int i = 0; i < sortedValues.length; i++) {
+            sortedValues[i] ^= Integer.MIN_VALUE;
+        }
+
+        final int[] keys = new int[sortedValues.length];
+        final Container[] containers = new Container[sortedValues.length];
+        final char[] lowValues = new char[sortedValues.length];
+        int containerCount = 0;
+        int start = 0;
+
+        while (start < sortedValues.length) {
+            final int key = sortedValues[start] >>> 16;
+            int length = 0;
+            int end = start;
+
+            for (; end < sortedValues.length && (sortedValues[end] >>> 16) == key; end++) {
+                final char low = (char) sortedValues[end];
+
+                // Skip duplicates
+                if (length == 0 || lowValues[length - 1] != low) {
+                    lowValues[length++] = low;
+                }
+            }
+
+            keys[containerCount] = key;
+            containers[containerCount++] = Container.fromValues(lowValues, length);
+            start = end;
+        }
+
+        return new IntBitmap(Arrays.copyOf(keys, containerCount), Arrays.copyOf(containers, containerCount));
+    }
+
+    /**
+     * Returns whether the bitmap contains an integer
+     *
+     * @param value the integer
+     * @return {@code true} if the integer is contained, {@code false} otherwise
+     */
+    public boolean contains(final int value) {
+        final int index = Arrays.binarySearch(keys, value >>> 16);
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    /**
+     * Returns the number of integers in the bitmap
+     *
+     * @return the number of integers
+     */
+    public long getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Returns whether the bitmap is empty
+     *
+     * @return {@code true} if the bitmap contains no integer, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Returns a bitmap with the integer added
+     *
+     * @param value the integer
+     * @return the new bitmap, or this bitmap if the integer is already contained
+     */
+    public IntBitmap with(final int value) {
+        final int key = value >>> 16;
+        final int index = Arrays.binarySearch(keys, key);
+
+        // Add a container for the high bits if absent
+        if (index < 0) {
+            final int insertionIndex = -index - 1;
+            final Container container = new ArrayContainer(new char[]{(char) value});
+
+            return new IntBitmap(insert(keys, insertionIndex, key), insert(containers, insertionIndex, container));
+        }
+
+        final Container container = containers[index].add((char) value);
+        return (container == containers[index]) ? this : new IntBitmap(keys, replace(containers, index, container));
+    }
+
+    /**
+     * Returns a bitmap with the integer removed
+     *
+     * @param value the integer
+     * @return the new bitmap, or this bitmap if the integer is not contained
+     */
+    public IntBitmap without(final int value) {
+        final int index = Arrays.binarySearch(keys, value >>> 16);
+
+        if (index < 0) {
+            return this;
+        }
+
+        final Container container = containers[index].remove((char) value);
+
+        if (container == containers[index]) {
+            return this;
+        }
+
+        // Drop the container once empty
+        if (container == null) {
+            return new IntBitmap(delete(keys, index), delete(containers, index));
+        }
+
+        return new IntBitmap(keys, replace(containers, index, container));
+    }
+
+    /**
+     * Returns the union of this bitmap and another
+     *
+     * @param other the other bitmap
+     * @return the union, sharing the containers of the high bits present in only one of the bitmaps
+     */
+    public IntBitmap or(final IntBitmap other) {
+        final int[] newKeys = new int[keys.length + other.keys.length];
+        final Container[] newContainers = new Container[newKeys.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < keys.length || j < other.keys.length) {
+            final int comparison = (i == keys.length) ? 1 : (j == other.keys.length) ? -1
+                    : Integer.compare(keys[i], other.keys[j]);
+
+            if (comparison < 0) {
+                newKeys[count] = keys[i];
+                newContainers[count++] = containers[i++];
+            } else if (comparison > 0) {
+                newKeys[count] = other.keys[j];
+                newContainers[count++] = other.containers[j++];
+            } else {
+                newKeys[count] = keys[i];
+                newContainers[count++] = Container.or(containers[i++], other.containers[j++]);
+            }
+        }
+
+        return new IntBitmap(Arrays.copyOf(newKeys, count), Arrays.copyOf(newContainers, count));
+    }
+
+    /**
+     * Returns the intersection of this bitmap and another
+     *
+     * @param other the other bitmap
+     * @return the intersection
+     */
+    public IntBitmap and(final IntBitmap other) {
+        final int[] newKeys = new int[Math.min(keys.length, other.keys.length)];
+        final Container[] newContainers = new Container[newKeys.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < keys.length && j < other.keys.length) {
+            final int comparison = Integer.compare(keys[i], other.keys[j]);
+
+            if (comparison < 0) {
+                i++;
+            } else if (comparison > 0) {
+                j++;
+            } else {
+                final Container container = Container.and(containers[i++], other.containers[j++]);
+
+                if (container != null) {
+                    newKeys[count] = keys[i - 1];
+                    newContainers[count++] = container;
+                }
+            }
+        }
+
+        return new IntBitmap(Arrays.copyOf(newKeys, count), Arrays.copyOf(newContainers, count));
+    }
+
+    /**
+     * Returns the difference of this bitmap and another
+     *
+     * @param other the other bitmap
+     * @return the integers of this bitmap not contained in the other, sharing the containers
+     * of the high bits absent from the other
+     */
+    public IntBitmap andNot(final IntBitmap other) {
+        final int[] newKeys = new int[keys.length];
+        final Container[] newContainers = new Container[newKeys.length];
+        int count = 0;
+        int j = 0;
+
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+
+            final Container container = (j < other.keys.length && other.keys[j] == keys[i])
+                    ? Container.andNot(containers[i], other.containers[j]) : containers[i];
+
+            if (container != null) {
+                newKeys[count] = keys[i];
+                newContainers[count++] = container;
+            }
+        }
+
+        return new IntBitmap(Arrays.copyOf(newKeys, count), Arrays.copyOf(newContainers, count));
+    }
+
+    /**
+     * Returns the integers of the bitmap in unsigned order
+     *
+     * @return the array of integers
+     */
+    public int[] toArray() {
+        final int[] values = new int[(int) cardinality];
+        int count = 0;
+
+        for (final Integer value : this) {
+            values[count++] = value;
+        }
+
+        return values;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int index;
+            private int nextLow = containers.length > 0 ? containers[0].nextValue(0) : -1;
+
+            @Override
+            public boolean hasNext() {
+                return index < containers.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (index >= containers.length) {
+                    throw new NoSuchElementException();
+                }
+
+                final int value = (keys[index] << 16) | nextLow;
+                nextLow = containers[index].nextValue(nextLow + 1);
+
+                // Move on to the next container once exhausted
+                if (nextLow < 0 && ++index < containers.length) {
+                    nextLow = containers[index].nextValue(0);
+                }
+
+                return value;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        }
+
+        if (!(object instanceof IntBitmap)) {
+            return false;
+        }
+
+        final IntBitmap intBitmap = (IntBitmap) object;
+        return cardinality == intBitmap.cardinality && Arrays.equals(keys, intBitmap.keys)
+                && Arrays.equals(containers, intBitmap.containers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(containers);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(cardinality=%d)",
+                IntBitmap.class.getSimpleName(),
+                cardinality);
+    }
+
+    private static int[] insert(final int[] array, final int index, final int value) {
+        final int[] newArray = new int[array.length + 1];
+        System.arraycopy(array, 0, newArray, 0, index);
+        newArray[index] = value;
+        System.arraycopy(array, index, newArray, index + 1, array.length - index);
+
+        return newArray;
+    }
+
+    private static Container[] insert(final Container[] array, final int index, final Container value) {
+        final Container[] newArray = new Container[array.length + 1];
+        System.arraycopy(array, 0, newArray, 0, index);
+        newArray[index] = value;
+        System.arraycopy(array, index, newArray, index + 1, array.length - index);
+
+        return newArray;
+    }
+
+    private static Container[] replace(final Container[] array, final int index, final Container value) {
+        final Container[] newArray = array.clone();
+        newArray[index] = value;
+
+        return newArray;
+    }
+
+    private static int[] delete(final int[] array, final int index) {
+        final int[] newArray = new int[array.length - 1];
+        System.arraycopy(array, 0, newArray, 0, index);
+        System.arraycopy(array, index + 1, newArray, index, array.length - index - 1);
+
+        return newArray;
+    }
+
+    private static Container[] delete(final Container[] array, final int index) {
+        final Container[] newArray = new Container[array.length - 1];
+        System.arraycopy(array, 0, newArray, 0, index);
+        System.arraycopy(array, index + 1, newArray, index, array.length - index - 1);
+
+        return newArray;
+    }
+
+    /**
+     * An immutable set of 16-bit values, in the array representation when holding at most
+     * {@value #ARRAY_MAX_SIZE} values and in the bitmap representation otherwise
+     */
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        /**
+         * Returns the container with the value added, or this container if already present
+         */
+        abstract Container add(char value);
+
+        /**
+         * Returns the container without the value, this container if absent, or null if it becomes empty
+         */
+        abstract Container remove(char value);
+
+        /**
+         * Returns the smallest value not less than the specified one, or -1 if there is none
+         */
+        abstract int nextValue(int from);
+
+        /**
+         * Returns a new array of words with the bits of the values set
+         */
+        abstract long[] toWords();
+
+        static Container fromValues(final char[] values, final int length) {
+            if (length == 0) {
+                return null;
+            }
+
+            if (length <= ARRAY_MAX_SIZE) {
+                return new ArrayContainer(Arrays.copyOf(values, length));
+            }
+
+            final long[] words = new long[WORD_COUNT];
+
+            for (int i = 0; i < length; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+
+            return new BitmapContainer(words, length);
+        }
+
+        static Container fromWords(final long[] words) {
+            int cardinality = 0;
+
+            for (final long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+
+            if (cardinality == 0) {
+                return null;
+            }
+
+            if (cardinality > ARRAY_MAX_SIZE) {
+                return new BitmapContainer(words, cardinality);
+            }
+
+            final char[] values = new char[cardinality];
+            int count = 0;
+
+            for (int i = 0; i < words.length; i++) {
+                for (long word = words[i]; word != 0; word &= word - 1) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                }
+            }
+
+            return new ArrayContainer(values);
+        }
+
+        static Container or(final Container first, final Container second) {
+            // Merge sorted arrays without expanding them to bitmaps
+            if (first instanceof ArrayContainer && second instanceof ArrayContainer) {
+                final char[] firstValues = ((ArrayContainer) first).values;
+                final char[] secondValues = ((ArrayContainer) second).values;
+                final char[] values = new char[firstValues.length + secondValues.length];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+
+                while (i < firstValues.length || j < secondValues.length) {
+                    if (j == secondValues.length || (i < firstValues.length && firstValues[i] < secondValues[j])) {
+                        values[count++] = firstValues[i++];
+                    } else if (i == firstValues.length || secondValues[j] < firstValues[i]) {
+                        values[count++] = secondValues[j++];
+                    } else {
+                        values[count++] = firstValues[i++];
+                        j++;
+                    }
+                }
+
+                return fromValues(values, count);
+            }
+
+            final long[] words = first.toWords();
+            final long[] otherWords = second.toWords();
+
+            for (int i = 0; i < WORD_COUNT; i++) {
+                words[i] |= otherWords[i];
+            }
+
+            return fromWords(words);
+        }
+
+        static Container and(final Container first, final Container second) {
+            // Filter the values of an array by membership in the other container
+            if (first instanceof ArrayContainer || second instanceof ArrayContainer) {
+                final boolean firstArray = first instanceof ArrayContainer;
+                final char[] arrayValues = ((ArrayContainer) (firstArray ? first : second)).values;
+                final Container other = firstArray ? second : first;
+                final char[] values = new char[arrayValues.length];
+                int count = 0;
+
+                for (final char value : arrayValues) {
+                    if (other.contains(value)) {
+                        values[count++] = value;
+                    }
+                }
+
+                return fromValues(values, count);
+            }
+
+            final long[] words = first.toWords();
+            final long[] otherWords = ((BitmapContainer) second).words;
+
+            for (int i = 0; i < WORD_COUNT; i++) {
+                words[i] &= otherWords[i];
+            }
+
+            return fromWords(words);
+        }
+
+        static Container andNot(final Container first, final Container second) {
+            // Filter the values of an array by absence from the other container
+            if (first instanceof ArrayContainer) {
+                final char[] arrayValues = ((ArrayContainer) first).values;
+                final char[] values = new char[arrayValues.length];
+                int count = 0;
+
+                for (final char value : arrayValues) {
+                    if (!second.contains(value)) {
+                        values[count++] = value;
+                    }
+                }
+
+                return (count == arrayValues.length) ? first : fromValues(values, count);
+            }
+
+            final long[] words = first.toWords();
+            final long[] otherWords = second.toWords();
+
+            for (int i = 0; i < WORD_COUNT; i++) {
+                words[i] &= ~otherWords[i];
+            }
+
+            return fromWords(words);
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        private final char[] values;
+
+        private ArrayContainer(final char[] values) {
+            this.values = values;
+        }
+
+        @Override
+        int cardinality() {
+            return values.length;
+        }
+
+        @Override
+        boolean contains(final char value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        @Override
+        Container add(final char value) {
+            final int index = Arrays.binarySearch(values, value);
+
+            if (index >= 0) {
+                return this;
+            }
+
+            // Convert to a bitmap once the array is full
+            if (values.length == ARRAY_MAX_SIZE) {
+                final long[] words = toWords();
+                words[value >>> 6] |= 1L << value;
+
+                return new BitmapContainer(words, values.length + 1);
+            }
+
+            final int insertionIndex = -index - 1;
+            final char[] newValues = new char[values.length + 1];
+            System.arraycopy(values, 0, newValues, 0, insertionIndex);
+            newValues[insertionIndex] = value;
+            System.arraycopy(values, insertionIndex, newValues, insertionIndex + 1, values.length - insertionIndex);
+
+            return new ArrayContainer(newValues);
+        }
+
+        @Override
+        Container remove(final char value) {
+            final int index = Arrays.binarySearch(values, value);
+
+            if (index < 0) {
+                return this;
+            }
+
+            if (values.length == 1) {
+                return null;
+            }
+
+            final char[] newValues = new char[values.length - 1];
+            System.arraycopy(values, 0, newValues, 0, index);
+            System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+
+            return new ArrayContainer(newValues);
+        }
+
+        @Override
+        int nextValue(final int from) {
+            if (from > Character.MAX_VALUE) {
+                return -1;
+            }
+
+            final int index = Arrays.binarySearch(values, (char) from);
+            final int nextIndex = (index >= 0) ? index : -index - 1;
+
+            return (nextIndex < values.length) ? values[nextIndex] : -1;
+        }
+
+        @Override
+        long[] toWords() {
+            final long[] words = new long[WORD_COUNT];
+
+            for (final char value : values) {
+                words[value >>> 6] |= 1L << value;
+            }
+
+            return words;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            return object instanceof ArrayContainer && Arrays.equals(values, ((ArrayContainer) object).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private final int cardinality;
+
+        private BitmapContainer(final long[] words, final int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(final char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container add(final char value) {
+            if (contains(value)) {
+                return this;
+            }
+
+            final long[] newWords = words.clone();
+            newWords[value >>> 6] |= 1L << value;
+
+            return new BitmapContainer(newWords, cardinality + 1);
+        }
+
+        @Override
+        Container remove(final char value) {
+            if (!contains(value)) {
+                return this;
+            }
+
+            final long[] newWords = words.clone();
+            newWords[value >>> 6] &= ~(1L << value);
+
+            // Convert to an array once sparse
+            return (cardinality - 1 > ARRAY_MAX_SIZE) ? new BitmapContainer(newWords, cardinality - 1)
+                    : fromWords(newWords);
+        }
+
+        @Override
+        int nextValue(final int from) {
+            if (from > Character.MAX_VALUE) {
+                return -1;
+            }
+
+            int index = from >>> 6;
+            long word = words[index] & (-1L << from);
+
+            while (word == 0) {
+                if (++index == WORD_COUNT) {
+                    return -1;
+                }
+
+                word = words[index];
+            }
+
+            return (index << 6) | Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        long[] toWords() {
+            return words.clone();
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            return object instanceof BitmapContainer && Arrays.equals(words, ((BitmapContainer) object).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(words);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.umbraltech.rxchange.filter.NonEmptyBatchFilter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.type.ChangeType;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adapter that implements the reactive change model for sets of integers, such as dense identifiers
+ * <p>
+ * The data is stored in a compressed {@link IntBitmap} without boxing its integers. Each change only copies
+ * the containers it modifies, so the snapshots carried by the change messages share all other containers
+ * with each other. Reads never acquire a lock.
+ */
+public class IntBitmapSetChangeAdapter {
+    private final PublishSubject<ChangeMessage<IntBitmap>> publishSubject = PublishSubject.create();
+    private final Lock writeLock = new ReentrantLock();
+    private volatile IntBitmap dataBitmap;
+
+    /**
+     * Default constructor
+     */
+    public IntBitmapSetChangeAdapter() {
+        this(IntBitmap.empty());
+    }
+
+    /**
+     * Initializes the adapter with a bitmap of integers, without emitting a change message
+     *
+     * @param initialDataBitmap the initial bitmap of integers
+     */
+    public IntBitmapSetChangeAdapter(final IntBitmap initialDataBitmap) {
+        dataBitmap = initialDataBitmap;
+    }
+
+    /**
+     * Adds an integer to the set and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain the integer that was added
+     *
+     * @param data the integer to be added
+     * @return {@code true} if the integer was added, {@code false} if it already exists
+     */
+    public boolean add(final int data) {
+        writeLock.lock();
+
+        try {
+            final IntBitmap oldBitmapSnapshot = dataBitmap;
+            final IntBitmap newBitmapSnapshot = oldBitmapSnapshot.with(data);
+
+            // Check if integer already exists
+            if (newBitmapSnapshot == oldBitmapSnapshot) {
+                return false;
+            }
+
+            dataBitmap = newBitmapSnapshot;
+
+            // Signal addition
+            publishSubject.onNext(new MetaChangeMessage<IntBitmap, Integer>(oldBitmapSnapshot, newBitmapSnapshot,
+                    ChangeType.ADD, data));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes an integer from the set and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain the integer that was removed
+     *
+     * @param data the integer to be removed
+     * @return {@code true} if the integer was removed, {@code false} if it does not exist
+     */
+    public boolean remove(final int data) {
+        writeLock.lock();
+
+        try {
+            final IntBitmap oldBitmapSnapshot = dataBitmap;
+            final IntBitmap newBitmapSnapshot = oldBitmapSnapshot.without(data);
+
+            // Check if integer exists
+            if (newBitmapSnapshot == oldBitmapSnapshot) {
+                return false;
+            }
+
+            dataBitmap = newBitmapSnapshot;
+
+            // Signal removal
+            publishSubject.onNext(new MetaChangeMessage<IntBitmap, Integer>(oldBitmapSnapshot, newBitmapSnapshot,
+                    ChangeType.REMOVE, data));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the integers of a bitmap to the set and emits a change message to surrounding observers
+     * <p>
+     * Unlike {@code SetChangeAdapter#addAll}, integers that already exist are ignored. The metadata in the emitted
+     * change message will contain the bitmap of integers that were actually added.
+     *
+     * @param bitmap the bitmap of integers to be added
+     * @return {@code true} if any integer was added, {@code false} if all of them already exist
+     */
+    public boolean union(final IntBitmap bitmap) {
+        writeLock.lock();
+
+        try {
+            final IntBitmap oldBitmapSnapshot = dataBitmap;
+            final IntBitmap addedBitmap = bitmap.andNot(oldBitmapSnapshot);
+
+            // Check if any integer is missing
+            if (addedBitmap.isEmpty()) {
+                return false;
+            }
+
+            final IntBitmap newBitmapSnapshot = oldBitmapSnapshot.or(addedBitmap);
+            dataBitmap = newBitmapSnapshot;
+
+            // Signal addition
+            publishSubject.onNext(new MetaChangeMessage<IntBitmap, IntBitmap>(oldBitmapSnapshot, newBitmapSnapshot,
+                    ChangeType.ADD, addedBitmap));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the integers not contained in a bitmap from the set and emits a change message
+     * to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain the bitmap of integers that were removed
+     *
+     * @param bitmap the bitmap of integers to be retained
+     * @return {@code true} if any integer was removed, {@code false} otherwise
+     */
+    public boolean intersect(final IntBitmap bitmap) {
+        writeLock.lock();
+
+        try {
+            final IntBitmap oldBitmapSnapshot = dataBitmap;
+            return removeBitmap(oldBitmapSnapshot, oldBitmapSnapshot.andNot(bitmap));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the integers of a bitmap from the set and emits a change message to surrounding observers
+     * <p>
+     * Unlike {@code SetChangeAdapter#removeAll}, integers that do not exist are ignored. The metadata in the emitted
+     * change message will contain the bitmap of integers that were actually removed.
+     *
+     * @param bitmap the bitmap of integers to be removed
+     * @return {@code true} if any integer was removed, {@code false} if none of them exist
+     */
+    public boolean difference(final IntBitmap bitmap) {
+        writeLock.lock();
+
+        try {
+            final IntBitmap oldBitmapSnapshot = dataBitmap;
+            return removeBitmap(oldBitmapSnapshot, oldBitmapSnapshot.and(bitmap));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether the set contains an integer
+     *
+     * @param data the integer
+     * @return {@code true} if the integer exists, {@code false} otherwise
+     */
+    public boolean contains(final int data) {
+        return dataBitmap.contains(data);
+    }
+
+    /**
+     * Returns the number of integers in the set
+     *
+     * @return the number of integers
+     */
+    public long size() {
+        return dataBitmap.getCardinality();
+    }
+
+    /**
+     * Returns an immutable snapshot of the current set of integers, without copying
+     *
+     * @return the bitmap of integers
+     */
+    public IntBitmap getAll() {
+        return dataBitmap;
+    }
+
+    /**
+     * Returns a reference to the observable used for listening to change messages
+     *
+     * @return the observable reference
+     */
+    public Observable<ChangeMessage<IntBitmap>> getObservable() {
+        return publishSubject;
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, so that observers can amortize
+     * their per-message cost
+     * <p>
+     * A batch is emitted once it reaches the maximum size, or once the maximum delay has elapsed
+     * since the previous batch. Empty batches are not emitted.
+     *
+     * @param maxSize  the maximum number of change messages in a batch
+     * @param maxDelay the maximum time a change message waits for its batch to be emitted
+     * @param unit     the unit of the maximum delay
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<IntBitmap>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                           final TimeUnit unit) {
+        return getBatchedObservable(maxSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, timed on the specified scheduler
+     *
+     * @param maxSize   the maximum number of change messages in a batch
+     * @param maxDelay  the maximum time a change message waits for its batch to be emitted
+     * @param unit      the unit of the maximum delay
+     * @param scheduler the scheduler on which batches are emitted when the maximum delay elapses
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<IntBitmap>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                           final TimeUnit unit,
+                                                                           final Scheduler scheduler) {
+        return publishSubject.buffer(maxDelay, unit, scheduler, maxSize).filter(new NonEmptyBatchFilter());
+    }
+
+    private boolean removeBitmap(final IntBitmap oldBitmapSnapshot, final IntBitmap removedBitmap) {
+        // Check if any integer is to be removed
+        if (removedBitmap.isEmpty()) {
+            return false;
+        }
+
+        final IntBitmap newBitmapSnapshot = oldBitmapSnapshot.andNot(removedBitmap);
+        dataBitmap = newBitmapSnapshot;
+
+        // Signal removal
+        publishSubject.onNext(new MetaChangeMessage<IntBitmap, IntBitmap>(oldBitmapSnapshot, newBitmapSnapshot,
+                ChangeType.REMOVE, removedBitmap));
+
+        return true;
+    }
+}
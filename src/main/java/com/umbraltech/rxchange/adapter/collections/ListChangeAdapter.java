@@ -16,18 +16,29 @@
 
 package com.umbraltech.rxchange.adapter.collections;
 
+import com.google.common.base.Equivalence;
 import com.google.common.collect.ImmutableList;
+import com.umbraltech.rxchange.filter.ChangedDataFilter;
+import com.umbraltech.rxchange.filter.NonEmptyBatchFilter;
 import com.umbraltech.rxchange.message.ChangeMessage;
 import com.umbraltech.rxchange.message.MetaChangeMessage;
 import com.umbraltech.rxchange.type.ChangeType;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.PublishSubject;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * An adapter that implements the reactive change model for lists
@@ -36,14 +47,63 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 public class ListChangeAdapter<D> {
     private final PublishSubject<ChangeMessage<List<D>>> publishSubject = PublishSubject.create();
-    private final List<D> dataList = new ArrayList<>();
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final List<D> dataList;
+    private final List<D> dataListView;
+    private final ChangeAdapterLock readWriteLock;
+    private final ReadMode readMode;
+    private volatile List<D> listSnapshot;
+    private Equivalence<? super D> equivalence;
+    private final AtomicLong suppressedUpdateCount = new AtomicLong();
+
+    private final BiFunction<List<D>, Integer, D> getFunction = new BiFunction<List<D>, Integer, D>() {
+        @Override
+        public D apply(List<D> data, Integer index) {
+            return data.get(index);
+        }
+    };
+
+    private final BiFunction<List<D>, Object, Integer> sizeFunction = new BiFunction<List<D>, Object, Integer>() {
+        @Override
+        public Integer apply(List<D> data, Object argument) {
+            return data.size();
+        }
+    };
+
+    private final BiFunction<List<D>, D, Boolean> containsFunction = new BiFunction<List<D>, D, Boolean>() {
+        @Override
+        public Boolean apply(List<D> data, D element) {
+            return data.contains(element);
+        }
+    };
 
     /**
      * Default constructor
      */
     public ListChangeAdapter() {
-        // Stub
+        this(ReadMode.LOCKED);
+    }
+
+    /**
+     * Initializes the adapter with the specified read mode
+     *
+     * @param readMode the strategy used for reading the data
+     */
+    public ListChangeAdapter(final ReadMode readMode) {
+        this(readMode, ListStorage.ARRAY);
+    }
+
+    /**
+     * Initializes the adapter with the specified read mode and storage
+     *
+     * @param readMode the strategy used for reading the data
+     * @param storage  the data structure used for storing the elements
+     */
+    public ListChangeAdapter(final ReadMode readMode, final ListStorage storage) {
+        dataList = createList(storage);
+        dataListView = Collections.unmodifiableList(dataList);
+        this.readMode = readMode;
+        readWriteLock = new ChangeAdapterLock(readMode);
+        listSnapshot = takeSnapshot();
     }
 
     /**
@@ -52,7 +112,32 @@ public class ListChangeAdapter<D> {
      * @param initialDataList the initial list of elements
      */
     public ListChangeAdapter(final List<D> initialDataList) {
+        this(initialDataList, ReadMode.LOCKED);
+    }
+
+    /**
+     * Initializes the adapter with a list of elements and the specified read mode,
+     * without emitting a change message
+     *
+     * @param initialDataList the initial list of elements
+     * @param readMode        the strategy used for reading the data
+     */
+    public ListChangeAdapter(final List<D> initialDataList, final ReadMode readMode) {
+        this(initialDataList, readMode, ListStorage.ARRAY);
+    }
+
+    /**
+     * Initializes the adapter with a list of elements, the specified read mode and storage,
+     * without emitting a change message
+     *
+     * @param initialDataList the initial list of elements
+     * @param readMode        the strategy used for reading the data
+     * @param storage         the data structure used for storing the elements
+     */
+    public ListChangeAdapter(final List<D> initialDataList, final ReadMode readMode, final ListStorage storage) {
+        this(readMode, storage);
         dataList.addAll(initialDataList);
+        listSnapshot = takeSnapshot();
     }
 
     /**
@@ -68,10 +153,11 @@ public class ListChangeAdapter<D> {
         lock.lock();
 
         try {
-            final List<D> oldListSnapshot = ImmutableList.copyOf(dataList);
+            final List<D> oldListSnapshot = currentSnapshot();
             dataList.add(data);
 
-            final List<D> newListSnapshot = ImmutableList.copyOf(dataList);
+            final List<D> newListSnapshot = takeSnapshot();
+            publishSnapshot(newListSnapshot);
 
             // Signal addition
             publishSubject.onNext(new MetaChangeMessage<>(oldListSnapshot, newListSnapshot, ChangeType.ADD, data));
@@ -101,10 +187,11 @@ public class ListChangeAdapter<D> {
                 return false;
             }
 
-            final List<D> oldListSnapshot = ImmutableList.copyOf(dataList);
+            final List<D> oldListSnapshot = currentSnapshot();
             dataList.add(index, data);
 
-            final List<D> newListSnapshot = ImmutableList.copyOf(dataList);
+            final List<D> newListSnapshot = takeSnapshot();
+            publishSnapshot(newListSnapshot);
 
             // Signal addition
             publishSubject.onNext(new MetaChangeMessage<>(oldListSnapshot, newListSnapshot, ChangeType.ADD, data));
@@ -129,11 +216,12 @@ public class ListChangeAdapter<D> {
         lock.lock();
 
         try {
-            final List<D> oldListSnapshot = ImmutableList.copyOf(this.dataList);
+            final List<D> oldListSnapshot = currentSnapshot();
             this.dataList.addAll(dataList);
 
-            final List<D> newListSnapshot = ImmutableList.copyOf(this.dataList);
+            final List<D> newListSnapshot = takeSnapshot();
             final List<D> changeSnapshot = ImmutableList.copyOf(dataList);
+            publishSnapshot(newListSnapshot);
 
             // Signal addition
             publishSubject.onNext(new MetaChangeMessage<>(oldListSnapshot, newListSnapshot, ChangeType.ADD,
@@ -158,15 +246,15 @@ public class ListChangeAdapter<D> {
         lock.lock();
 
         try {
-            // Validate item
-            if (!dataList.contains(data)) {
+            final List<D> oldListSnapshot = currentSnapshot();
+
+            // Validate item while removing it
+            if (!dataList.remove(data)) {
                 return false;
             }
 
-            final List<D> oldListSnapshot = ImmutableList.copyOf(dataList);
-            dataList.remove(data);
-
-            final List<D> newListSnapshot = ImmutableList.copyOf(dataList);
+            final List<D> newListSnapshot = takeSnapshot();
+            publishSnapshot(newListSnapshot);
 
             // Signal removal
             publishSubject.onNext(new MetaChangeMessage<>(oldListSnapshot, newListSnapshot, ChangeType.REMOVE, data));
@@ -195,10 +283,11 @@ public class ListChangeAdapter<D> {
                 return false;
             }
 
-            final List<D> oldListSnapshot = ImmutableList.copyOf(dataList);
+            final List<D> oldListSnapshot = currentSnapshot();
             final D data = dataList.remove(index);
 
-            final List<D> newListSnapshot = ImmutableList.copyOf(dataList);
+            final List<D> newListSnapshot = takeSnapshot();
+            publishSnapshot(newListSnapshot);
 
             // Signal removal
             publishSubject.onNext(new MetaChangeMessage<>(oldListSnapshot, newListSnapshot, ChangeType.REMOVE, data));
@@ -227,11 +316,12 @@ public class ListChangeAdapter<D> {
                 return false;
             }
 
-            final List<D> oldListSnapshot = ImmutableList.copyOf(this.dataList);
+            final List<D> oldListSnapshot = currentSnapshot();
             this.dataList.removeAll(dataList);
 
-            final List<D> newListSnapshot = ImmutableList.copyOf(this.dataList);
+            final List<D> newListSnapshot = takeSnapshot();
             final List<D> changeSnapshot = ImmutableList.copyOf(dataList);
+            publishSnapshot(newListSnapshot);
 
             // Signal removal
             publishSubject.onNext(new MetaChangeMessage<>(oldListSnapshot, newListSnapshot, ChangeType.REMOVE,
@@ -243,6 +333,101 @@ public class ListChangeAdapter<D> {
         }
     }
 
+    /**
+     * Adds the elements that are not present in the list, and emits a single change message
+     * to surrounding observers for the added elements
+     * <p>
+     * Elements already contained in the list, including earlier elements of the argument, are skipped.
+     * The metadata in the emitted change message will contain a snapshot of the elements that were added.
+     *
+     * @param dataList the list containing the elements to be added
+     * @return the set of added elements, indexed by their position in the iteration order of the argument
+     */
+    public BitSet addAllPresent(final List<D> dataList) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            final BitSet resultSet = new BitSet(dataList.size());
+            final ImmutableList.Builder<D> changeBuilder = ImmutableList.builder();
+            List<D> oldListSnapshot = null;
+            int position = 0;
+
+            for (final D data : dataList) {
+                // Check if element already exists
+                if (this.dataList.contains(data)) {
+                    position++;
+                    continue;
+                }
+
+                if (oldListSnapshot == null) {
+                    oldListSnapshot = currentSnapshot();
+                }
+
+                this.dataList.add(data);
+                changeBuilder.add(data);
+                resultSet.set(position++);
+            }
+
+            // Signal addition
+            if (oldListSnapshot != null) {
+                emitApplied(oldListSnapshot, ChangeType.ADD, changeBuilder.build());
+            }
+
+            return resultSet;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the elements that are present in the list, and emits a single change message
+     * to surrounding observers for the removed elements
+     * <p>
+     * The first occurrence of each element is removed, and unlike {@link #removeAll(List)},
+     * missing elements do not cause the whole list to be rejected.
+     * The metadata in the emitted change message will contain a snapshot of the elements that were removed.
+     *
+     * @param dataList the list containing the elements to be removed
+     * @return the set of removed elements, indexed by their position in the iteration order of the argument
+     */
+    public BitSet removeAllPresent(final List<D> dataList) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            final BitSet resultSet = new BitSet(dataList.size());
+            final ImmutableList.Builder<D> changeBuilder = ImmutableList.builder();
+            List<D> oldListSnapshot = null;
+            int position = 0;
+
+            for (final D data : dataList) {
+                // Check if no element to remove
+                if (!this.dataList.contains(data)) {
+                    position++;
+                    continue;
+                }
+
+                if (oldListSnapshot == null) {
+                    oldListSnapshot = currentSnapshot();
+                }
+
+                this.dataList.remove(data);
+                changeBuilder.add(data);
+                resultSet.set(position++);
+            }
+
+            // Signal removal
+            if (oldListSnapshot != null) {
+                emitApplied(oldListSnapshot, ChangeType.REMOVE, changeBuilder.build());
+            }
+
+            return resultSet;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Updates the element at the specified index with new data
      * <p>
@@ -263,10 +448,16 @@ public class ListChangeAdapter<D> {
                 return false;
             }
 
-            final List<D> oldListSnapshot = ImmutableList.copyOf(dataList);
+            // Check if value is unchanged
+            if (isSuppressed(dataList.get(index), data)) {
+                return false;
+            }
+
+            final List<D> oldListSnapshot = currentSnapshot();
             dataList.set(index, data);
 
-            final List<D> newListSnapshot = ImmutableList.copyOf(dataList);
+            final List<D> newListSnapshot = takeSnapshot();
+            publishSnapshot(newListSnapshot);
 
             // Signal update
             publishSubject.onNext(new MetaChangeMessage<>(oldListSnapshot, newListSnapshot, ChangeType.UPDATE, data));
@@ -284,11 +475,86 @@ public class ListChangeAdapter<D> {
      * @return the element at the specified index
      */
     public D get(final int index) {
+        return readWriteLock.read(listSnapshot, dataList, getFunction, index);
+    }
+
+    /**
+     * Returns the number of elements, without taking a snapshot
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return readWriteLock.read(listSnapshot, dataList, sizeFunction, null);
+    }
+
+    /**
+     * Returns whether the list contains the element, without taking a snapshot
+     *
+     * @param data the element to be checked
+     * @return {@code true} if the element exists, {@code false} otherwise
+     */
+    public boolean contains(final D data) {
+        return readWriteLock.read(listSnapshot, dataList, containsFunction, data);
+    }
+
+    /**
+     * Performs an action for each element under the read lock, without taking a snapshot
+     * <p>
+     * The action must not modify the adapter, as it is invoked while the read lock is held
+     *
+     * @param action the action invoked with each element, in list order
+     */
+    public void forEach(final Consumer<? super D> action) {
+        final List<D> listSnapshot = (readMode == ReadMode.SNAPSHOT) ? this.listSnapshot : null;
+        final Lock lock = (listSnapshot == null) ? readWriteLock.readLock() : null;
+
+        // The published snapshot does not need to be read under the lock
+        if (lock != null) {
+            lock.lock();
+        }
+
+        try {
+            final List<D> source = (listSnapshot == null) ? dataList : listSnapshot;
+
+            for (final D data : source) {
+                action.accept(data);
+            }
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies a function to a read-only view of the underlying data under the read lock,
+     * without taking a snapshot
+     * <p>
+     * The view is only valid for the duration of the call and must not be retained by the function
+     *
+     * @param function the function reading the view
+     * @param <R>      the type of the result
+     * @return the result of the function
+     */
+    public <R> R read(final Function<? super List<D>, ? extends R> function) {
+        // Read the published snapshot in the snapshot read mode
+        if (readMode == ReadMode.SNAPSHOT) {
+            try {
+                return function.apply(listSnapshot);
+            } catch (Exception e) {
+                throw Exceptions.propagate(e);
+            }
+        }
+
         final Lock lock = readWriteLock.readLock();
         lock.lock();
 
         try {
-            return dataList.get(index);
+            return function.apply(dataListView);
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
         } finally {
             lock.unlock();
         }
@@ -296,20 +562,45 @@ public class ListChangeAdapter<D> {
 
     /**
      * Returns an immutable snapshot of the current list
+     * <p>
+     * The snapshot published by the last change is returned, so repeated calls do not copy the list
      *
      * @return the list of elements
      */
     public List<D> getAll() {
-        final Lock lock = readWriteLock.readLock();
+        // The snapshot of the last change is reused until the next change
+        return listSnapshot;
+    }
+
+    /**
+     * Sets the equivalence used for detecting updates that do not change the elements
+     * <p>
+     * Updates to a value equivalent to the current one are suppressed: they return {@code false},
+     * leave the data untouched and emit no change message. Use {@link Equivalence#equals()} for
+     * value equality, {@link Equivalence#identity()} for reference equality, or a custom equivalence.
+     *
+     * @param equivalence the equivalence, null to emit every update
+     */
+    public void setEquivalence(final Equivalence<? super D> equivalence) {
+        final Lock lock = readWriteLock.writeLock();
         lock.lock();
 
         try {
-            return ImmutableList.copyOf(dataList);
+            this.equivalence = equivalence;
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Returns the number of updates suppressed because the new value was equivalent to the current one
+     *
+     * @return the number of suppressed updates
+     */
+    public long getSuppressedUpdateCount() {
+        return suppressedUpdateCount.get();
+    }
+
     /**
      * Returns a reference to the observable used for listening to change messages
      *
@@ -318,4 +609,127 @@ public class ListChangeAdapter<D> {
     public Observable<ChangeMessage<List<D>>> getObservable() {
         return publishSubject;
     }
+
+    /**
+     * Returns an observable emitting the changes to a window of indices, for observers such as
+     * virtualized views that only display part of a large list
+     * <p>
+     * The old and new data of the emitted change messages are the contents of the window before and after
+     * each change, as read-only views of the snapshots. Changes outside of the window that do not shift
+     * its contents are not emitted. The change type and metadata are those of the original change message.
+     *
+     * @param from the first index of the window, inclusive
+     * @param to   the last index of the window, exclusive
+     * @return the observable of window changes
+     * @throws IllegalArgumentException if the range is invalid
+     */
+    public Observable<ChangeMessage<List<D>>> observeRange(final int from, final int to) {
+        if (from < 0 || to < from) {
+            throw new IllegalArgumentException("Invalid range: " + from + " to " + to);
+        }
+
+        return publishSubject.map(new RangeFunction<D>(from, to)).filter(new ChangedDataFilter());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, so that observers can amortize
+     * their per-message cost
+     * <p>
+     * A batch is emitted once it reaches the maximum size, or once the maximum delay has elapsed
+     * since the previous batch. Empty batches are not emitted.
+     *
+     * @param maxSize  the maximum number of change messages in a batch
+     * @param maxDelay the maximum time a change message waits for its batch to be emitted
+     * @param unit     the unit of the maximum delay
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<List<D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                         final TimeUnit unit) {
+        return getBatchedObservable(maxSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, timed on the specified scheduler
+     *
+     * @param maxSize   the maximum number of change messages in a batch
+     * @param maxDelay  the maximum time a change message waits for its batch to be emitted
+     * @param unit      the unit of the maximum delay
+     * @param scheduler the scheduler on which batches are emitted when the maximum delay elapses
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<List<D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                         final TimeUnit unit,
+                                                                         final Scheduler scheduler) {
+        return publishSubject.buffer(maxDelay, unit, scheduler, maxSize).filter(new NonEmptyBatchFilter());
+    }
+
+    private static <D> List<D> createList(final ListStorage storage) {
+        switch (storage) {
+            case INDEXED:
+                return new IndexedList<>();
+            case TREE:
+                return new TreeList<>();
+            default:
+                return new ArrayList<>();
+        }
+    }
+
+    private boolean isSuppressed(final D oldData, final D newData) {
+        if (equivalence == null || !equivalence.equivalent(oldData, newData)) {
+            return false;
+        }
+
+        suppressedUpdateCount.incrementAndGet();
+        return true;
+    }
+
+    private void emitApplied(final List<D> oldListSnapshot, final ChangeType changeType,
+                             final List<D> changeSnapshot) {
+        final List<D> newListSnapshot = takeSnapshot();
+        publishSnapshot(newListSnapshot);
+
+        publishSubject.onNext(new MetaChangeMessage<>(oldListSnapshot, newListSnapshot, changeType, changeSnapshot));
+    }
+
+    private List<D> takeSnapshot() {
+        // The tree storage shares its structure with the snapshot instead of copying the elements
+        if (dataList instanceof TreeList) {
+            return ((TreeList<D>) dataList).snapshot();
+        }
+
+        return ImmutableList.copyOf(dataList);
+    }
+
+    private List<D> currentSnapshot() {
+        // Reuse the snapshot published by the previous change as the old data
+        return listSnapshot;
+    }
+
+    private void publishSnapshot(final List<D> listSnapshot) {
+        this.listSnapshot = listSnapshot;
+    }
+
+    private static final class RangeFunction<D> implements Function<ChangeMessage<List<D>>, ChangeMessage<List<D>>> {
+        private final int from;
+        private final int to;
+
+        private RangeFunction(final int from, final int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public ChangeMessage<List<D>> apply(final ChangeMessage<List<D>> changeMessage) {
+            final Object metadata = (changeMessage instanceof MetaChangeMessage)
+                    ? ((MetaChangeMessage<?, ?>) changeMessage).getMetadata() : null;
+
+            return new MetaChangeMessage<>(window(changeMessage.getOldData()), window(changeMessage.getNewData()),
+                    changeMessage.getChangeType(), metadata);
+        }
+
+        private List<D> window(final List<D> listSnapshot) {
+            final int size = listSnapshot.size();
+            return listSnapshot.subList(Math.min(from, size), Math.min(to, size));
+        }
+    }
 }
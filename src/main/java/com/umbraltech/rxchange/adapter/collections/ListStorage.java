@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+/**
+ * The data structures supported by the list adapter for storing its elements
+ */
+public enum ListStorage {
+    /**
+     * The elements are stored in an array, with fast positional access but linear lookups by value
+     */
+    ARRAY,
+
+    /**
+     * The elements are stored in an array alongside a hash-based count of each element
+     * <p>
+     * Checking whether an element is contained takes constant expected time, removing an element
+     * by value scans the array once, and removing a collection of elements is linear in the size of the list.
+     * This suits large lists whose elements are frequently looked up or removed by value.
+     */
+    INDEXED,
+
+    /**
+     * The elements are stored in a persistent balanced tree
+     * <p>
+     * Positional reads, insertions and removals take logarithmic time, and the snapshots carried by
+     * the change messages share their structure with the tree instead of copying the elements.
+     * This suits large lists that are frequently modified in the middle.
+     */
+    TREE
+}
@@ -16,23 +16,47 @@
 
 package com.umbraltech.rxchange.adapter.collections;
 
+import com.google.common.base.Equivalence;
+import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.umbraltech.rxchange.dispatch.ChangeRingBuffer;
+import com.umbraltech.rxchange.filter.NonEmptyBatchFilter;
 import com.umbraltech.rxchange.message.ChangeMessage;
 import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import com.umbraltech.rxchange.message.RetainFunction;
 import com.umbraltech.rxchange.type.ChangeType;
 import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.BiConsumer;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.PublishSubject;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * An adapter that implements the reactive change model for maps
+ * <p>
+ * The snapshots carried by the change messages are persistent maps, so a change only copies the path to
+ * the entries it modifies, and the snapshots share their structure with each other.
  *
  * @param <K> the type used for the keys
  * @param <D> the type used for the data
@@ -40,13 +64,56 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class MapChangeAdapter<K, D> {
     private final PublishSubject<ChangeMessage<Map<K, D>>> publishSubject = PublishSubject.create();
     private final Map<K, D> dataMap = new HashMap<>();
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final Map<K, D> dataMapView = Collections.unmodifiableMap(dataMap);
+    private final ChangeAdapterLock readWriteLock;
+    private final ReadMode readMode;
+    private volatile PersistentMap<K, D> mapSnapshot;
+    private final List<MapIndex<?, K, D>> indexList = new ArrayList<>();
+    private ChangeRingBuffer<Map<K, D>, Object> ringBuffer;
+    private PooledChangeMessage pooledMessage;
+    private boolean pooledMessageInUse;
+    private Equivalence<? super D> equivalence;
+    private final AtomicLong suppressedUpdateCount = new AtomicLong();
+    private final MutableMapEntry<K, D> pooledEntry = new MutableMapEntry<>();
+    private final PreviousMapView<K, D> previousMapView = new PreviousMapView<>(dataMapView);
+
+    private final BiFunction<Map<K, D>, K, D> getFunction = new BiFunction<Map<K, D>, K, D>() {
+        @Override
+        public D apply(Map<K, D> data, K key) {
+            return data.get(key);
+        }
+    };
+
+    private final BiFunction<Map<K, D>, Object, Integer> sizeFunction = new BiFunction<Map<K, D>, Object, Integer>() {
+        @Override
+        public Integer apply(Map<K, D> data, Object argument) {
+            return data.size();
+        }
+    };
+
+    private final BiFunction<Map<K, D>, K, Boolean> containsFunction = new BiFunction<Map<K, D>, K, Boolean>() {
+        @Override
+        public Boolean apply(Map<K, D> data, K key) {
+            return data.containsKey(key);
+        }
+    };
 
     /**
      * Default constructor
      */
     public MapChangeAdapter() {
-        // Stub
+        this(ReadMode.LOCKED);
+    }
+
+    /**
+     * Initializes the adapter with the specified read mode
+     *
+     * @param readMode the strategy used for reading the data
+     */
+    public MapChangeAdapter(final ReadMode readMode) {
+        this.readMode = readMode;
+        readWriteLock = new ChangeAdapterLock(readMode);
+        mapSnapshot = PersistentMap.empty();
     }
 
     /**
@@ -55,7 +122,20 @@ public class MapChangeAdapter<K, D> {
      * @param initialDataMap the initial map of entries
      */
     public MapChangeAdapter(final Map<K, D> initialDataMap) {
+        this(initialDataMap, ReadMode.LOCKED);
+    }
+
+    /**
+     * Initializes the adapter with a map of entries and the specified read mode,
+     * without emitting a change message
+     *
+     * @param initialDataMap the initial map of entries
+     * @param readMode       the strategy used for reading the data
+     */
+    public MapChangeAdapter(final Map<K, D> initialDataMap, final ReadMode readMode) {
+        this(readMode);
         dataMap.putAll(initialDataMap);
+        mapSnapshot = updatedSnapshot(PersistentMap.<K, D>empty(), dataMap.keySet());
     }
 
     /**
@@ -78,17 +158,7 @@ public class MapChangeAdapter<K, D> {
                 return false;
             }
 
-            final Map<K, D> oldMapSnapshot = ImmutableMap.copyOf(dataMap);
-            dataMap.put(key, data);
-
-            final Map<K, D> newMapSnapshot = ImmutableMap.copyOf(dataMap);
-            final Map.Entry<K, D> changeSnapshot = Maps.immutableEntry(key, data);
-
-            // Signal addition
-            publishSubject.onNext(new MetaChangeMessage<>(oldMapSnapshot, newMapSnapshot, ChangeType.ADD,
-                    changeSnapshot));
-
-            return true;
+            return addEntry(key, data);
         } finally {
             lock.unlock();
         }
@@ -115,15 +185,25 @@ public class MapChangeAdapter<K, D> {
                 }
             }
 
-            final Map<K, D> oldMapSnapshot = ImmutableMap.copyOf(this.dataMap);
+            // Check if entries violate a unique index
+            if (!indexList.isEmpty() && !acceptsIndexed(dataMap)) {
+                return false;
+            }
+
+            final PersistentMap<K, D> oldMapSnapshot = currentSnapshot();
+
+            for (final Map.Entry<K, D> entry : dataMap.entrySet()) {
+                putIndexed(entry.getKey(), null, entry.getValue());
+            }
+
             this.dataMap.putAll(dataMap);
 
-            final Map<K, D> newMapSnapshot = ImmutableMap.copyOf(this.dataMap);
+            final PersistentMap<K, D> newMapSnapshot = updatedSnapshot(oldMapSnapshot, dataMap.keySet());
             final Map<K, D> changeSnapshot = ImmutableMap.copyOf(dataMap);
+            publishSnapshot(newMapSnapshot);
 
             // Signal addition
-            publishSubject.onNext(new MetaChangeMessage<>(oldMapSnapshot, newMapSnapshot, ChangeType.ADD,
-                    changeSnapshot));
+            emit(oldMapSnapshot, newMapSnapshot, ChangeType.ADD, changeSnapshot);
 
             return true;
         } finally {
@@ -150,17 +230,7 @@ public class MapChangeAdapter<K, D> {
                 return false;
             }
 
-            final Map<K, D> oldMapSnapshot = ImmutableMap.copyOf(dataMap);
-            final D resultData = dataMap.remove(key);
-
-            final Map<K, D> newMapSnapshot = ImmutableMap.copyOf(dataMap);
-            final Map.Entry<K, D> changeSnapshot = Maps.immutableEntry(key, resultData);
-
-            // Signal removal
-            publishSubject.onNext(new MetaChangeMessage<>(oldMapSnapshot, newMapSnapshot, ChangeType.REMOVE,
-                    changeSnapshot));
-
-            return true;
+            return removeEntry(key);
         } finally {
             lock.unlock();
         }
@@ -187,15 +257,21 @@ public class MapChangeAdapter<K, D> {
                 }
             }
 
-            final Map<K, D> oldMapSnapshot = ImmutableMap.copyOf(this.dataMap);
-            this.dataMap.keySet().removeAll(keySet);
+            final PersistentMap<K, D> oldMapSnapshot = currentSnapshot();
+            final ImmutableMap.Builder<K, D> changeBuilder = ImmutableMap.builder();
+
+            for (final K key : keySet) {
+                final D resultData = this.dataMap.remove(key);
+                removeIndexed(key, resultData);
+                changeBuilder.put(key, resultData);
+            }
 
-            final Map<K, D> newMapSnapshot = ImmutableMap.copyOf(this.dataMap);
-            final Map<K, D> changeSnapshot = Maps.difference(oldMapSnapshot, newMapSnapshot).entriesOnlyOnLeft();
+            final PersistentMap<K, D> newMapSnapshot = updatedSnapshot(oldMapSnapshot, keySet);
+            final Map<K, D> changeSnapshot = changeBuilder.build();
+            publishSnapshot(newMapSnapshot);
 
             // Signal removal
-            publishSubject.onNext(new MetaChangeMessage<>(oldMapSnapshot, newMapSnapshot, ChangeType.REMOVE,
-                    changeSnapshot));
+            emit(oldMapSnapshot, newMapSnapshot, ChangeType.REMOVE, changeSnapshot);
 
             return true;
         } finally {
@@ -223,17 +299,12 @@ public class MapChangeAdapter<K, D> {
                 return false;
             }
 
-            final Map<K, D> oldMapSnapshot = ImmutableMap.copyOf(dataMap);
-            dataMap.put(key, data);
-
-            final Map<K, D> newMapSnapshot = ImmutableMap.copyOf(dataMap);
-            final Map.Entry<K, D> changeSnapshot = Maps.immutableEntry(key, data);
-
-            // Signal update
-            publishSubject.onNext(new MetaChangeMessage<>(oldMapSnapshot, newMapSnapshot, ChangeType.UPDATE,
-                    changeSnapshot));
+            // Check if value is unchanged
+            if (isSuppressed(dataMap.get(key), data)) {
+                return false;
+            }
 
-            return true;
+            return updateEntry(key, data);
         } finally {
             lock.unlock();
         }
@@ -260,15 +331,25 @@ public class MapChangeAdapter<K, D> {
                 }
             }
 
-            final Map<K, D> oldMapSnapshot = ImmutableMap.copyOf(this.dataMap);
+            // Check if entries violate a unique index
+            if (!indexList.isEmpty() && !acceptsIndexed(dataMap)) {
+                return false;
+            }
+
+            final PersistentMap<K, D> oldMapSnapshot = currentSnapshot();
+
+            for (final Map.Entry<K, D> entry : dataMap.entrySet()) {
+                putIndexed(entry.getKey(), this.dataMap.get(entry.getKey()), entry.getValue());
+            }
+
             this.dataMap.putAll(dataMap);
 
-            final Map<K, D> newMapSnapshot = ImmutableMap.copyOf(this.dataMap);
+            final PersistentMap<K, D> newMapSnapshot = updatedSnapshot(oldMapSnapshot, dataMap.keySet());
             final Map<K, D> changeSnapshot = ImmutableMap.copyOf(dataMap);
+            publishSnapshot(newMapSnapshot);
 
             // Signal update
-            publishSubject.onNext(new MetaChangeMessage<>(oldMapSnapshot, newMapSnapshot, ChangeType.UPDATE,
-                    changeSnapshot));
+            emit(oldMapSnapshot, newMapSnapshot, ChangeType.UPDATE, changeSnapshot);
 
             return true;
         } finally {
@@ -277,44 +358,1031 @@ public class MapChangeAdapter<K, D> {
     }
 
     /**
-     * Returns the data of the entry specified by the key
+     * Adds or updates a collection of key-value pairs, applying every entry that can be stored,
+     * and emits a single change message to surrounding observers for the applied entries
+     * <p>
+     * Entries whose value is equivalent to the current one according to the equivalence set with
+     * {@link #setEquivalence(Equivalence)}, or that would violate a unique index, are skipped. The change type
+     * is {@link ChangeType#UPDATE} if any of the applied entries already existed, {@link ChangeType#ADD}
+     * otherwise, and the metadata in the emitted change message will contain a snapshot of the applied entries.
      *
-     * @param key the key used for the retrieval
-     * @return the data associated with the key, null if not found
+     * @param dataMap the map containing the entries to be stored
+     * @return the set of applied entries, indexed by their position in the iteration order of the argument
      */
-    public D get(final K key) {
-        final Lock lock = readWriteLock.readLock();
+    public BitSet putAll(final Map<K, D> dataMap) {
+        final Lock lock = readWriteLock.writeLock();
         lock.lock();
 
         try {
-            return dataMap.get(key);
+            final BitSet resultSet = new BitSet(dataMap.size());
+            final ImmutableMap.Builder<K, D> changeBuilder = ImmutableMap.builder();
+            PersistentMap<K, D> oldMapSnapshot = null;
+            boolean updated = false;
+            int position = 0;
+
+            for (final Map.Entry<K, D> entry : dataMap.entrySet()) {
+                final K key = entry.getKey();
+                final boolean present = this.dataMap.containsKey(key);
+
+                // Check if entry is unchanged or violates a unique index
+                if ((present && isSuppressed(this.dataMap.get(key), entry.getValue()))
+                        || (!indexList.isEmpty() && !acceptsIndexed(Collections.singletonMap(key, entry.getValue())))) {
+                    position++;
+                    continue;
+                }
+
+                if (oldMapSnapshot == null) {
+                    oldMapSnapshot = currentSnapshot();
+                }
+
+                putIndexed(key, this.dataMap.get(key), entry.getValue());
+                this.dataMap.put(key, entry.getValue());
+
+                changeBuilder.put(key, entry.getValue());
+                resultSet.set(position++);
+                updated |= present;
+            }
+
+            // Signal addition or update
+            if (oldMapSnapshot != null) {
+                final Map<K, D> changeSnapshot = changeBuilder.build();
+                emitApplied(oldMapSnapshot, changeSnapshot.keySet(), updated ? ChangeType.UPDATE : ChangeType.ADD,
+                        changeSnapshot);
+            }
+
+            return resultSet;
         } finally {
             lock.unlock();
         }
     }
 
     /**
-     * Returns an immutable snapshot of the current map
+     * Adds the key-value pairs whose keys are not present in the map, and emits a single change message
+     * to surrounding observers for the added entries
+     * <p>
+     * Unlike {@link #addAll(Map)}, existing keys do not cause the whole collection to be rejected.
+     * The metadata in the emitted change message will contain a snapshot of the entries that were added.
      *
-     * @return the map of elements
+     * @param dataMap the map containing the entries to be added
+     * @return the set of added entries, indexed by their position in the iteration order of the argument
      */
-    public Map<K, D> getAll() {
-        final Lock lock = readWriteLock.readLock();
+    public BitSet addAllPresent(final Map<K, D> dataMap) {
+        final Lock lock = readWriteLock.writeLock();
         lock.lock();
 
         try {
-            return ImmutableMap.copyOf(dataMap);
+            final BitSet resultSet = new BitSet(dataMap.size());
+            final ImmutableMap.Builder<K, D> changeBuilder = ImmutableMap.builder();
+            PersistentMap<K, D> oldMapSnapshot = null;
+            int position = 0;
+
+            for (final Map.Entry<K, D> entry : dataMap.entrySet()) {
+                final K key = entry.getKey();
+
+                // Check if entry already exists or violates a unique index
+                if (this.dataMap.containsKey(key)
+                        || (!indexList.isEmpty() && !acceptsIndexed(Collections.singletonMap(key, entry.getValue())))) {
+                    position++;
+                    continue;
+                }
+
+                if (oldMapSnapshot == null) {
+                    oldMapSnapshot = currentSnapshot();
+                }
+
+                putIndexed(key, null, entry.getValue());
+                this.dataMap.put(key, entry.getValue());
+
+                changeBuilder.put(key, entry.getValue());
+                resultSet.set(position++);
+            }
+
+            // Signal addition
+            if (oldMapSnapshot != null) {
+                final Map<K, D> changeSnapshot = changeBuilder.build();
+                emitApplied(oldMapSnapshot, changeSnapshot.keySet(), ChangeType.ADD, changeSnapshot);
+            }
+
+            return resultSet;
         } finally {
             lock.unlock();
         }
     }
 
     /**
-     * Returns a reference to the observable used for listening to change messages
+     * Removes the entries whose keys are present in the map, and emits a single change message
+     * to surrounding observers for the removed entries
+     * <p>
+     * Unlike {@link #removeAll(Set)}, missing keys do not cause the whole collection to be rejected.
+     * The metadata in the emitted change message will contain a snapshot of the entries that were removed.
      *
-     * @return the observable reference
+     * @param keySet the set of keys for the entries to be removed
+     * @return the set of removed entries, indexed by their position in the iteration order of the argument
      */
-    public Observable<ChangeMessage<Map<K, D>>> getObservable() {
-        return publishSubject;
+    public BitSet removeAllPresent(final Set<K> keySet) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            final BitSet resultSet = new BitSet(keySet.size());
+            final ImmutableMap.Builder<K, D> changeBuilder = ImmutableMap.builder();
+            PersistentMap<K, D> oldMapSnapshot = null;
+            int position = 0;
+
+            for (final K key : keySet) {
+                // Check if no entry to remove
+                if (!dataMap.containsKey(key)) {
+                    position++;
+                    continue;
+                }
+
+                if (oldMapSnapshot == null) {
+                    oldMapSnapshot = currentSnapshot();
+                }
+
+                final D resultData = dataMap.remove(key);
+                removeIndexed(key, resultData);
+
+                changeBuilder.put(key, resultData);
+                resultSet.set(position++);
+            }
+
+            // Signal removal
+            if (oldMapSnapshot != null) {
+                final Map<K, D> changeSnapshot = changeBuilder.build();
+                emitApplied(oldMapSnapshot, changeSnapshot.keySet(), ChangeType.REMOVE, changeSnapshot);
+            }
+
+            return resultSet;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a key-value pair to the map if no entry exists for the key, and emits a change message
+     * to surrounding observers if it was added
+     * <p>
+     * The metadata in the emitted change message will contain a snapshot
+     * of the entry that was just added
+     *
+     * @param key  the key used for accessing the data
+     * @param data the value associated with the key
+     * @return the existing value associated with the key, null if the entry was added
+     */
+    public D putIfAbsent(final K key, final D data) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            // Check if entry already exists
+            if (dataMap.containsKey(key)) {
+                return dataMap.get(key);
+            }
+
+            addEntry(key, data);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Updates the value of an entry only if it currently holds the expected value, and emits
+     * a change message to surrounding observers unless the update is suppressed by the equivalence
+     * <p>
+     * The metadata in the emitted change message will contain a snapshot
+     * of the entry that was just updated
+     *
+     * @param key          the key associated with the old data
+     * @param expectedData the value the entry is expected to hold
+     * @param data         the new value stored with the key
+     * @return {@code true} if the entry held the expected value and was updated, {@code false} otherwise,
+     *         including when the update is suppressed by the equivalence
+     */
+    public boolean replace(final K key, final D expectedData, final D data) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            // Check if entry does not hold the expected value
+            if (!dataMap.containsKey(key) || !Objects.equal(dataMap.get(key), expectedData)) {
+                return false;
+            }
+
+            return !isSuppressed(expectedData, data) && updateEntry(key, data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Computes the value of an entry from its current value atomically, and emits a single change message
+     * to surrounding observers if the entry was added, updated or removed
+     * <p>
+     * When the function returns null, the entry is removed. The metadata in the emitted change message
+     * will contain a snapshot of the entry that was changed.
+     *
+     * @param key             the key of the entry
+     * @param computeFunction the function computing the new value from the key and the current value,
+     *                        which is null if the entry does not exist
+     * @return the value associated with the key after the operation, null if none
+     * @throws IllegalStateException if the new value violates a unique index, in which case the entry is unchanged
+     */
+    public D compute(final K key, final BiFunction<? super K, ? super D, ? extends D> computeFunction) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            final D data = apply(computeFunction, key, dataMap.get(key));
+            checkIndexed(key, data);
+
+            return setEntry(key, data) ? data : dataMap.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Computes and adds the value of an entry atomically if no entry exists for the key, and emits
+     * a change message to surrounding observers if it was added
+     * <p>
+     * When the function returns null, no entry is added. The metadata in the emitted change message
+     * will contain a snapshot of the entry that was just added.
+     *
+     * @param key             the key of the entry
+     * @param computeFunction the function computing the value from the key
+     * @return the value associated with the key after the operation, null if none
+     * @throws IllegalStateException if the new value violates a unique index, in which case the entry is unchanged
+     */
+    public D computeIfAbsent(final K key, final Function<? super K, ? extends D> computeFunction) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            // Check if entry already exists
+            if (dataMap.containsKey(key)) {
+                return dataMap.get(key);
+            }
+
+            final D data;
+
+            try {
+                data = computeFunction.apply(key);
+            } catch (Exception e) {
+                throw Exceptions.propagate(e);
+            }
+
+            checkIndexed(key, data);
+
+            return (data != null && addEntry(key, data)) ? data : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Computes the value of an existing entry from its current value atomically, and emits a change message
+     * to surrounding observers if the entry was updated or removed
+     * <p>
+     * When the function returns null, the entry is removed. The metadata in the emitted change message
+     * will contain a snapshot of the entry that was changed.
+     *
+     * @param key             the key of the entry
+     * @param computeFunction the function computing the new value from the key and the current value
+     * @return the value associated with the key after the operation, null if none
+     * @throws IllegalStateException if the new value violates a unique index, in which case the entry is unchanged
+     */
+    public D computeIfPresent(final K key, final BiFunction<? super K, ? super D, ? extends D> computeFunction) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            // Check if entry does not exist
+            if (!dataMap.containsKey(key)) {
+                return null;
+            }
+
+            final D data = apply(computeFunction, key, dataMap.get(key));
+            checkIndexed(key, data);
+
+            return setEntry(key, data) ? data : dataMap.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a key-value pair to the map, or merges the value with the value of the existing entry atomically,
+     * and emits a change message to surrounding observers if the entry was added, updated or removed
+     * <p>
+     * When the function returns null, the entry is removed. The metadata in the emitted change message
+     * will contain a snapshot of the entry that was changed.
+     *
+     * @param key           the key of the entry
+     * @param data          the value added, or merged with the current value
+     * @param mergeFunction the function computing the new value from the current value and the specified value
+     * @return the value associated with the key after the operation, null if none
+     * @throws IllegalStateException if the new value violates a unique index, in which case the entry is unchanged
+     */
+    public D merge(final K key, final D data, final BiFunction<? super D, ? super D, ? extends D> mergeFunction) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            final D mergedData = dataMap.containsKey(key) ? apply(mergeFunction, dataMap.get(key), data) : data;
+            checkIndexed(key, mergedData);
+
+            return setEntry(key, mergedData) ? mergedData : dataMap.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the data of the entry specified by the key
+     *
+     * @param key the key used for the retrieval
+     * @return the data associated with the key, null if not found
+     */
+    public D get(final K key) {
+        return readWriteLock.read(mapSnapshot, dataMap, getFunction, key);
+    }
+
+    /**
+     * Returns the number of entries, without taking a snapshot
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return readWriteLock.read(mapSnapshot, dataMap, sizeFunction, null);
+    }
+
+    /**
+     * Returns whether an entry exists for the key, without taking a snapshot
+     *
+     * @param key the key of the entry
+     * @return {@code true} if the entry exists, {@code false} otherwise
+     */
+    public boolean contains(final K key) {
+        return readWriteLock.read(mapSnapshot, dataMap, containsFunction, key);
+    }
+
+    /**
+     * Performs an action for each entry under the read lock, without taking a snapshot
+     * <p>
+     * The action must not modify the adapter, as it is invoked while the read lock is held
+     *
+     * @param action the action invoked with the key and value of each entry
+     */
+    public void forEach(final BiConsumer<? super K, ? super D> action) {
+        final Map<K, D> mapSnapshot = (readMode == ReadMode.SNAPSHOT) ? this.mapSnapshot : null;
+        final Lock lock = (mapSnapshot == null) ? readWriteLock.readLock() : null;
+
+        // The published snapshot does not need to be read under the lock
+        if (lock != null) {
+            lock.lock();
+        }
+
+        try {
+            final Map<K, D> source = (mapSnapshot == null) ? dataMap : mapSnapshot;
+
+            for (final Map.Entry<K, D> entry : source.entrySet()) {
+                action.accept(entry.getKey(), entry.getValue());
+            }
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies a function to a read-only view of the underlying data under the read lock,
+     * without taking a snapshot
+     * <p>
+     * The view is only valid for the duration of the call and must not be retained by the function
+     *
+     * @param function the function reading the view
+     * @param <R>      the type of the result
+     * @return the result of the function
+     */
+    public <R> R read(final Function<? super Map<K, D>, ? extends R> function) {
+        // Read the published snapshot in the snapshot read mode
+        if (readMode == ReadMode.SNAPSHOT) {
+            try {
+                return function.apply(mapSnapshot);
+            } catch (Exception e) {
+                throw Exceptions.propagate(e);
+            }
+        }
+
+        final Lock lock = readWriteLock.readLock();
+        lock.lock();
+
+        try {
+            return function.apply(dataMapView);
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an immutable snapshot of the current map
+     * <p>
+     * The snapshot published by the last change is returned, so repeated calls do not copy the map.
+     * After a pooled change, the snapshot is taken again by the first call.
+     *
+     * @return the map of elements
+     */
+    public Map<K, D> getAll() {
+        final Map<K, D> mapSnapshot = this.mapSnapshot;
+
+        // The snapshot of the last change is reused until the next change
+        if (mapSnapshot != null) {
+            return mapSnapshot;
+        }
+
+        final Lock lock = readWriteLock.readLock();
+        lock.lock();
+
+        try {
+            return currentSnapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers a hash-based secondary index on the values of the map
+     * <p>
+     * When the index is unique, changes that would associate an index key with more than one entry
+     * are rejected by the adapter
+     *
+     * @param keyFunction the function extracting the index key from a value
+     * @param unique      whether each index key may only be associated with a single entry
+     * @param <I>         the type of the index key
+     * @return the index, which can be used for querying the map
+     * @throws IllegalStateException if the index is unique and the current entries violate it
+     */
+    public <I> MapIndex<I, K, D> addIndex(final Function<? super D, ? extends I> keyFunction, final boolean unique) {
+        return addIndex(new MapIndex<>(keyFunction, unique, false, null, dataMap, readWriteLock));
+    }
+
+    /**
+     * Registers a sorted secondary index on the values of the map, supporting range queries
+     * <p>
+     * When the index is unique, changes that would associate an index key with more than one entry
+     * are rejected by the adapter
+     *
+     * @param keyFunction the function extracting the index key from a value
+     * @param comparator  the comparator ordering the index keys, null for natural ordering
+     * @param unique      whether each index key may only be associated with a single entry
+     * @param <I>         the type of the index key
+     * @return the index, which can be used for querying the map
+     * @throws IllegalStateException if the index is unique and the current entries violate it
+     */
+    public <I> MapIndex<I, K, D> addSortedIndex(final Function<? super D, ? extends I> keyFunction,
+                                                final Comparator<? super I> comparator, final boolean unique) {
+        return addIndex(new MapIndex<>(keyFunction, unique, true, comparator, dataMap, readWriteLock));
+    }
+
+    /**
+     * Unregisters a secondary index, after which it is no longer maintained
+     *
+     * @param index the index to be removed
+     * @return {@code true} if the index was removed, {@code false} otherwise
+     */
+    public boolean removeIndex(final MapIndex<?, K, D> index) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            return indexList.remove(index);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and stores a collection of entries as a single change, and emits one change message
+     * to surrounding observers
+     * <p>
+     * The change type is {@link ChangeType#ADD} or {@link ChangeType#REMOVE} if entries were only added
+     * or only removed, and {@link ChangeType#UPDATE} otherwise. The metadata in the emitted change message
+     * will contain a snapshot of the added, removed or updated entries, or a {@link MapDifference} between
+     * the old and new values of the changed entries if the change mixes additions, removals and updates.
+     *
+     * @param keySet  the set of keys for the entries to be removed, missing keys are ignored
+     * @param dataMap the map containing the entries to be added or updated
+     * @return {@code true} if the entries were applied, {@code false} if they violate a unique index
+     */
+    boolean applyAll(final Set<K> keySet, final Map<K, D> dataMap) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            // Check if entries violate a unique index
+            if (!indexList.isEmpty() && !acceptsIndexed(dataMap)) {
+                return false;
+            }
+
+            final Map<K, D> oldChangeMap = new LinkedHashMap<>();
+            final Map<K, D> newChangeMap = new LinkedHashMap<>(dataMap);
+
+            for (final K key : keySet) {
+                if (this.dataMap.containsKey(key) && !dataMap.containsKey(key)) {
+                    oldChangeMap.put(key, this.dataMap.get(key));
+                }
+            }
+
+            for (final K key : dataMap.keySet()) {
+                if (this.dataMap.containsKey(key)) {
+                    oldChangeMap.put(key, this.dataMap.get(key));
+                }
+            }
+
+            // Check if nothing to change
+            if (oldChangeMap.isEmpty() && newChangeMap.isEmpty()) {
+                return true;
+            }
+
+            final PersistentMap<K, D> oldMapSnapshot = currentSnapshot();
+            final Set<K> changedKeySet = Sets.union(oldChangeMap.keySet(), newChangeMap.keySet());
+
+            for (final K key : oldChangeMap.keySet()) {
+                if (!newChangeMap.containsKey(key)) {
+                    removeIndexed(key, this.dataMap.remove(key));
+                }
+            }
+
+            for (final Map.Entry<K, D> entry : newChangeMap.entrySet()) {
+                putIndexed(entry.getKey(), this.dataMap.get(entry.getKey()), entry.getValue());
+                this.dataMap.put(entry.getKey(), entry.getValue());
+            }
+
+            // Signal a single change for the additions, removals and updates
+            if (newChangeMap.isEmpty()) {
+                emitApplied(oldMapSnapshot, changedKeySet, ChangeType.REMOVE, ImmutableMap.copyOf(oldChangeMap));
+            } else if (oldChangeMap.isEmpty()) {
+                emitApplied(oldMapSnapshot, changedKeySet, ChangeType.ADD, ImmutableMap.copyOf(newChangeMap));
+            } else if (oldChangeMap.keySet().equals(newChangeMap.keySet())) {
+                emitApplied(oldMapSnapshot, changedKeySet, ChangeType.UPDATE, ImmutableMap.copyOf(newChangeMap));
+            } else {
+                emitApplied(oldMapSnapshot, changedKeySet, ChangeType.UPDATE,
+                        Maps.difference(ImmutableMap.copyOf(oldChangeMap), ImmutableMap.copyOf(newChangeMap)));
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Subscribes an observer to the change messages and returns a snapshot of the map taken atomically
+     * with the subscription, so that the observer receives exactly the changes applied after the snapshot
+     *
+     * @param observer the observer to be subscribed
+     * @return the map of elements at the time of subscription
+     */
+    Map<K, D> subscribeWithSnapshot(final Observer<? super ChangeMessage<Map<K, D>>> observer) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            final Map<K, D> mapSnapshot = currentSnapshot();
+            publishSubject.subscribe(observer);
+
+            return mapSnapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the ring buffer to which change messages are published, in addition to the observable
+     * <p>
+     * Publishing to a started ring buffer does not allocate change messages, and when the observable
+     * has no observers, no change message is allocated at all. The snapshots carried by the change
+     * messages are still created for every change, but they share their structure, so a single-entry
+     * change only copies the path to that entry.
+     * <p>
+     * Change messages are published while the write lock is held, and when the ring buffer is full,
+     * the mutation of the adapter waits until the slowest handler catches up. Handlers must therefore
+     * not modify the adapter, nor read it in the locked read mode, where every read acquires the read lock,
+     * as the adapter would deadlock once the ring buffer fills up. Reads in the snapshot read mode use
+     * the published snapshot and do not wait for the lock.
+     * <p>
+     * Once the ring buffer is halted, the adapter stops publishing to it and only emits change messages
+     * through the observable.
+     *
+     * @param ringBuffer the ring buffer, null to stop publishing to a ring buffer
+     * @throws IllegalArgumentException if the ring buffer is not running
+     */
+    public void setRingBuffer(final ChangeRingBuffer<Map<K, D>, Object> ringBuffer) {
+        // Change messages published before the ring buffer is started or after it is halted would be lost
+        if (ringBuffer != null && !ringBuffer.isRunning()) {
+            throw new IllegalArgumentException("Ring buffer must be started and not halted");
+        }
+
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            this.ringBuffer = ringBuffer;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets whether change messages are pooled, so that adding, removing or updating a single entry
+     * does not allocate
+     * <p>
+     * While pooling is enabled, the change messages of single-entry changes are reused {@link MutableChangeMessage}
+     * instances rather than {@link MetaChangeMessage} instances, their metadata is a reused entry, and their old and
+     * new data are read-only views of the map rather than snapshots.
+     * These are only valid until {@code onNext} returns, and observers must copy the values they need to keep,
+     * or call {@link MutableChangeMessage#copy()}, which takes snapshots of the views. Observers must therefore
+     * not be scheduled on other threads with operators such as {@code observeOn} without first mapping the
+     * change messages with a {@link RetainFunction}. The batched observables and the dispatchers retain the
+     * change messages themselves.
+     * <p>
+     * Snapshots are still taken for bulk changes, in the snapshot read mode, and when a ring buffer is set.
+     * Pooled changes discard the snapshot published by the previous change, so it is taken again on demand.
+     *
+     * @param enabled whether change messages are pooled
+     */
+    public void setMessagePooling(final boolean enabled) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            pooledMessage = enabled ? new PooledChangeMessage() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the equivalence used for detecting updates that do not change the entries
+     * <p>
+     * Updates to a value equivalent to the current one are suppressed: they return {@code false},
+     * leave the data untouched and emit no change message. Use {@link Equivalence#equals()} for
+     * value equality, {@link Equivalence#identity()} for reference equality, or a custom equivalence.
+     *
+     * @param equivalence the equivalence, null to emit every update
+     */
+    public void setEquivalence(final Equivalence<? super D> equivalence) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            this.equivalence = equivalence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of updates suppressed because the new value was equivalent to the current one
+     *
+     * @return the number of suppressed updates
+     */
+    public long getSuppressedUpdateCount() {
+        return suppressedUpdateCount.get();
+    }
+
+    /**
+     * Returns a reference to the observable used for listening to change messages
+     *
+     * @return the observable reference
+     */
+    public Observable<ChangeMessage<Map<K, D>>> getObservable() {
+        return publishSubject;
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, so that observers can amortize
+     * their per-message cost
+     * <p>
+     * A batch is emitted once it reaches the maximum size, or once the maximum delay has elapsed
+     * since the previous batch. Empty batches are not emitted.
+     *
+     * @param maxSize  the maximum number of change messages in a batch
+     * @param maxDelay the maximum time a change message waits for its batch to be emitted
+     * @param unit     the unit of the maximum delay
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Map<K, D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                           final TimeUnit unit) {
+        return getBatchedObservable(maxSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, timed on the specified scheduler
+     *
+     * @param maxSize   the maximum number of change messages in a batch
+     * @param maxDelay  the maximum time a change message waits for its batch to be emitted
+     * @param unit      the unit of the maximum delay
+     * @param scheduler the scheduler on which batches are emitted when the maximum delay elapses
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Map<K, D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                           final TimeUnit unit,
+                                                                           final Scheduler scheduler) {
+        // Pooled change messages must be copied before they are buffered
+        return publishSubject.map(new RetainFunction<Map<K, D>>()).buffer(maxDelay, unit, scheduler, maxSize)
+                .filter(new NonEmptyBatchFilter());
+    }
+
+    private void emit(final Map<K, D> oldMapSnapshot, final Map<K, D> newMapSnapshot, final ChangeType changeType,
+                      final Object changeSnapshot) {
+        // Stop publishing to the ring buffer once it is halted
+        if (ringBuffer != null && !ringBuffer.publish(oldMapSnapshot, newMapSnapshot, changeType, changeSnapshot)) {
+            ringBuffer = null;
+        }
+
+        // Only allocate a change message if it will be observed
+        if (publishSubject.hasObservers()) {
+            publishSubject.onNext(new MetaChangeMessage<>(oldMapSnapshot, newMapSnapshot, changeType,
+                    changeSnapshot));
+        }
+    }
+
+    private boolean addEntry(final K key, final D data) {
+        // Check if entry violates a unique index
+        if (!indexList.isEmpty() && !acceptsIndexed(Collections.singletonMap(key, data))) {
+            return false;
+        }
+
+        // Signal addition without snapshots
+        if (isPooling()) {
+            mapSnapshot = null;
+            putIndexed(key, null, data);
+            dataMap.put(key, data);
+            emitPooled(ChangeType.ADD, key, null, false, data);
+
+            return true;
+        }
+
+        final PersistentMap<K, D> oldMapSnapshot = currentSnapshot();
+        putIndexed(key, null, data);
+        dataMap.put(key, data);
+
+        final PersistentMap<K, D> newMapSnapshot = oldMapSnapshot.plus(key, data);
+        final Map.Entry<K, D> changeSnapshot = Maps.immutableEntry(key, data);
+        publishSnapshot(newMapSnapshot);
+
+        // Signal addition
+        emit(oldMapSnapshot, newMapSnapshot, ChangeType.ADD, changeSnapshot);
+
+        return true;
+    }
+
+    private boolean removeEntry(final K key) {
+        // Signal removal without snapshots
+        if (isPooling()) {
+            mapSnapshot = null;
+            final D resultData = dataMap.remove(key);
+            removeIndexed(key, resultData);
+            emitPooled(ChangeType.REMOVE, key, resultData, true, resultData);
+
+            return true;
+        }
+
+        final PersistentMap<K, D> oldMapSnapshot = currentSnapshot();
+        final D resultData = dataMap.remove(key);
+        removeIndexed(key, resultData);
+
+        final PersistentMap<K, D> newMapSnapshot = oldMapSnapshot.minus(key);
+        final Map.Entry<K, D> changeSnapshot = Maps.immutableEntry(key, resultData);
+        publishSnapshot(newMapSnapshot);
+
+        // Signal removal
+        emit(oldMapSnapshot, newMapSnapshot, ChangeType.REMOVE, changeSnapshot);
+
+        return true;
+    }
+
+    private boolean updateEntry(final K key, final D data) {
+        // Check if entry violates a unique index
+        if (!indexList.isEmpty() && !acceptsIndexed(Collections.singletonMap(key, data))) {
+            return false;
+        }
+
+        // Signal update without snapshots
+        if (isPooling()) {
+            mapSnapshot = null;
+            final D oldData = dataMap.put(key, data);
+            putIndexed(key, oldData, data);
+            emitPooled(ChangeType.UPDATE, key, oldData, true, data);
+
+            return true;
+        }
+
+        final PersistentMap<K, D> oldMapSnapshot = currentSnapshot();
+        putIndexed(key, dataMap.get(key), data);
+        dataMap.put(key, data);
+
+        final PersistentMap<K, D> newMapSnapshot = oldMapSnapshot.plus(key, data);
+        final Map.Entry<K, D> changeSnapshot = Maps.immutableEntry(key, data);
+        publishSnapshot(newMapSnapshot);
+
+        // Signal update
+        emit(oldMapSnapshot, newMapSnapshot, ChangeType.UPDATE, changeSnapshot);
+
+        return true;
+    }
+
+    private void emitApplied(final PersistentMap<K, D> oldMapSnapshot, final Set<K> changedKeySet,
+                             final ChangeType changeType, final Object changeSnapshot) {
+        final PersistentMap<K, D> newMapSnapshot = updatedSnapshot(oldMapSnapshot, changedKeySet);
+        publishSnapshot(newMapSnapshot);
+
+        emit(oldMapSnapshot, newMapSnapshot, changeType, changeSnapshot);
+    }
+
+    private boolean setEntry(final K key, final D data) {
+        final boolean present = dataMap.containsKey(key);
+
+        // Remove the entry for a null value
+        if (data == null) {
+            return present && removeEntry(key);
+        }
+
+        if (!present) {
+            return addEntry(key, data);
+        }
+
+        final D oldData = dataMap.get(key);
+
+        // Check if value is unchanged, whether or not an equivalence is set
+        return !isSuppressed(oldData, data) && !Objects.equal(oldData, data) && updateEntry(key, data);
+    }
+
+    private boolean isPooling() {
+        // Nested changes made by observers while the pooled change message is delivered are not pooled
+        return pooledMessage != null && !pooledMessageInUse && ringBuffer == null && readMode != ReadMode.SNAPSHOT;
+    }
+
+    private void emitPooled(final ChangeType changeType, final K key, final D oldData, final boolean oldPresent,
+                            final D changeData) {
+        // Only deliver a change message if it will be observed
+        if (!publishSubject.hasObservers()) {
+            return;
+        }
+
+        pooledMessageInUse = true;
+        previousMapView.set(key, oldData, oldPresent);
+        pooledEntry.set(key, changeData);
+        pooledMessage.set(previousMapView, dataMapView, changeType, pooledEntry);
+        pooledMessage.setChange(key, oldData, oldPresent, changeData);
+
+        try {
+            publishSubject.onNext(pooledMessage);
+        } finally {
+            // Release the references held by the pooled objects
+            pooledMessage.clear();
+            pooledMessage.setChange(null, null, false, null);
+            pooledEntry.set(null, null);
+            previousMapView.reset();
+            pooledMessageInUse = false;
+        }
+    }
+
+    private <I> MapIndex<I, K, D> addIndex(final MapIndex<I, K, D> index) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            // Validate current entries
+            if (!index.accepts(dataMap)) {
+                throw new IllegalStateException("Entries violate the unique index");
+            }
+
+            for (final Map.Entry<K, D> entry : dataMap.entrySet()) {
+                index.put(entry.getKey(), null, entry.getValue());
+            }
+
+            indexList.add(index);
+
+            return index;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkIndexed(final K key, final D data) {
+        // Check if there is a value to be indexed
+        if (data == null || indexList.isEmpty()) {
+            return;
+        }
+
+        final Map<K, D> entryMap = Collections.singletonMap(key, data);
+
+        for (final MapIndex<?, K, D> index : indexList) {
+            if (!index.accepts(entryMap)) {
+                throw new IllegalStateException("Entry for key " + key + " violates the unique index " + index);
+            }
+        }
+    }
+
+    private boolean acceptsIndexed(final Map<K, D> entryMap) {
+        for (final MapIndex<?, K, D> index : indexList) {
+            if (!index.accepts(entryMap)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void putIndexed(final K key, final D oldData, final D newData) {
+        for (final MapIndex<?, K, D> index : indexList) {
+            index.put(key, oldData, newData);
+        }
+    }
+
+    private void removeIndexed(final K key, final D oldData) {
+        for (final MapIndex<?, K, D> index : indexList) {
+            index.remove(key, oldData);
+        }
+    }
+
+    private static <A, B, T> T apply(final BiFunction<? super A, ? super B, ? extends T> function,
+                                     final A first, final B second) {
+        try {
+            return function.apply(first, second);
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private boolean isSuppressed(final D oldData, final D newData) {
+        if (equivalence == null || !equivalence.equivalent(oldData, newData)) {
+            return false;
+        }
+
+        suppressedUpdateCount.incrementAndGet();
+        return true;
+    }
+
+    private PersistentMap<K, D> currentSnapshot() {
+        PersistentMap<K, D> mapSnapshot = this.mapSnapshot;
+
+        // Reuse the snapshot published by the previous change as the old data, unless a pooled change discarded it
+        if (mapSnapshot == null) {
+            mapSnapshot = updatedSnapshot(PersistentMap.<K, D>empty(), dataMap.keySet());
+            this.mapSnapshot = mapSnapshot;
+        }
+
+        return mapSnapshot;
+    }
+
+    private PersistentMap<K, D> updatedSnapshot(final PersistentMap<K, D> mapSnapshot, final Iterable<K> keys) {
+        PersistentMap<K, D> newMapSnapshot = mapSnapshot;
+
+        // Only copy the paths to the changed entries
+        for (final K key : keys) {
+            newMapSnapshot = dataMap.containsKey(key)
+                    ? newMapSnapshot.plus(key, dataMap.get(key)) : newMapSnapshot.minus(key);
+        }
+
+        return newMapSnapshot;
+    }
+
+    private void publishSnapshot(final PersistentMap<K, D> mapSnapshot) {
+        this.mapSnapshot = mapSnapshot;
+    }
+
+    private final class PooledChangeMessage extends MutableChangeMessage<Map<K, D>, Object> {
+        private K key;
+        private D oldData;
+        private boolean oldPresent;
+        private D changeData;
+
+        void setChange(final K key, final D oldData, final boolean oldPresent, final D changeData) {
+            this.key = key;
+            this.oldData = oldData;
+            this.oldPresent = oldPresent;
+            this.changeData = changeData;
+        }
+
+        @Override
+        public MetaChangeMessage<Map<K, D>, Object> copy() {
+            // Replace the views with snapshots, as the copy is taken under the write lock while delivered
+            final PersistentMap<K, D> newMapSnapshot = currentSnapshot();
+            final PersistentMap<K, D> oldMapSnapshot = oldPresent
+                    ? newMapSnapshot.plus(key, oldData) : newMapSnapshot.minus(key);
+
+            return new MetaChangeMessage<Map<K, D>, Object>(oldMapSnapshot, newMapSnapshot, getChangeType(),
+                    Maps.immutableEntry(key, changeData));
+        }
     }
 }
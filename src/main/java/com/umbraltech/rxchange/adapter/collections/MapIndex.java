@@ -0,0 +1,324 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.Function;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * A secondary index over the values of a {@link MapChangeAdapter}
+ * <p>
+ * The index is maintained by the adapter under its write lock, and queries are performed under
+ * its read lock, copying only the matching entries. Values whose index key is {@code null}
+ * are not indexed.
+ *
+ * @param <I> the type of the index key
+ * @param <K> the type used for the keys of the map
+ * @param <D> the type used for the data of the map
+ */
+public final class MapIndex<I, K, D> {
+    private final Function<? super D, ? extends I> keyFunction;
+    private final boolean unique;
+    private final Map<I, Set<K>> indexMap;
+
+    private final Map<K, D> dataMap;
+    private final ReadWriteLock readWriteLock;
+
+    MapIndex(final Function<? super D, ? extends I> keyFunction, final boolean unique, final boolean sorted,
+             final Comparator<? super I> comparator, final Map<K, D> dataMap, final ReadWriteLock readWriteLock) {
+        this.keyFunction = keyFunction;
+        this.unique = unique;
+        this.indexMap = sorted ? new TreeMap<I, Set<K>>(comparator) : new HashMap<I, Set<K>>();
+        this.dataMap = dataMap;
+        this.readWriteLock = readWriteLock;
+    }
+
+    /**
+     * Returns whether each index key maps to at most one entry
+     *
+     * @return {@code true} if the index is unique, {@code false} otherwise
+     */
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * Returns whether the index keys are kept in sorted order, enabling range queries
+     *
+     * @return {@code true} if the index is sorted, {@code false} otherwise
+     */
+    public boolean isSorted() {
+        return indexMap instanceof NavigableMap;
+    }
+
+    /**
+     * Returns whether any entry is associated with the index key
+     *
+     * @param indexKey the index key
+     * @return {@code true} if a matching entry exists, {@code false} otherwise
+     */
+    public boolean contains(final I indexKey) {
+        final Lock lock = readWriteLock.readLock();
+        lock.lock();
+
+        try {
+            return indexMap.containsKey(indexKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of entries associated with the index key
+     *
+     * @param indexKey the index key
+     * @return the number of matching entries
+     */
+    public int count(final I indexKey) {
+        final Lock lock = readWriteLock.readLock();
+        lock.lock();
+
+        try {
+            final Set<K> keySet = indexMap.get(indexKey);
+            return (keySet == null) ? 0 : keySet.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an immutable snapshot of the map keys associated with the index key
+     *
+     * @param indexKey the index key
+     * @return the set of matching map keys
+     */
+    public Set<K> getKeys(final I indexKey) {
+        final Lock lock = readWriteLock.readLock();
+        lock.lock();
+
+        try {
+            final Set<K> keySet = indexMap.get(indexKey);
+            return (keySet == null) ? ImmutableSet.<K>of() : ImmutableSet.copyOf(keySet);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an immutable snapshot of the entries associated with the index key
+     *
+     * @param indexKey the index key
+     * @return the map of matching entries
+     */
+    public Map<K, D> get(final I indexKey) {
+        final Lock lock = readWriteLock.readLock();
+        lock.lock();
+
+        try {
+            final ImmutableMap.Builder<K, D> builder = ImmutableMap.builder();
+            final Set<K> keySet = indexMap.get(indexKey);
+
+            if (keySet != null) {
+                collect(keySet, builder);
+            }
+
+            return builder.build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the data of an entry associated with the index key
+     * <p>
+     * This is primarily intended for unique indexes, for other indexes an arbitrary match is returned
+     *
+     * @param indexKey the index key
+     * @return the data of a matching entry, null if not found
+     */
+    public D getSingle(final I indexKey) {
+        final Lock lock = readWriteLock.readLock();
+        lock.lock();
+
+        try {
+            final Set<K> keySet = indexMap.get(indexKey);
+            return (keySet == null) ? null : dataMap.get(keySet.iterator().next());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an immutable snapshot of the entries whose index keys fall within the specified range,
+     * ordered by index key
+     *
+     * @param fromKey       the lower bound of the range
+     * @param fromInclusive whether the lower bound is included
+     * @param toKey         the upper bound of the range
+     * @param toInclusive   whether the upper bound is included
+     * @return the map of matching entries
+     * @throws UnsupportedOperationException if the index is not sorted
+     */
+    public Map<K, D> getRange(final I fromKey, final boolean fromInclusive,
+                              final I toKey, final boolean toInclusive) {
+        if (!isSorted()) {
+            throw new UnsupportedOperationException("Range queries require a sorted index");
+        }
+
+        final Lock lock = readWriteLock.readLock();
+        lock.lock();
+
+        try {
+            final ImmutableMap.Builder<K, D> builder = ImmutableMap.builder();
+            final Collection<Set<K>> keySets = ((NavigableMap<I, Set<K>>) indexMap)
+                    .subMap(fromKey, fromInclusive, toKey, toInclusive).values();
+
+            for (final Set<K> keySet : keySets) {
+                collect(keySet, builder);
+            }
+
+            return builder.build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MapIndex(unique=" + unique + ", sorted=" + isSorted() + ", keyFunction=" + keyFunction + ")";
+    }
+
+    /**
+     * Verifies that the entries can be stored without violating uniqueness
+     * <p>
+     * Must be called under the adapter's write lock, before the entries are stored
+     *
+     * @param entryMap the entries about to be added or updated
+     * @return {@code true} if the entries can be indexed, {@code false} otherwise
+     */
+    boolean accepts(final Map<K, D> entryMap) {
+        final Map<I, K> pendingMap = new HashMap<>();
+
+        for (final Map.Entry<K, D> entry : entryMap.entrySet()) {
+            // Index keys are always computed before any change is made
+            final I indexKey = indexKeyOf(entry.getValue());
+
+            if (!unique || indexKey == null) {
+                continue;
+            }
+
+            // Check against other entries of the same batch
+            final K pendingKey = pendingMap.put(indexKey, entry.getKey());
+
+            if (pendingKey != null && !pendingKey.equals(entry.getKey())) {
+                return false;
+            }
+
+            // Check against stored entries that are not being replaced
+            final Set<K> keySet = indexMap.get(indexKey);
+
+            if (keySet != null) {
+                for (final K key : keySet) {
+                    if (!key.equals(entry.getKey()) && !entryMap.containsKey(key)) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Indexes a new or updated entry
+     * <p>
+     * Must be called under the adapter's write lock
+     *
+     * @param key     the key of the entry
+     * @param oldData the previous value of the entry, null if absent
+     * @param newData the new value of the entry
+     */
+    void put(final K key, final D oldData, final D newData) {
+        if (oldData != null) {
+            remove(key, oldData);
+        }
+
+        final I indexKey = indexKeyOf(newData);
+
+        if (indexKey == null) {
+            return;
+        }
+
+        Set<K> keySet = indexMap.get(indexKey);
+
+        if (keySet == null) {
+            keySet = new HashSet<>();
+            indexMap.put(indexKey, keySet);
+        }
+
+        keySet.add(key);
+    }
+
+    /**
+     * Removes an entry from the index
+     * <p>
+     * Must be called under the adapter's write lock
+     *
+     * @param key     the key of the entry
+     * @param oldData the value of the entry being removed
+     */
+    void remove(final K key, final D oldData) {
+        final I indexKey = indexKeyOf(oldData);
+
+        if (indexKey == null) {
+            return;
+        }
+
+        final Set<K> keySet = indexMap.get(indexKey);
+
+        if (keySet != null && keySet.remove(key) && keySet.isEmpty()) {
+            indexMap.remove(indexKey);
+        }
+    }
+
+    private void collect(final Set<K> keySet, final ImmutableMap.Builder<K, D> builder) {
+        for (final K key : keySet) {
+            builder.put(key, dataMap.get(key));
+        }
+    }
+
+    private I indexKeyOf(final D data) {
+        try {
+            return keyFunction.apply(data);
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.MapDifference;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import io.reactivex.Observable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.observers.DisposableObserver;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adapter that maintains the incremental equi-join of two map adapters
+ * <p>
+ * Both sides are indexed by their join key, so a change in either input only recomputes the
+ * joined rows of the affected entries. The joined map is keyed by the pair of input keys and
+ * its changes are emitted as regular map change messages, where only the joined rows that were
+ * added, removed or updated are reported. Each change of an input emits at most one change message,
+ * so observers never see an intermediate state of the join.
+ * <p>
+ * Entries whose join key is {@code null} never match any entry from the other side.
+ * <p>
+ * If a key function throws or the join function returns {@code null}, the input change is not applied
+ * to the join, which keeps its previous state, and the exception is rethrown to the thread that changed
+ * the input adapter, after that adapter has already applied the change.
+ *
+ * @param <LK> the type used for the keys of the left map
+ * @param <L>  the type used for the data of the left map
+ * @param <RK> the type used for the keys of the right map
+ * @param <R>  the type used for the data of the right map
+ * @param <JK> the type of the join key
+ * @param <J>  the type of the joined rows
+ */
+public class MapJoinAdapter<LK, L, RK, R, JK, J> {
+    private final MapChangeAdapter<Map.Entry<LK, RK>, J> joinedAdapter = new MapChangeAdapter<>();
+
+    private final BiFunction<? super LK, ? super L, ? extends JK> leftKeyFunction;
+    private final BiFunction<? super RK, ? super R, ? extends JK> rightKeyFunction;
+    private final BiFunction<? super L, ? super R, ? extends J> joinFunction;
+
+    private final Map<LK, L> leftDataMap = new HashMap<>();
+    private final Map<RK, R> rightDataMap = new HashMap<>();
+    private final SetMultimap<JK, LK> leftIndex = HashMultimap.create();
+    private final SetMultimap<JK, RK> rightIndex = HashMultimap.create();
+    private final Lock joinLock = new ReentrantLock();
+
+    private final DisposableObserver<ChangeMessage<Map<LK, L>>> leftObserver =
+            new DisposableObserver<ChangeMessage<Map<LK, L>>>() {
+                @Override
+                public void onNext(ChangeMessage<Map<LK, L>> changeMessage) {
+                    applyLeft(changedKeys(changeMessage), changeMessage.getNewData());
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    // Stub
+                }
+
+                @Override
+                public void onComplete() {
+                    // Stub
+                }
+            };
+
+    private final DisposableObserver<ChangeMessage<Map<RK, R>>> rightObserver =
+            new DisposableObserver<ChangeMessage<Map<RK, R>>>() {
+                @Override
+                public void onNext(ChangeMessage<Map<RK, R>> changeMessage) {
+                    applyRight(changedKeys(changeMessage), changeMessage.getNewData());
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    // Stub
+                }
+
+                @Override
+                public void onComplete() {
+                    // Stub
+                }
+            };
+
+    /**
+     * Constructs the join and subscribes to both input adapters, without emitting a change message
+     * for the rows that are joined initially
+     *
+     * @param leftAdapter      the adapter for the left map
+     * @param leftKeyFunction  the function extracting the join key from the entries of the left map
+     * @param rightAdapter     the adapter for the right map
+     * @param rightKeyFunction the function extracting the join key from the entries of the right map
+     * @param joinFunction     the function combining a pair of matching values into a joined row,
+     *                         which must not return null
+     */
+    public MapJoinAdapter(final MapChangeAdapter<LK, L> leftAdapter,
+                          final BiFunction<? super LK, ? super L, ? extends JK> leftKeyFunction,
+                          final MapChangeAdapter<RK, R> rightAdapter,
+                          final BiFunction<? super RK, ? super R, ? extends JK> rightKeyFunction,
+                          final BiFunction<? super L, ? super R, ? extends J> joinFunction) {
+        this.leftKeyFunction = leftKeyFunction;
+        this.rightKeyFunction = rightKeyFunction;
+        this.joinFunction = joinFunction;
+
+        joinLock.lock();
+
+        try {
+            final Map<LK, L> leftSnapshot = leftAdapter.subscribeWithSnapshot(leftObserver);
+            final Map<RK, R> rightSnapshot = rightAdapter.subscribeWithSnapshot(rightObserver);
+
+            applyLeft(leftSnapshot.keySet(), leftSnapshot);
+            applyRight(rightSnapshot.keySet(), rightSnapshot);
+        } finally {
+            joinLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the joined row for the pair of input keys
+     *
+     * @param leftKey  the key of the left entry
+     * @param rightKey the key of the right entry
+     * @return the joined row, null if the entries do not match
+     */
+    public J get(final LK leftKey, final RK rightKey) {
+        return joinedAdapter.get(Maps.immutableEntry(leftKey, rightKey));
+    }
+
+    /**
+     * Returns an immutable snapshot of the joined map
+     *
+     * @return the map of joined rows, keyed by the pair of input keys
+     */
+    public Map<Map.Entry<LK, RK>, J> getAll() {
+        return joinedAdapter.getAll();
+    }
+
+    /**
+     * Returns a reference to the observable used for listening to changes in the joined map
+     * <p>
+     * The metadata in the emitted change messages will contain a snapshot of the joined rows that were
+     * added, removed or updated, or a {@link MapDifference} between the old and new joined rows
+     * if an input change both added or removed rows and updated others
+     *
+     * @return the observable reference
+     */
+    public Observable<ChangeMessage<Map<Map.Entry<LK, RK>, J>>> getObservable() {
+        return joinedAdapter.getObservable();
+    }
+
+    /**
+     * Stops listening to the input adapters
+     * <p>
+     * The joined map retains its current rows and no further change messages are emitted
+     */
+    public void dispose() {
+        leftObserver.dispose();
+        rightObserver.dispose();
+    }
+
+    private void applyLeft(final Set<LK> keySet, final Map<LK, L> dataMap) {
+        final Map<LK, L> changeMap = new LinkedHashMap<>();
+        final Map<LK, JK> oldJoinKeyMap = new HashMap<>();
+        final Map<LK, JK> newJoinKeyMap = new HashMap<>();
+        final Map<Map.Entry<LK, RK>, J> upsertMap = new LinkedHashMap<>();
+        final Set<Map.Entry<LK, RK>> removalSet = new LinkedHashSet<>();
+
+        joinLock.lock();
+
+        try {
+            // Compute the join keys and rows before any state is modified, so that a failing function leaves it intact
+            for (final LK leftKey : keySet) {
+                final L oldData = leftDataMap.get(leftKey);
+                final L newData = dataMap.get(leftKey);
+
+                // Skip entries that are already up to date
+                if (Objects.equal(oldData, newData)) {
+                    continue;
+                }
+
+                changeMap.put(leftKey, newData);
+
+                if (oldData != null) {
+                    final JK joinKey = apply(leftKeyFunction, leftKey, oldData);
+                    oldJoinKeyMap.put(leftKey, joinKey);
+
+                    if (joinKey != null) {
+                        for (final RK rightKey : rightIndex.get(joinKey)) {
+                            removalSet.add(Maps.immutableEntry(leftKey, rightKey));
+                        }
+                    }
+                }
+
+                if (newData != null) {
+                    final JK joinKey = apply(leftKeyFunction, leftKey, newData);
+                    newJoinKeyMap.put(leftKey, joinKey);
+
+                    if (joinKey != null) {
+                        for (final RK rightKey : rightIndex.get(joinKey)) {
+                            final Map.Entry<LK, RK> joinedKey = Maps.immutableEntry(leftKey, rightKey);
+
+                            removalSet.remove(joinedKey);
+                            upsertMap.put(joinedKey, join(newData, rightDataMap.get(rightKey)));
+                        }
+                    }
+                }
+            }
+
+            for (final Map.Entry<LK, L> entry : changeMap.entrySet()) {
+                final LK leftKey = entry.getKey();
+
+                if (oldJoinKeyMap.containsKey(leftKey)) {
+                    leftDataMap.remove(leftKey);
+                    leftIndex.remove(oldJoinKeyMap.get(leftKey), leftKey);
+                }
+
+                if (entry.getValue() != null) {
+                    leftDataMap.put(leftKey, entry.getValue());
+                    putIndexed(leftIndex, newJoinKeyMap.get(leftKey), leftKey);
+                }
+            }
+
+            publish(upsertMap, removalSet);
+        } finally {
+            joinLock.unlock();
+        }
+    }
+
+    private void applyRight(final Set<RK> keySet, final Map<RK, R> dataMap) {
+        final Map<RK, R> changeMap = new LinkedHashMap<>();
+        final Map<RK, JK> oldJoinKeyMap = new HashMap<>();
+        final Map<RK, JK> newJoinKeyMap = new HashMap<>();
+        final Map<Map.Entry<LK, RK>, J> upsertMap = new LinkedHashMap<>();
+        final Set<Map.Entry<LK, RK>> removalSet = new LinkedHashSet<>();
+
+        joinLock.lock();
+
+        try {
+            // Compute the join keys and rows before any state is modified, so that a failing function leaves it intact
+            for (final RK rightKey : keySet) {
+                final R oldData = rightDataMap.get(rightKey);
+                final R newData = dataMap.get(rightKey);
+
+                // Skip entries that are already up to date
+                if (Objects.equal(oldData, newData)) {
+                    continue;
+                }
+
+                changeMap.put(rightKey, newData);
+
+                if (oldData != null) {
+                    final JK joinKey = apply(rightKeyFunction, rightKey, oldData);
+                    oldJoinKeyMap.put(rightKey, joinKey);
+
+                    if (joinKey != null) {
+                        for (final LK leftKey : leftIndex.get(joinKey)) {
+                            removalSet.add(Maps.immutableEntry(leftKey, rightKey));
+                        }
+                    }
+                }
+
+                if (newData != null) {
+                    final JK joinKey = apply(rightKeyFunction, rightKey, newData);
+                    newJoinKeyMap.put(rightKey, joinKey);
+
+                    if (joinKey != null) {
+                        for (final LK leftKey : leftIndex.get(joinKey)) {
+                            final Map.Entry<LK, RK> joinedKey = Maps.immutableEntry(leftKey, rightKey);
+
+                            removalSet.remove(joinedKey);
+                            upsertMap.put(joinedKey, join(leftDataMap.get(leftKey), newData));
+                        }
+                    }
+                }
+            }
+
+            for (final Map.Entry<RK, R> entry : changeMap.entrySet()) {
+                final RK rightKey = entry.getKey();
+
+                if (oldJoinKeyMap.containsKey(rightKey)) {
+                    rightDataMap.remove(rightKey);
+                    rightIndex.remove(oldJoinKeyMap.get(rightKey), rightKey);
+                }
+
+                if (entry.getValue() != null) {
+                    rightDataMap.put(rightKey, entry.getValue());
+                    putIndexed(rightIndex, newJoinKeyMap.get(rightKey), rightKey);
+                }
+            }
+
+            publish(upsertMap, removalSet);
+        } finally {
+            joinLock.unlock();
+        }
+    }
+
+    private void publish(final Map<Map.Entry<LK, RK>, J> upsertMap, final Set<Map.Entry<LK, RK>> removalSet) {
+        final Map<Map.Entry<LK, RK>, J> changeMap = new LinkedHashMap<>();
+
+        // Skip the recomputed rows that did not change
+        for (final Map.Entry<Map.Entry<LK, RK>, J> entry : upsertMap.entrySet()) {
+            if (!entry.getValue().equals(joinedAdapter.get(entry.getKey()))) {
+                changeMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // Signal the removals, updates and additions as a single change
+        if (!removalSet.isEmpty() || !changeMap.isEmpty()) {
+            joinedAdapter.applyAll(removalSet, changeMap);
+        }
+    }
+
+    private J join(final L leftData, final R rightData) {
+        return Preconditions.checkNotNull(apply(joinFunction, leftData, rightData),
+                "Join function returned null for %s and %s", leftData, rightData);
+    }
+
+    private static <JK, K> void putIndexed(final SetMultimap<JK, K> index, final JK joinKey, final K key) {
+        // Entries without a join key are not indexed
+        if (joinKey != null) {
+            index.put(joinKey, key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, D> Set<K> changedKeys(final ChangeMessage<Map<K, D>> changeMessage) {
+        final Object metadata = MetaChangeMessage.metadataOf(changeMessage);
+
+        if (metadata instanceof Map.Entry) {
+            final Set<K> keySet = new HashSet<>();
+            keySet.add(((Map.Entry<K, D>) metadata).getKey());
+
+            return keySet;
+        }
+
+        if (metadata instanceof Map) {
+            return ((Map<K, D>) metadata).keySet();
+        }
+
+        // Fall back to comparing the snapshots
+        final Set<K> keySet = new HashSet<>(changeMessage.getOldData().keySet());
+        keySet.addAll(changeMessage.getNewData().keySet());
+
+        return keySet;
+    }
+
+    private static <A, B, T> T apply(final BiFunction<? super A, ? super B, ? extends T> function,
+                                     final A first, final B second) {
+        try {
+            return function.apply(first, second);
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.umbraltech.rxchange.filter.NonEmptyBatchFilter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.type.ChangeType;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adapter that implements the reactive change model for multimaps, associating each key with a set of values
+ * <p>
+ * The data is represented as a map from each key to its non-empty set of values. The map and the sets are
+ * persistent, so adding or removing a value only copies the path to that key and value, and the snapshots
+ * carried by the change messages share their structure with each other. Reads never acquire a lock.
+ *
+ * @param <K> the type used for the keys
+ * @param <V> the type used for the values
+ */
+public class MultimapChangeAdapter<K, V> {
+    private final PublishSubject<ChangeMessage<Map<K, Set<V>>>> publishSubject = PublishSubject.create();
+    private final Lock writeLock = new ReentrantLock();
+    private volatile PersistentMap<K, Set<V>> dataMap = PersistentMap.empty();
+
+    /**
+     * Default constructor
+     */
+    public MultimapChangeAdapter() {
+        // Stub
+    }
+
+    /**
+     * Initializes the adapter with the entries of a multimap, without emitting a change message
+     *
+     * @param initialDataMultimap the initial multimap of entries
+     */
+    public MultimapChangeAdapter(final Multimap<K, V> initialDataMultimap) {
+        PersistentMap<K, Set<V>> initialDataMap = PersistentMap.empty();
+
+        for (final Map.Entry<K, V> entry : initialDataMultimap.entries()) {
+            final K key = entry.getKey();
+            initialDataMap = initialDataMap.plus(key, valuesOf(initialDataMap, key).plus(entry.getValue()));
+        }
+
+        dataMap = initialDataMap;
+    }
+
+    /**
+     * Associates a value with a key and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain the entry of the key and the value that was added
+     *
+     * @param key   the key
+     * @param value the value to be associated with the key
+     * @return {@code true} if the value was added, {@code false} if it was already associated with the key
+     */
+    public boolean put(final K key, final V value) {
+        writeLock.lock();
+
+        try {
+            final PersistentMap<K, Set<V>> oldMapSnapshot = dataMap;
+            final PersistentSet<V> valueSet = valuesOf(oldMapSnapshot, key);
+            final PersistentSet<V> newValueSet = valueSet.plus(value);
+
+            // Check if value is already associated
+            if (newValueSet == valueSet) {
+                return false;
+            }
+
+            final PersistentMap<K, Set<V>> newMapSnapshot = oldMapSnapshot.plus(key, newValueSet);
+            dataMap = newMapSnapshot;
+
+            // Signal addition
+            publishSubject.onNext(new MetaChangeMessage<Map<K, Set<V>>, Map.Entry<K, V>>(oldMapSnapshot,
+                    newMapSnapshot, ChangeType.ADD, Maps.immutableEntry(key, value)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a value associated with a key and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain the entry of the key and the value that was removed
+     *
+     * @param key   the key
+     * @param value the value to be removed from the key
+     * @return {@code true} if the value was removed, {@code false} if it was not associated with the key
+     */
+    public boolean remove(final K key, final V value) {
+        writeLock.lock();
+
+        try {
+            final PersistentMap<K, Set<V>> oldMapSnapshot = dataMap;
+            final PersistentSet<V> valueSet = valuesOf(oldMapSnapshot, key);
+            final PersistentSet<V> newValueSet = valueSet.minus(value);
+
+            // Check if value is associated
+            if (newValueSet == valueSet) {
+                return false;
+            }
+
+            // Remove the key along with its last value
+            final PersistentMap<K, Set<V>> newMapSnapshot = newValueSet.isEmpty()
+                    ? oldMapSnapshot.minus(key) : oldMapSnapshot.plus(key, newValueSet);
+            dataMap = newMapSnapshot;
+
+            // Signal removal
+            publishSubject.onNext(new MetaChangeMessage<Map<K, Set<V>>, Map.Entry<K, V>>(oldMapSnapshot,
+                    newMapSnapshot, ChangeType.REMOVE, Maps.immutableEntry(key, value)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all of the values associated with a key and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain a map from the key to the set of values
+     * that were removed
+     *
+     * @param key the key
+     * @return {@code true} if the values were removed, {@code false} if no value was associated with the key
+     */
+    public boolean removeAll(final K key) {
+        writeLock.lock();
+
+        try {
+            final PersistentMap<K, Set<V>> oldMapSnapshot = dataMap;
+            final Set<V> valueSet = oldMapSnapshot.get(key);
+
+            // Check if key exists
+            if (valueSet == null) {
+                return false;
+            }
+
+            final PersistentMap<K, Set<V>> newMapSnapshot = oldMapSnapshot.minus(key);
+            dataMap = newMapSnapshot;
+
+            // Signal removal
+            publishSubject.onNext(new MetaChangeMessage<Map<K, Set<V>>, Map<K, Set<V>>>(oldMapSnapshot,
+                    newMapSnapshot, ChangeType.REMOVE, ImmutableMap.of(key, valueSet)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the set of values associated with a key
+     *
+     * @param key the key
+     * @return the immutable set of values, empty if the key does not exist
+     */
+    public Set<V> get(final K key) {
+        return valuesOf(dataMap, key);
+    }
+
+    /**
+     * Returns whether any value is associated with a key
+     *
+     * @param key the key
+     * @return {@code true} if the key exists, {@code false} otherwise
+     */
+    public boolean containsKey(final K key) {
+        return dataMap.containsKey(key);
+    }
+
+    /**
+     * Returns whether a value is associated with a key
+     *
+     * @param key   the key
+     * @param value the value
+     * @return {@code true} if the value is associated with the key, {@code false} otherwise
+     */
+    public boolean containsEntry(final K key, final V value) {
+        return valuesOf(dataMap, key).contains(value);
+    }
+
+    /**
+     * Returns an immutable snapshot of the current map of keys to their sets of values, without copying
+     *
+     * @return the map of keys to values
+     */
+    public Map<K, Set<V>> getAll() {
+        return dataMap;
+    }
+
+    /**
+     * Returns a reference to the observable used for listening to change messages
+     *
+     * @return the observable reference
+     */
+    public Observable<ChangeMessage<Map<K, Set<V>>>> getObservable() {
+        return publishSubject;
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, so that observers can amortize
+     * their per-message cost
+     * <p>
+     * A batch is emitted once it reaches the maximum size, or once the maximum delay has elapsed
+     * since the previous batch. Empty batches are not emitted.
+     *
+     * @param maxSize  the maximum number of change messages in a batch
+     * @param maxDelay the maximum time a change message waits for its batch to be emitted
+     * @param unit     the unit of the maximum delay
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Map<K, Set<V>>>>> getBatchedObservable(final int maxSize,
+                                                                                final long maxDelay,
+                                                                                final TimeUnit unit) {
+        return getBatchedObservable(maxSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, timed on the specified scheduler
+     *
+     * @param maxSize   the maximum number of change messages in a batch
+     * @param maxDelay  the maximum time a change message waits for its batch to be emitted
+     * @param unit      the unit of the maximum delay
+     * @param scheduler the scheduler on which batches are emitted when the maximum delay elapses
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Map<K, Set<V>>>>> getBatchedObservable(final int maxSize,
+                                                                                final long maxDelay,
+                                                                                final TimeUnit unit,
+                                                                                final Scheduler scheduler) {
+        return publishSubject.buffer(maxDelay, unit, scheduler, maxSize).filter(new NonEmptyBatchFilter());
+    }
+
+    private static <K, V> PersistentSet<V> valuesOf(final PersistentMap<K, Set<V>> dataMap, final K key) {
+        final Set<V> valueSet = dataMap.get(key);
+
+        // The value sets stored in the map are always persistent
+        return (valueSet == null) ? PersistentSet.<V>empty() : (PersistentSet<V>) valueSet;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.base.Objects;
+
+import java.util.Map;
+
+/**
+ * A reusable map entry, used as flyweight metadata by the pooled change messages of {@link MapChangeAdapter}
+ *
+ * @param <K> the type of the key
+ * @param <D> the type of the data
+ */
+final class MutableMapEntry<K, D> implements Map.Entry<K, D> {
+    private K key;
+    private D value;
+
+    void set(final K key, final D value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    @Override
+    public K getKey() {
+        return key;
+    }
+
+    @Override
+    public D getValue() {
+        return value;
+    }
+
+    @Override
+    public D setValue(final D value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (!(object instanceof Map.Entry)) {
+            return false;
+        }
+
+        final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+        return Objects.equal(key, entry.getKey()) && Objects.equal(value, entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return ((key == null) ? 0 : key.hashCode()) ^ ((value == null) ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + value;
+    }
+}
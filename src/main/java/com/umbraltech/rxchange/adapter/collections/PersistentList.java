@@ -0,0 +1,344 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable list backed by a persistent balanced order-statistic tree, used as the snapshot
+ * of the tree storage of {@link ListChangeAdapter}
+ * <p>
+ * Positional reads, insertions and removals take logarithmic time. Modifications return a new list
+ * that shares all but the modified path with this one, so taking a snapshot does not copy the elements.
+ *
+ * @param <D> the type of the elements
+ */
+final class PersistentList<D> extends AbstractList<D> {
+    private static final PersistentList<Object> EMPTY = new PersistentList<>(null);
+
+    private final Node<D> root;
+
+    private PersistentList(final Node<D> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the empty list
+     *
+     * @param <D> the type of the elements
+     * @return the empty list
+     */
+    @SuppressWarnings("unchecked")
+    static <D> PersistentList<D> empty() {
+        return (PersistentList<D>) EMPTY;
+    }
+
+    /**
+     * Returns a list of the elements of a collection, in iteration order
+     *
+     * @param collection the collection of elements
+     * @param <D>        the type of the elements
+     * @return the list of elements
+     */
+    @SuppressWarnings("unchecked")
+    static <D> PersistentList<D> copyOf(final Collection<? extends D> collection) {
+        final Object[] elements = collection.toArray();
+        return elements.length == 0 ? PersistentList.<D>empty()
+                : new PersistentList<>(Node.<D>build((D[]) elements, 0, elements.length));
+    }
+
+    @Override
+    public D get(final int index) {
+        checkIndex(index, size());
+        Node<D> node = root;
+        int position = index;
+
+        // Descend using the subtree sizes
+        while (true) {
+            final int leftSize = Node.size(node.left);
+
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position > leftSize) {
+                position -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.element;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return Node.size(root);
+    }
+
+    @Override
+    public Iterator<D> iterator() {
+        return new NodeIterator<>(root);
+    }
+
+    @Override
+    public int indexOf(final Object element) {
+        int index = 0;
+
+        // Scan in order without descending from the root for each element
+        for (final D current : this) {
+            if (current == null ? element == null : current.equals(element)) {
+                return index;
+            }
+
+            index++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the index at which an element would be inserted into this list, which must be sorted
+     * by the comparator, using a binary search
+     *
+     * @param element    the element to be located
+     * @param comparator the comparator by which the list is sorted
+     * @param afterEqual whether the index follows the elements comparing equal to the element,
+     *                   rather than preceding them
+     * @return the insertion index
+     */
+    int insertionIndex(final D element, final Comparator<? super D> comparator, final boolean afterEqual) {
+        Node<D> node = root;
+        int offset = 0;
+        int result = size();
+
+        // Descend towards the first element ordered after the element
+        while (node != null) {
+            final int leftSize = Node.size(node.left);
+            final int comparison = comparator.compare(node.element, element);
+
+            if (comparison > 0 || (comparison == 0 && !afterEqual)) {
+                result = offset + leftSize;
+                node = node.left;
+            } else {
+                offset += leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a list with the element inserted at the specified index
+     *
+     * @param index   the index at which the element is inserted
+     * @param element the element to be inserted
+     * @return the new list
+     */
+    PersistentList<D> plus(final int index, final D element) {
+        checkIndex(index, size() + 1);
+        return new PersistentList<>(Node.insert(root, index, element));
+    }
+
+    /**
+     * Returns a list without the element at the specified index
+     *
+     * @param index the index of the element to be removed
+     * @return the new list
+     */
+    PersistentList<D> minus(final int index) {
+        checkIndex(index, size());
+        return new PersistentList<>(Node.remove(root, index));
+    }
+
+    /**
+     * Returns a list with the element at the specified index replaced
+     *
+     * @param index   the index of the element to be replaced
+     * @param element the new element
+     * @return the new list
+     */
+    PersistentList<D> with(final int index, final D element) {
+        checkIndex(index, size());
+        return new PersistentList<>(Node.set(root, index, element));
+    }
+
+    private void checkIndex(final int index, final int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    private static final class Node<D> {
+        private final D element;
+        private final Node<D> left;
+        private final Node<D> right;
+        private final int size;
+        private final int height;
+
+        private Node(final D element, final Node<D> left, final Node<D> right) {
+            this.element = element;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+
+        private static int size(final Node<?> node) {
+            return (node == null) ? 0 : node.size;
+        }
+
+        private static int height(final Node<?> node) {
+            return (node == null) ? 0 : node.height;
+        }
+
+        private static <D> Node<D> build(final D[] elements, final int from, final int to) {
+            if (from >= to) {
+                return null;
+            }
+
+            final int middle = (from + to) >>> 1;
+            return new Node<>(elements[middle], build(elements, from, middle), build(elements, middle + 1, to));
+        }
+
+        private static <D> Node<D> insert(final Node<D> node, final int index, final D element) {
+            if (node == null) {
+                return new Node<>(element, null, null);
+            }
+
+            final int leftSize = size(node.left);
+
+            if (index <= leftSize) {
+                return balance(node.element, insert(node.left, index, element), node.right);
+            }
+
+            return balance(node.element, node.left, insert(node.right, index - leftSize - 1, element));
+        }
+
+        private static <D> Node<D> remove(final Node<D> node, final int index) {
+            final int leftSize = size(node.left);
+
+            if (index < leftSize) {
+                return balance(node.element, remove(node.left, index), node.right);
+            }
+
+            if (index > leftSize) {
+                return balance(node.element, node.left, remove(node.right, index - leftSize - 1));
+            }
+
+            // Replace the removed node with its successor
+            if (node.left == null) {
+                return node.right;
+            }
+
+            if (node.right == null) {
+                return node.left;
+            }
+
+            Node<D> successor = node.right;
+
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+
+            return balance(successor.element, node.left, remove(node.right, 0));
+        }
+
+        private static <D> Node<D> set(final Node<D> node, final int index, final D element) {
+            final int leftSize = size(node.left);
+
+            if (index < leftSize) {
+                return new Node<>(node.element, set(node.left, index, element), node.right);
+            }
+
+            if (index > leftSize) {
+                return new Node<>(node.element, node.left, set(node.right, index - leftSize - 1, element));
+            }
+
+            return new Node<>(element, node.left, node.right);
+        }
+
+        private static <D> Node<D> balance(final D element, final Node<D> left, final Node<D> right) {
+            final int leftHeight = height(left);
+            final int rightHeight = height(right);
+
+            // Rotate right if left heavy
+            if (leftHeight > rightHeight + 1) {
+                if (height(left.left) >= height(left.right)) {
+                    return new Node<>(left.element, left.left, new Node<>(element, left.right, right));
+                }
+
+                final Node<D> pivot = left.right;
+                return new Node<>(pivot.element, new Node<>(left.element, left.left, pivot.left),
+                        new Node<>(element, pivot.right, right));
+            }
+
+            // Rotate left if right heavy
+            if (rightHeight > leftHeight + 1) {
+                if (height(right.right) >= height(right.left)) {
+                    return new Node<>(right.element, new Node<>(element, left, right.left), right.right);
+                }
+
+                final Node<D> pivot = right.left;
+                return new Node<>(pivot.element, new Node<>(element, left, pivot.left),
+                        new Node<>(right.element, pivot.right, right.right));
+            }
+
+            return new Node<>(element, left, right);
+        }
+    }
+
+    private static final class NodeIterator<D> implements Iterator<D> {
+        private final Deque<Node<D>> pathDeque = new ArrayDeque<>();
+
+        private NodeIterator(final Node<D> root) {
+            pushLeft(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pathDeque.isEmpty();
+        }
+
+        @Override
+        public D next() {
+            if (pathDeque.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+
+            final Node<D> node = pathDeque.pop();
+            pushLeft(node.right);
+
+            return node.element;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void pushLeft(final Node<D> node) {
+            for (Node<D> current = node; current != null; current = current.left) {
+                pathDeque.push(current);
+            }
+        }
+    }
+}
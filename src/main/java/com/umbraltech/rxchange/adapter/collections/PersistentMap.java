@@ -0,0 +1,469 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map backed by a persistent hash array mapped trie, used for the snapshots of the adapters
+ * that share their structure between changes
+ * <p>
+ * Lookups, insertions and removals take effectively constant time. Modifications return a new map
+ * that shares all but the modified path with this one, so taking a snapshot does not copy the entries.
+ * Null values are not supported.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class PersistentMap<K, V> extends AbstractMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentMap<Object, Object> EMPTY = new PersistentMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    @Override
+    public V get(final Object key) {
+        final Leaf<K, V> leaf = find(key);
+        return (leaf == null) ? null : leaf.getValue();
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new LeafIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns a map with the key associated with the value
+     *
+     * @param key   the key
+     * @param value the value, which must not be null
+     * @return the new map, or this map if the key is already associated with the same value
+     */
+    PersistentMap<K, V> plus(final K key, final V value) {
+        Preconditions.checkNotNull(value, "value");
+
+        final Result result = new Result();
+        final Node newRoot = (root == null ? BitmapNode.EMPTY : root).put(hash(key), 0, key, value, result);
+
+        return (newRoot == root) ? this : new PersistentMap<K, V>(newRoot, result.added ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the entry of the key
+     *
+     * @param key the key
+     * @return the new map, or this map if the key is absent
+     */
+    PersistentMap<K, V> minus(final Object key) {
+        if (root == null) {
+            return this;
+        }
+
+        final Node newRoot = root.remove(hash(key), 0, key);
+
+        if (newRoot == root) {
+            return this;
+        }
+
+        return (newRoot == null) ? PersistentMap.<K, V>empty() : new PersistentMap<K, V>(newRoot, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Leaf<K, V> find(final Object key) {
+        final int hash = hash(key);
+        Node node = root;
+        int shift = 0;
+
+        // Descend through the trie using successive bits of the hash
+        while (node != null) {
+            final Object slot = node.find(hash, shift, key);
+
+            if (slot == null || slot instanceof Leaf) {
+                return (Leaf<K, V>) slot;
+            }
+
+            node = (Node) slot;
+            shift += BITS;
+        }
+
+        return null;
+    }
+
+    private static int hash(final Object key) {
+        final int hash = (key == null) ? 0 : key.hashCode();
+
+        // Spread the high bits, as the trie is indexed from the low bits
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static Object[] insert(final Object[] slots, final int index, final Object slot) {
+        final Object[] newSlots = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, newSlots, 0, index);
+        newSlots[index] = slot;
+        System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+
+        return newSlots;
+    }
+
+    private static Object[] replace(final Object[] slots, final int index, final Object slot) {
+        final Object[] newSlots = slots.clone();
+        newSlots[index] = slot;
+
+        return newSlots;
+    }
+
+    private static Object[] delete(final Object[] slots, final int index) {
+        final Object[] newSlots = new Object[slots.length - 1];
+        System.arraycopy(slots, 0, newSlots, 0, index);
+        System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+
+        return newSlots;
+    }
+
+    private static final class Result {
+        private boolean added;
+    }
+
+    private static final class Leaf<K, V> extends SimpleImmutableEntry<K, V> {
+        private final int hash;
+
+        private Leaf(final int hash, final K key, final V value) {
+            super(key, value);
+            this.hash = hash;
+        }
+
+        private boolean matches(final int hash, final Object key) {
+            return this.hash == hash && Objects.equal(getKey(), key);
+        }
+    }
+
+    private abstract static class Node {
+        /**
+         * Returns the slot for the key at this level, which is either a matching leaf or a child node
+         */
+        abstract Object find(int hash, int shift, Object key);
+
+        abstract <K, V> Node put(int hash, int shift, K key, V value, Result result);
+
+        /**
+         * Returns the node without the key, or null if the node becomes empty
+         */
+        abstract Node remove(int hash, int shift, Object key);
+
+        abstract Object[] slots();
+    }
+
+    private static final class BitmapNode extends Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] slots;
+
+        private BitmapNode(final int bitmap, final Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        Object find(final int hash, final int shift, final Object key) {
+            final int bit = bit(hash, shift);
+
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+
+            final Object slot = slots[index(bit)];
+            return (slot instanceof Leaf && !((Leaf<?, ?>) slot).matches(hash, key)) ? null : slot;
+        }
+
+        @Override
+        <K, V> Node put(final int hash, final int shift, final K key, final V value, final Result result) {
+            final int bit = bit(hash, shift);
+            final int index = index(bit);
+
+            // Check if the slot is free
+            if ((bitmap & bit) == 0) {
+                result.added = true;
+                return new BitmapNode(bitmap | bit, insert(slots, index, new Leaf<>(hash, key, value)));
+            }
+
+            final Object slot = slots[index];
+
+            if (slot instanceof Leaf) {
+                final Leaf<?, ?> leaf = (Leaf<?, ?>) slot;
+
+                // Replace the value of a matching leaf
+                if (leaf.matches(hash, key)) {
+                    return (leaf.getValue() == value) ? this
+                            : new BitmapNode(bitmap, replace(slots, index, new Leaf<>(hash, key, value)));
+                }
+
+                result.added = true;
+                return new BitmapNode(bitmap, replace(slots, index,
+                        merge(leaf, new Leaf<>(hash, key, value), shift + BITS)));
+            }
+
+            final Node node = (Node) slot;
+            final Node newNode = node.put(hash, shift + BITS, key, value, result);
+
+            return (newNode == node) ? this : new BitmapNode(bitmap, replace(slots, index, newNode));
+        }
+
+        @Override
+        Node remove(final int hash, final int shift, final Object key) {
+            final int bit = bit(hash, shift);
+
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            final int index = index(bit);
+            final Object slot = slots[index];
+            final Object newSlot;
+
+            if (slot instanceof Leaf) {
+                if (!((Leaf<?, ?>) slot).matches(hash, key)) {
+                    return this;
+                }
+
+                newSlot = null;
+            } else {
+                newSlot = ((Node) slot).remove(hash, shift + BITS, key);
+
+                if (newSlot == slot) {
+                    return this;
+                }
+            }
+
+            if (newSlot != null) {
+                return new BitmapNode(bitmap, replace(slots, index, newSlot));
+            }
+
+            return (bitmap == bit) ? null : new BitmapNode(bitmap & ~bit, delete(slots, index));
+        }
+
+        @Override
+        Object[] slots() {
+            return slots;
+        }
+
+        private int index(final int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private static Node merge(final Leaf<?, ?> first, final Leaf<?, ?> second, final int shift) {
+            // Keys with equal hashes can only be told apart by equality
+            if (first.hash == second.hash) {
+                return new CollisionNode(first.hash, new Object[]{first, second});
+            }
+
+            final int firstBit = bit(first.hash, shift);
+            final int secondBit = bit(second.hash, shift);
+
+            if (firstBit == secondBit) {
+                return new BitmapNode(firstBit, new Object[]{merge(first, second, shift + BITS)});
+            }
+
+            final Object[] slots = (((first.hash >>> shift) & MASK) < ((second.hash >>> shift) & MASK))
+                    ? new Object[]{first, second} : new Object[]{second, first};
+
+            return new BitmapNode(firstBit | secondBit, slots);
+        }
+    }
+
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private final Object[] leaves;
+
+        private CollisionNode(final int hash, final Object[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Override
+        Object find(final int hash, final int shift, final Object key) {
+            final int index = indexOf(hash, key);
+            return (index < 0) ? null : leaves[index];
+        }
+
+        @Override
+        <K, V> Node put(final int hash, final int shift, final K key, final V value, final Result result) {
+            // Nest the collision node if the key has a different hash
+            if (hash != this.hash) {
+                return new BitmapNode(bit(this.hash, shift), new Object[]{this}).put(hash, shift, key, value, result);
+            }
+
+            final int index = indexOf(hash, key);
+
+            if (index < 0) {
+                result.added = true;
+                return new CollisionNode(hash, insert(leaves, leaves.length, new Leaf<>(hash, key, value)));
+            }
+
+            return (((Leaf<?, ?>) leaves[index]).getValue() == value) ? this
+                    : new CollisionNode(hash, replace(leaves, index, new Leaf<>(hash, key, value)));
+        }
+
+        @Override
+        Node remove(final int hash, final int shift, final Object key) {
+            final int index = indexOf(hash, key);
+
+            if (index < 0) {
+                return this;
+            }
+
+            // Keep the remaining leaf in a bitmap node
+            if (leaves.length == 2) {
+                return new BitmapNode(bit(this.hash, shift), new Object[]{leaves[1 - index]});
+            }
+
+            return new CollisionNode(hash, delete(leaves, index));
+        }
+
+        @Override
+        Object[] slots() {
+            return leaves;
+        }
+
+        private int indexOf(final int hash, final Object key) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (((Leaf<?, ?>) leaves[i]).matches(hash, key)) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+    }
+
+    private static final class LeafIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final Deque<Object[]> slotsDeque = new ArrayDeque<>();
+        private final Deque<Integer> indexDeque = new ArrayDeque<>();
+        private Leaf<K, V> nextLeaf;
+
+        private LeafIterator(final Node root) {
+            if (root != null) {
+                slotsDeque.push(root.slots());
+                indexDeque.push(0);
+            }
+
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLeaf != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (nextLeaf == null) {
+                throw new NoSuchElementException();
+            }
+
+            final Leaf<K, V> leaf = nextLeaf;
+            advance();
+
+            return leaf;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            nextLeaf = null;
+
+            // Traverse the trie depth-first until the next leaf
+            while (!slotsDeque.isEmpty()) {
+                final Object[] slots = slotsDeque.peek();
+                final int index = indexDeque.pop();
+
+                if (index >= slots.length) {
+                    slotsDeque.pop();
+                    continue;
+                }
+
+                indexDeque.push(index + 1);
+                final Object slot = slots[index];
+
+                if (slot instanceof Leaf) {
+                    nextLeaf = (Leaf<K, V>) slot;
+                    return;
+                }
+
+                slotsDeque.push(((Node) slot).slots());
+                indexDeque.push(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * An immutable set backed by a {@link PersistentMap}, whose modifications share their structure with this set
+ *
+ * @param <D> the type of the elements
+ */
+final class PersistentSet<D> extends AbstractSet<D> {
+    private static final PersistentSet<Object> EMPTY = new PersistentSet<>(PersistentMap.<Object, Boolean>empty());
+
+    private final PersistentMap<D, Boolean> elementMap;
+
+    private PersistentSet(final PersistentMap<D, Boolean> elementMap) {
+        this.elementMap = elementMap;
+    }
+
+    /**
+     * Returns the empty set
+     *
+     * @param <D> the type of the elements
+     * @return the empty set
+     */
+    @SuppressWarnings("unchecked")
+    static <D> PersistentSet<D> empty() {
+        return (PersistentSet<D>) EMPTY;
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return elementMap.containsKey(element);
+    }
+
+    @Override
+    public int size() {
+        return elementMap.size();
+    }
+
+    @Override
+    public Iterator<D> iterator() {
+        return elementMap.keySet().iterator();
+    }
+
+    /**
+     * Returns a set with the element added
+     *
+     * @param element the element to be added
+     * @return the new set, or this set if the element is already present
+     */
+    PersistentSet<D> plus(final D element) {
+        final PersistentMap<D, Boolean> newElementMap = elementMap.plus(element, Boolean.TRUE);
+        return (newElementMap == elementMap) ? this : new PersistentSet<>(newElementMap);
+    }
+
+    /**
+     * Returns a set without the element
+     *
+     * @param element the element to be removed
+     * @return the new set, or this set if the element is absent
+     */
+    PersistentSet<D> minus(final Object element) {
+        final PersistentMap<D, Boolean> newElementMap = elementMap.minus(element);
+        return (newElementMap == elementMap) ? this : new PersistentSet<>(newElementMap);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Maps;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A reusable read-only view of a map as it was before a single entry changed, used as the old data
+ * of the pooled change messages of {@link MapChangeAdapter} instead of a snapshot
+ * <p>
+ * The view reads through to the live map, and is only valid while the change is being delivered
+ *
+ * @param <K> the type of the keys
+ * @param <D> the type of the data
+ */
+final class PreviousMapView<K, D> extends AbstractMap<K, D> {
+    private final Map<K, D> dataMap;
+    private K changedKey;
+    private D previousData;
+    private boolean previouslyPresent;
+
+    PreviousMapView(final Map<K, D> dataMap) {
+        this.dataMap = dataMap;
+    }
+
+    void set(final K changedKey, final D previousData, final boolean previouslyPresent) {
+        this.changedKey = changedKey;
+        this.previousData = previousData;
+        this.previouslyPresent = previouslyPresent;
+    }
+
+    void reset() {
+        set(null, null, false);
+    }
+
+    @Override
+    public D get(final Object key) {
+        if (Objects.equal(key, changedKey)) {
+            return previousData;
+        }
+
+        return dataMap.get(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        if (Objects.equal(key, changedKey)) {
+            return previouslyPresent;
+        }
+
+        return dataMap.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        final int currentSize = dataMap.size() - (dataMap.containsKey(changedKey) ? 1 : 0);
+        return currentSize + (previouslyPresent ? 1 : 0);
+    }
+
+    @Override
+    public Set<Entry<K, D>> entrySet() {
+        return new AbstractSet<Entry<K, D>>() {
+            @Override
+            public Iterator<Entry<K, D>> iterator() {
+                final Iterator<Entry<K, D>> currentIterator = dataMap.entrySet().iterator();
+
+                return new AbstractIterator<Entry<K, D>>() {
+                    private boolean changedEntryVisited = !previouslyPresent;
+
+                    @Override
+                    protected Entry<K, D> computeNext() {
+                        // Skip the current value of the changed entry
+                        while (currentIterator.hasNext()) {
+                            final Entry<K, D> entry = currentIterator.next();
+
+                            if (!Objects.equal(entry.getKey(), changedKey)) {
+                                return entry;
+                            }
+                        }
+
+                        // Finish with the previous value of the changed entry
+                        if (!changedEntryVisited) {
+                            changedEntryVisited = true;
+                            return Maps.immutableEntry(changedKey, previousData);
+                        }
+
+                        return endOfData();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return PreviousMapView.this.size();
+            }
+        };
+    }
+}
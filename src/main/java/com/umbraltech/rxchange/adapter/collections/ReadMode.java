@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+/**
+ * The strategies supported by the collection adapters for reading their data
+ */
+public enum ReadMode {
+    /**
+     * Every read acquires a shared read lock
+     */
+    LOCKED,
+
+    /**
+     * The immutable snapshot built for each change message is published as the current state,
+     * so all reads are wait-free rather than only {@code getAll()}
+     * <p>
+     * This suits data that changes infrequently but is read very often, as well as read-heavy workloads
+     * where the shared read lock counter becomes a point of contention
+     */
+    SNAPSHOT
+}
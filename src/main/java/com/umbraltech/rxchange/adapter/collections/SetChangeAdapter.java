@@ -17,17 +17,26 @@
 package com.umbraltech.rxchange.adapter.collections;
 
 import com.google.common.collect.ImmutableSet;
+import com.umbraltech.rxchange.filter.NonEmptyBatchFilter;
 import com.umbraltech.rxchange.message.ChangeMessage;
 import com.umbraltech.rxchange.message.MetaChangeMessage;
 import com.umbraltech.rxchange.type.ChangeType;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.PublishSubject;
 
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * An adapter that implements the reactive change model for sets
@@ -37,13 +46,41 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class SetChangeAdapter<D> {
     private final PublishSubject<ChangeMessage<Set<D>>> publishSubject = PublishSubject.create();
     private final Set<D> dataSet = new HashSet<>();
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final Set<D> dataSetView = Collections.unmodifiableSet(dataSet);
+    private final ChangeAdapterLock readWriteLock;
+    private final ReadMode readMode;
+    private volatile Set<D> setSnapshot;
+
+    private final BiFunction<Set<D>, Object, Integer> sizeFunction = new BiFunction<Set<D>, Object, Integer>() {
+        @Override
+        public Integer apply(Set<D> data, Object argument) {
+            return data.size();
+        }
+    };
+
+    private final BiFunction<Set<D>, D, Boolean> containsFunction = new BiFunction<Set<D>, D, Boolean>() {
+        @Override
+        public Boolean apply(Set<D> data, D element) {
+            return data.contains(element);
+        }
+    };
 
     /**
      * Default constructor
      */
     public SetChangeAdapter() {
-        // Stub
+        this(ReadMode.LOCKED);
+    }
+
+    /**
+     * Initializes the adapter with the specified read mode
+     *
+     * @param readMode the strategy used for reading the data
+     */
+    public SetChangeAdapter(final ReadMode readMode) {
+        this.readMode = readMode;
+        readWriteLock = new ChangeAdapterLock(readMode);
+        setSnapshot = ImmutableSet.of();
     }
 
     /**
@@ -52,7 +89,20 @@ public class SetChangeAdapter<D> {
      * @param initialDataSet the initial set of elements
      */
     public SetChangeAdapter(final Set<D> initialDataSet) {
+        this(initialDataSet, ReadMode.LOCKED);
+    }
+
+    /**
+     * Initializes the adapter with a set of elements and the specified read mode,
+     * without emitting a change message
+     *
+     * @param initialDataSet the initial set of elements
+     * @param readMode       the strategy used for reading the data
+     */
+    public SetChangeAdapter(final Set<D> initialDataSet, final ReadMode readMode) {
+        this(readMode);
         dataSet.addAll(initialDataSet);
+        setSnapshot = ImmutableSet.copyOf(dataSet);
     }
 
     /**
@@ -73,10 +123,11 @@ public class SetChangeAdapter<D> {
                 return false;
             }
 
-            final Set<D> oldSetSnapshot = ImmutableSet.copyOf(dataSet);
+            final Set<D> oldSetSnapshot = currentSnapshot();
             dataSet.add(data);
 
             final Set<D> newSetSnapshot = ImmutableSet.copyOf(dataSet);
+            publishSnapshot(newSetSnapshot);
 
             // Signal addition
             publishSubject.onNext(new MetaChangeMessage<>(oldSetSnapshot, newSetSnapshot, ChangeType.ADD, data));
@@ -106,11 +157,12 @@ public class SetChangeAdapter<D> {
                 return false;
             }
 
-            final Set<D> oldSetSnapshot = ImmutableSet.copyOf(this.dataSet);
+            final Set<D> oldSetSnapshot = currentSnapshot();
             this.dataSet.addAll(dataSet);
 
             final Set<D> newSetSnapshot = ImmutableSet.copyOf(this.dataSet);
             final Set<D> changeSnapshot = ImmutableSet.copyOf(dataSet);
+            publishSnapshot(newSetSnapshot);
 
             // Signal addition
             publishSubject.onNext(new MetaChangeMessage<>(oldSetSnapshot, newSetSnapshot, ChangeType.ADD,
@@ -140,10 +192,11 @@ public class SetChangeAdapter<D> {
                 return false;
             }
 
-            final Set<D> oldSetSnapshot = ImmutableSet.copyOf(dataSet);
+            final Set<D> oldSetSnapshot = currentSnapshot();
             dataSet.remove(data);
 
             final Set<D> newSetSnapshot = ImmutableSet.copyOf(dataSet);
+            publishSnapshot(newSetSnapshot);
 
             // Signal removal
             publishSubject.onNext(new MetaChangeMessage<>(oldSetSnapshot, newSetSnapshot, ChangeType.REMOVE, data));
@@ -173,11 +226,12 @@ public class SetChangeAdapter<D> {
                 return false;
             }
 
-            final Set<D> oldSetSnapshot = ImmutableSet.copyOf(this.dataSet);
+            final Set<D> oldSetSnapshot = currentSnapshot();
             this.dataSet.removeAll(dataSet);
 
             final Set<D> newSetSnapshot = ImmutableSet.copyOf(this.dataSet);
             final Set<D> changeSnapshot = ImmutableSet.copyOf(dataSet);
+            publishSnapshot(newSetSnapshot);
 
             // Signal removal
             publishSubject.onNext(new MetaChangeMessage<>(oldSetSnapshot, newSetSnapshot, ChangeType.REMOVE,
@@ -190,21 +244,193 @@ public class SetChangeAdapter<D> {
     }
 
     /**
-     * Returns an immutable snapshot of the current set
+     * Adds the elements that are not present in the set, and emits a single change message
+     * to surrounding observers for the added elements
+     * <p>
+     * Unlike {@link #addAll(Set)}, the metadata only describes the elements that were actually added.
+     * The metadata in the emitted change message will contain a snapshot of the elements that were added.
      *
-     * @return the set of elements
+     * @param dataSet the set containing the elements to be added
+     * @return the set of added elements, indexed by their position in the iteration order of the argument
      */
-    public Set<D> getAll() {
+    public BitSet addAllPresent(final Set<D> dataSet) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            final BitSet resultSet = new BitSet(dataSet.size());
+            final ImmutableSet.Builder<D> changeBuilder = ImmutableSet.builder();
+            Set<D> oldSetSnapshot = null;
+            int position = 0;
+
+            for (final D data : dataSet) {
+                // Check if element already exists
+                if (this.dataSet.contains(data)) {
+                    position++;
+                    continue;
+                }
+
+                if (oldSetSnapshot == null) {
+                    oldSetSnapshot = currentSnapshot();
+                }
+
+                this.dataSet.add(data);
+                changeBuilder.add(data);
+                resultSet.set(position++);
+            }
+
+            // Signal addition
+            if (oldSetSnapshot != null) {
+                emitApplied(oldSetSnapshot, ChangeType.ADD, changeBuilder.build());
+            }
+
+            return resultSet;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the elements that are present in the set, and emits a single change message
+     * to surrounding observers for the removed elements
+     * <p>
+     * Unlike {@link #removeAll(Set)}, missing elements do not cause the whole set to be rejected.
+     * The metadata in the emitted change message will contain a snapshot of the elements that were removed.
+     *
+     * @param dataSet the set containing the elements to be removed
+     * @return the set of removed elements, indexed by their position in the iteration order of the argument
+     */
+    public BitSet removeAllPresent(final Set<D> dataSet) {
+        final Lock lock = readWriteLock.writeLock();
+        lock.lock();
+
+        try {
+            final BitSet resultSet = new BitSet(dataSet.size());
+            final ImmutableSet.Builder<D> changeBuilder = ImmutableSet.builder();
+            Set<D> oldSetSnapshot = null;
+            int position = 0;
+
+            for (final D data : dataSet) {
+                // Check if no element to remove
+                if (!this.dataSet.contains(data)) {
+                    position++;
+                    continue;
+                }
+
+                if (oldSetSnapshot == null) {
+                    oldSetSnapshot = currentSnapshot();
+                }
+
+                this.dataSet.remove(data);
+                changeBuilder.add(data);
+                resultSet.set(position++);
+            }
+
+            // Signal removal
+            if (oldSetSnapshot != null) {
+                emitApplied(oldSetSnapshot, ChangeType.REMOVE, changeBuilder.build());
+            }
+
+            return resultSet;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of elements, without taking a snapshot
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return readWriteLock.read(setSnapshot, dataSet, sizeFunction, null);
+    }
+
+    /**
+     * Returns whether the set contains the element, without taking a snapshot
+     *
+     * @param data the element to be checked
+     * @return {@code true} if the element exists, {@code false} otherwise
+     */
+    public boolean contains(final D data) {
+        return readWriteLock.read(setSnapshot, dataSet, containsFunction, data);
+    }
+
+    /**
+     * Performs an action for each element under the read lock, without taking a snapshot
+     * <p>
+     * The action must not modify the adapter, as it is invoked while the read lock is held
+     *
+     * @param action the action invoked with each element
+     */
+    public void forEach(final Consumer<? super D> action) {
+        final Set<D> setSnapshot = (readMode == ReadMode.SNAPSHOT) ? this.setSnapshot : null;
+        final Lock lock = (setSnapshot == null) ? readWriteLock.readLock() : null;
+
+        // The published snapshot does not need to be read under the lock
+        if (lock != null) {
+            lock.lock();
+        }
+
+        try {
+            final Set<D> source = (setSnapshot == null) ? dataSet : setSnapshot;
+
+            for (final D data : source) {
+                action.accept(data);
+            }
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies a function to a read-only view of the underlying data under the read lock,
+     * without taking a snapshot
+     * <p>
+     * The view is only valid for the duration of the call and must not be retained by the function
+     *
+     * @param function the function reading the view
+     * @param <R>      the type of the result
+     * @return the result of the function
+     */
+    public <R> R read(final Function<? super Set<D>, ? extends R> function) {
+        // Read the published snapshot in the snapshot read mode
+        if (readMode == ReadMode.SNAPSHOT) {
+            try {
+                return function.apply(setSnapshot);
+            } catch (Exception e) {
+                throw Exceptions.propagate(e);
+            }
+        }
+
         final Lock lock = readWriteLock.readLock();
         lock.lock();
 
         try {
-            return ImmutableSet.copyOf(dataSet);
+            return function.apply(dataSetView);
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Returns an immutable snapshot of the current set
+     * <p>
+     * The snapshot published by the last change is returned, so repeated calls do not copy the set
+     *
+     * @return the set of elements
+     */
+    public Set<D> getAll() {
+        // The snapshot of the last change is reused until the next change
+        return setSnapshot;
+    }
+
     /**
      * Returns a reference to the observable used for listening to change messages
      *
@@ -213,4 +439,53 @@ public class SetChangeAdapter<D> {
     public Observable<ChangeMessage<Set<D>>> getObservable() {
         return publishSubject;
     }
+
+    /**
+     * Returns an observable emitting the change messages in batches, so that observers can amortize
+     * their per-message cost
+     * <p>
+     * A batch is emitted once it reaches the maximum size, or once the maximum delay has elapsed
+     * since the previous batch. Empty batches are not emitted.
+     *
+     * @param maxSize  the maximum number of change messages in a batch
+     * @param maxDelay the maximum time a change message waits for its batch to be emitted
+     * @param unit     the unit of the maximum delay
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Set<D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                        final TimeUnit unit) {
+        return getBatchedObservable(maxSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, timed on the specified scheduler
+     *
+     * @param maxSize   the maximum number of change messages in a batch
+     * @param maxDelay  the maximum time a change message waits for its batch to be emitted
+     * @param unit      the unit of the maximum delay
+     * @param scheduler the scheduler on which batches are emitted when the maximum delay elapses
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<Set<D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                        final TimeUnit unit,
+                                                                        final Scheduler scheduler) {
+        return publishSubject.buffer(maxDelay, unit, scheduler, maxSize).filter(new NonEmptyBatchFilter());
+    }
+
+    private void emitApplied(final Set<D> oldSetSnapshot, final ChangeType changeType,
+                             final Set<D> changeSnapshot) {
+        final Set<D> newSetSnapshot = ImmutableSet.copyOf(dataSet);
+        publishSnapshot(newSetSnapshot);
+
+        publishSubject.onNext(new MetaChangeMessage<>(oldSetSnapshot, newSetSnapshot, changeType, changeSnapshot));
+    }
+
+    private Set<D> currentSnapshot() {
+        // Reuse the snapshot published by the previous change as the old data
+        return setSnapshot;
+    }
+
+    private void publishSnapshot(final Set<D> setSnapshot) {
+        this.setSnapshot = setSnapshot;
+    }
 }
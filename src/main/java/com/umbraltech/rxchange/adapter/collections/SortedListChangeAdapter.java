@@ -0,0 +1,275 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.umbraltech.rxchange.filter.NonEmptyBatchFilter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.message.RankChange;
+import com.umbraltech.rxchange.type.ChangeType;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adapter that implements the reactive change model for lists kept sorted by a comparator
+ * <p>
+ * The elements are stored in a persistent balanced tree, so inserting, removing and repositioning
+ * an element takes logarithmic time, and the snapshots carried by the change messages are taken
+ * without copying the elements. Reads never acquire a lock.
+ * <p>
+ * Elements comparing equal are kept in insertion order. The metadata of each change message is a
+ * {@link RankChange} holding the element and its rank before and after the change.
+ *
+ * @param <D> the type of data held by the list
+ */
+public class SortedListChangeAdapter<D> {
+    private final PublishSubject<ChangeMessage<List<D>>> publishSubject = PublishSubject.create();
+    private final Comparator<? super D> comparator;
+    private final Lock writeLock = new ReentrantLock();
+    private volatile PersistentList<D> dataList = PersistentList.empty();
+
+    /**
+     * Initializes the adapter with the comparator ordering the elements
+     *
+     * @param comparator the comparator ordering the elements
+     */
+    public SortedListChangeAdapter(final Comparator<? super D> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Initializes the adapter with a collection of elements and the comparator ordering them,
+     * without emitting a change message
+     *
+     * @param initialData the initial collection of elements
+     * @param comparator  the comparator ordering the elements
+     */
+    public SortedListChangeAdapter(final Collection<D> initialData, final Comparator<? super D> comparator) {
+        this(comparator);
+
+        final List<D> sortedList = new ArrayList<>(initialData);
+        Collections.sort(sortedList, comparator);
+        dataList = PersistentList.copyOf(sortedList);
+    }
+
+    /**
+     * Inserts an element at its sorted position and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain the element and its new rank
+     *
+     * @param data the data to be added to the list
+     * @return {@code true} always
+     */
+    public boolean add(final D data) {
+        writeLock.lock();
+
+        try {
+            final PersistentList<D> oldListSnapshot = dataList;
+            final int newRank = oldListSnapshot.insertionIndex(data, comparator, true);
+            final PersistentList<D> newListSnapshot = oldListSnapshot.plus(newRank, data);
+            dataList = newListSnapshot;
+
+            // Signal addition
+            publishSubject.onNext(new MetaChangeMessage<List<D>, RankChange<D>>(oldListSnapshot, newListSnapshot,
+                    ChangeType.ADD, new RankChange<>(data, -1, newRank)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the specified element and emits a change message to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain the element and its old rank
+     *
+     * @param data the element to be removed
+     * @return {@code true} if the element was removed, {@code false} otherwise
+     */
+    public boolean remove(final D data) {
+        writeLock.lock();
+
+        try {
+            final PersistentList<D> oldListSnapshot = dataList;
+            final int oldRank = rankOf(oldListSnapshot, data);
+
+            // Validate item
+            if (oldRank < 0) {
+                return false;
+            }
+
+            final PersistentList<D> newListSnapshot = oldListSnapshot.minus(oldRank);
+            dataList = newListSnapshot;
+
+            // Signal removal
+            publishSubject.onNext(new MetaChangeMessage<List<D>, RankChange<D>>(oldListSnapshot, newListSnapshot,
+                    ChangeType.REMOVE, new RankChange<>(data, oldRank, -1)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces an element with new data, moves it to its sorted position and emits a change message
+     * to surrounding observers
+     * <p>
+     * The metadata in the emitted change message will contain the new data, the old rank of the replaced
+     * element and the new rank of the new data
+     *
+     * @param oldData the element to be replaced
+     * @param newData the new data for the element
+     * @return {@code true} if the element was updated, {@code false} otherwise
+     */
+    public boolean update(final D oldData, final D newData) {
+        writeLock.lock();
+
+        try {
+            final PersistentList<D> oldListSnapshot = dataList;
+            final int oldRank = rankOf(oldListSnapshot, oldData);
+
+            // Validate item
+            if (oldRank < 0) {
+                return false;
+            }
+
+            final PersistentList<D> removedList = oldListSnapshot.minus(oldRank);
+            final int newRank = removedList.insertionIndex(newData, comparator, true);
+            final PersistentList<D> newListSnapshot = removedList.plus(newRank, newData);
+            dataList = newListSnapshot;
+
+            // Signal update
+            publishSubject.onNext(new MetaChangeMessage<List<D>, RankChange<D>>(oldListSnapshot, newListSnapshot,
+                    ChangeType.UPDATE, new RankChange<>(newData, oldRank, newRank)));
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the element at the specified rank
+     *
+     * @param rank the rank of the element
+     * @return the element at the specified rank
+     */
+    public D get(final int rank) {
+        return dataList.get(rank);
+    }
+
+    /**
+     * Returns the rank of an element, using a binary search
+     *
+     * @param data the element
+     * @return the rank of the element, {@code -1} if not found
+     */
+    public int getRank(final D data) {
+        return rankOf(dataList, data);
+    }
+
+    /**
+     * Returns the number of elements, without taking a snapshot
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return dataList.size();
+    }
+
+    /**
+     * Returns an immutable snapshot of the current sorted list, without copying the elements
+     *
+     * @return the list of elements
+     */
+    public List<D> getAll() {
+        return dataList;
+    }
+
+    /**
+     * Returns a reference to the observable used for listening to change messages
+     *
+     * @return the observable reference
+     */
+    public Observable<ChangeMessage<List<D>>> getObservable() {
+        return publishSubject;
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, so that observers can amortize
+     * their per-message cost
+     * <p>
+     * A batch is emitted once it reaches the maximum size, or once the maximum delay has elapsed
+     * since the previous batch. Empty batches are not emitted.
+     *
+     * @param maxSize  the maximum number of change messages in a batch
+     * @param maxDelay the maximum time a change message waits for its batch to be emitted
+     * @param unit     the unit of the maximum delay
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<List<D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                         final TimeUnit unit) {
+        return getBatchedObservable(maxSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an observable emitting the change messages in batches, timed on the specified scheduler
+     *
+     * @param maxSize   the maximum number of change messages in a batch
+     * @param maxDelay  the maximum time a change message waits for its batch to be emitted
+     * @param unit      the unit of the maximum delay
+     * @param scheduler the scheduler on which batches are emitted when the maximum delay elapses
+     * @return the observable of batches
+     */
+    public Observable<List<ChangeMessage<List<D>>>> getBatchedObservable(final int maxSize, final long maxDelay,
+                                                                         final TimeUnit unit,
+                                                                         final Scheduler scheduler) {
+        return publishSubject.buffer(maxDelay, unit, scheduler, maxSize).filter(new NonEmptyBatchFilter());
+    }
+
+    private int rankOf(final PersistentList<D> listSnapshot, final D data) {
+        final int size = listSnapshot.size();
+
+        // Scan the elements comparing equal for an equal element
+        for (int rank = listSnapshot.insertionIndex(data, comparator, false); rank < size; rank++) {
+            final D element = listSnapshot.get(rank);
+
+            if (comparator.compare(element, data) != 0) {
+                break;
+            }
+
+            if (element == null ? data == null : element.equals(data)) {
+                return rank;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel scheduling the expiration of the entries of {@link ExpiringMapChangeAdapter}
+ * <p>
+ * Each level divides time into buckets of increasing span, and an entry is linked into the bucket of
+ * the lowest level whose span covers its remaining lifetime. Scheduling and cancelling therefore take
+ * constant time. As time advances, the elapsed buckets are drained: expired entries are collected,
+ * and the others are cascaded into the lower levels. An entry is therefore collected once the lowest level
+ * has advanced past the tick of its expiration. The wheel is not thread-safe.
+ *
+ * @param <K> the type used for the keys
+ */
+final class TimerWheel<K> {
+    private static final int BUCKET_BITS = 6;
+    private static final int BUCKET_COUNT = 1 << BUCKET_BITS;
+    private static final int BUCKET_MASK = BUCKET_COUNT - 1;
+    private static final int LEVEL_COUNT = 4;
+
+    private final int tickShift;
+    private final Node<K>[][] buckets;
+    private long currentNanos;
+
+    /**
+     * Creates an empty wheel starting at time zero
+     *
+     * @param tickNanos the span of the buckets of the lowest level, rounded down to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    TimerWheel(final long tickNanos) {
+        tickShift = 63 - Long.numberOfLeadingZeros(Math.max(tickNanos, 1L));
+        buckets = new Node[LEVEL_COUNT][BUCKET_COUNT];
+
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            for (int index = 0; index < BUCKET_COUNT; index++) {
+                final Node<K> sentinel = new Node<>(null, null, 0L, 0L);
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+                buckets[level][index] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Links an entry into the bucket covering its expiration time
+     *
+     * @param node the entry, which must not be scheduled
+     */
+    void schedule(final Node<K> node) {
+        final long expirationNanos = Math.max(node.getExpirationNanos(), currentNanos);
+        final long delayNanos = expirationNanos - currentNanos;
+        int level = 0;
+
+        // Find the lowest level whose buckets span the remaining lifetime
+        while (level < LEVEL_COUNT - 1 && (delayNanos >>> shift(level + 1)) > 0) {
+            level++;
+        }
+
+        final Node<K> sentinel = buckets[level][(int) ((expirationNanos >>> shift(level)) & BUCKET_MASK)];
+
+        node.previous = sentinel.previous;
+        node.next = sentinel;
+        sentinel.previous.next = node;
+        sentinel.previous = node;
+    }
+
+    /**
+     * Unlinks an entry from its bucket
+     *
+     * @param node the entry, which is ignored if not scheduled
+     */
+    void deschedule(final Node<K> node) {
+        if (node.next != null) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+        }
+    }
+
+    /**
+     * Advances the wheel, collecting the entries that expired and rescheduling the others in the elapsed buckets
+     *
+     * @param nowNanos    the current time
+     * @param expiredList the list to which the expired entries are added
+     */
+    void advance(final long nowNanos, final List<Node<K>> expiredList) {
+        final long previousNanos = currentNanos;
+
+        if (nowNanos <= previousNanos) {
+            return;
+        }
+
+        currentNanos = nowNanos;
+
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            final long previousTicks = previousNanos >>> shift(level);
+            final long elapsedTicks = (nowNanos >>> shift(level)) - previousTicks;
+
+            // Check if the higher levels are unaffected
+            if (elapsedTicks <= 0) {
+                break;
+            }
+
+            final int bucketCount = (int) Math.min(elapsedTicks + 1, BUCKET_COUNT);
+
+            for (int i = 0; i < bucketCount; i++) {
+                drain(buckets[level][(int) ((previousTicks + i) & BUCKET_MASK)], expiredList);
+            }
+        }
+    }
+
+    private void drain(final Node<K> sentinel, final List<Node<K>> expiredList) {
+        Node<K> node = sentinel.next;
+
+        sentinel.previous = sentinel;
+        sentinel.next = sentinel;
+
+        while (node != sentinel) {
+            final Node<K> next = node.next;
+
+            node.previous = null;
+            node.next = null;
+
+            // Cascade the entries that are still alive
+            if (node.getExpirationNanos() <= currentNanos) {
+                expiredList.add(node);
+            } else {
+                schedule(node);
+            }
+
+            node = next;
+        }
+    }
+
+    private int shift(final int level) {
+        return tickShift + level * BUCKET_BITS;
+    }
+
+    /**
+     * The expiration state of an entry
+     *
+     * @param <K> the type used for the keys
+     */
+    static final class Node<K> {
+        private final K key;
+        private final ExpirationMode expirationMode;
+        private final long durationNanos;
+        private long writeNanos;
+        private volatile long accessNanos;
+        private Node<K> previous;
+        private Node<K> next;
+
+        Node(final K key, final ExpirationMode expirationMode, final long durationNanos, final long nowNanos) {
+            this.key = key;
+            this.expirationMode = expirationMode;
+            this.durationNanos = durationNanos;
+            this.writeNanos = nowNanos;
+            this.accessNanos = nowNanos;
+        }
+
+        K getKey() {
+            return key;
+        }
+
+        /**
+         * Records a write, which also counts as an access
+         */
+        void recordWrite(final long nowNanos) {
+            writeNanos = nowNanos;
+            accessNanos = nowNanos;
+        }
+
+        /**
+         * Records a read, without synchronization since the latest access wins
+         */
+        void recordAccess(final long nowNanos) {
+            if (expirationMode == ExpirationMode.AFTER_ACCESS) {
+                accessNanos = nowNanos;
+            }
+        }
+
+        long getExpirationNanos() {
+            final long baseNanos = (expirationMode == ExpirationMode.AFTER_ACCESS) ? accessNanos : writeNanos;
+            final long expirationNanos = baseNanos + durationNanos;
+
+            // Saturate on overflow for very long durations
+            return (expirationNanos < baseNanos) ? Long.MAX_VALUE : expirationNanos;
+        }
+    }
+}
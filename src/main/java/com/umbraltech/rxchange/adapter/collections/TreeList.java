@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A list backed by a persistent balanced order-statistic tree, used by {@link ListChangeAdapter}
+ * for the tree storage
+ * <p>
+ * Positional reads, insertions and removals take logarithmic time, and {@link #snapshot()}
+ * returns an immutable snapshot in constant time. Iterators traverse the snapshot taken when they were created.
+ *
+ * @param <D> the type of the elements
+ */
+final class TreeList<D> extends AbstractList<D> {
+    private PersistentList<D> persistentList = PersistentList.empty();
+
+    /**
+     * Returns an immutable snapshot of the list, sharing its structure with the list
+     *
+     * @return the snapshot
+     */
+    PersistentList<D> snapshot() {
+        return persistentList;
+    }
+
+    @Override
+    public D get(final int index) {
+        return persistentList.get(index);
+    }
+
+    @Override
+    public int size() {
+        return persistentList.size();
+    }
+
+    @Override
+    public Iterator<D> iterator() {
+        return persistentList.iterator();
+    }
+
+    @Override
+    public int indexOf(final Object element) {
+        return persistentList.indexOf(element);
+    }
+
+    @Override
+    public D set(final int index, final D element) {
+        final D oldElement = persistentList.get(index);
+        persistentList = persistentList.with(index, element);
+
+        return oldElement;
+    }
+
+    @Override
+    public void add(final int index, final D element) {
+        persistentList = persistentList.plus(index, element);
+        modCount++;
+    }
+
+    @Override
+    public D remove(final int index) {
+        final D element = persistentList.get(index);
+        persistentList = persistentList.minus(index);
+        modCount++;
+
+        return element;
+    }
+
+    @Override
+    public boolean remove(final Object element) {
+        final int index = persistentList.indexOf(element);
+
+        // Check if element is absent
+        if (index < 0) {
+            return false;
+        }
+
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends D> collection) {
+        // Rebuild a balanced tree when the list is empty
+        if (persistentList.isEmpty()) {
+            persistentList = PersistentList.copyOf(collection);
+            modCount++;
+
+            return !collection.isEmpty();
+        }
+
+        return super.addAll(collection);
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> collection) {
+        final Set<?> elementSet = (collection instanceof Set) ? (Set<?>) collection : new HashSet<>(collection);
+        final List<D> retainedList = new ArrayList<>(persistentList.size());
+
+        for (final D element : persistentList) {
+            if (!elementSet.contains(element)) {
+                retainedList.add(element);
+            }
+        }
+
+        // Check if no element was removed
+        if (retainedList.size() == persistentList.size()) {
+            return false;
+        }
+
+        // Rebuild the tree in a single pass
+        persistentList = PersistentList.copyOf(retainedList);
+        modCount++;
+
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        persistentList = PersistentList.empty();
+        modCount++;
+    }
+}
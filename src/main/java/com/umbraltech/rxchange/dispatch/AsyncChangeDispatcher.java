@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.observers.DisposableObserver;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * A dispatcher that delivers the change messages of an adapter to its subscribers asynchronously
+ * <p>
+ * The publishing thread only hands each change message to the bounded queue of every subscriber,
+ * so its latency no longer depends on the observers. Each queue is drained on the executor,
+ * preserving the order of the change messages for every subscriber. When a queue is full,
+ * the overflow policy of the subscriber is applied.
+ * <p>
+ * With the {@link OverflowPolicy#BLOCK} policy, the publishing thread waits for a full queue while the adapter
+ * holds its write lock, so that subscriber must not modify the adapter, nor read it in the locked read mode.
+ *
+ * @param <D> the type of data being observed
+ */
+public class AsyncChangeDispatcher<D> {
+    private final Executor executor;
+    private final List<DispatchSubscription<D>> subscriptionList = new CopyOnWriteArrayList<>();
+
+    private final DisposableObserver<ChangeMessage<D>> sourceObserver = new DisposableObserver<ChangeMessage<D>>() {
+        @Override
+        public void onNext(ChangeMessage<D> changeMessage) {
+            // Pooled change messages must be copied before they are queued
+            final ChangeMessage<D> retainedMessage = MutableChangeMessage.retain(changeMessage);
+
+            for (final DispatchSubscription<D> subscription : subscriptionList) {
+                subscription.offer(retainedMessage);
+
+                if (subscription.isTerminated()) {
+                    subscriptionList.remove(subscription);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            for (final DispatchSubscription<D> subscription : subscriptionList) {
+                subscription.terminate(throwable);
+            }
+
+            subscriptionList.clear();
+        }
+
+        @Override
+        public void onComplete() {
+            for (final DispatchSubscription<D> subscription : subscriptionList) {
+                subscription.terminate(null);
+            }
+
+            subscriptionList.clear();
+        }
+    };
+
+    /**
+     * Constructs the dispatcher and subscribes it to the source of change messages
+     *
+     * @param source   the observable of an adapter
+     * @param executor the executor on which the queues of the subscribers are drained
+     */
+    public AsyncChangeDispatcher(final Observable<ChangeMessage<D>> source, final Executor executor) {
+        this.executor = executor;
+        source.subscribe(sourceObserver);
+    }
+
+    /**
+     * Subscribes an observer with its own bounded queue
+     *
+     * @param observer       the observer receiving the change messages
+     * @param capacity       the maximum number of change messages waiting to be delivered
+     * @param overflowPolicy the policy applied when the queue is full
+     * @return the subscription, which provides the queue metrics and can be disposed
+     */
+    public DispatchSubscription<D> subscribe(final Observer<? super ChangeMessage<D>> observer, final int capacity,
+                                             final OverflowPolicy overflowPolicy) {
+        final DispatchSubscription<D> subscription = new DispatchSubscription<>(observer, capacity, overflowPolicy,
+                executor);
+
+        observer.onSubscribe(subscription);
+        subscriptionList.add(subscription);
+
+        return subscription;
+    }
+
+    /**
+     * Returns the number of active subscriptions
+     *
+     * @return the number of subscriptions
+     */
+    public int getSubscriptionCount() {
+        int count = 0;
+
+        for (final DispatchSubscription<D> subscription : subscriptionList) {
+            if (!subscription.isTerminated()) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Stops listening to the source and disposes all of the subscriptions
+     */
+    public void dispose() {
+        sourceObserver.dispose();
+
+        for (final DispatchSubscription<D> subscription : subscriptionList) {
+            subscription.dispose();
+        }
+
+        subscriptionList.clear();
+    }
+}
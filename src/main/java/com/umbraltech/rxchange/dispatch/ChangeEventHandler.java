@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+
+/**
+ * A consumer of the change messages published to a {@link ChangeRingBuffer} or dispatched by
+ * a {@link KeyedChangeDispatcher}
+ * <p>
+ * The change message is a reused slot, and is only valid for the duration of the call. Handlers
+ * that need to retain a change message must keep the values they need, or a copy of the message.
+ *
+ * @param <D> the type of data being observed
+ * @param <M> the type of metadata
+ */
+public interface ChangeEventHandler<D, M> {
+    /**
+     * Handles a change message
+     *
+     * @param changeMessage the change message, which must not be retained
+     * @param sequence      the sequence number of the change message
+     * @param endOfBatch    whether this is the last change message currently available, which can be
+     *                      used for flushing work accumulated over the batch
+     * @throws Exception if the change message could not be handled
+     */
+    void onEvent(MutableChangeMessage<D, M> changeMessage, long sequence, boolean endOfBatch) throws Exception;
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import com.umbraltech.rxchange.type.ChangeType;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.plugins.RxJavaPlugins;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A preallocated ring buffer of reusable change message slots, used as an allocation-free alternative
+ * to publishing change messages through a subject
+ * <p>
+ * Change messages are written into the next slot by a single publisher, and consumed by handlers that
+ * each run on their own executor thread. Each handler processes every change message in sequence order,
+ * in batches of all the change messages available, and can be made to wait for other handlers through
+ * its dependencies. The publisher waits when it would overwrite a slot that has not been consumed yet.
+ * <p>
+ * The handlers must be added before the ring buffer is started. Since slots are reused, handlers
+ * must not retain the change messages they receive.
+ *
+ * @param <D> the type of data being observed
+ * @param <M> the type of metadata
+ */
+public class ChangeRingBuffer<D, M> {
+    private final MutableChangeMessage<D, M>[] slots;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final Executor executor;
+
+    private final AtomicLong cursor = new AtomicLong(-1L);
+    private final List<EventProcessor> processorList = new ArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean halted;
+
+    // Only accessed by the publisher
+    private long cachedGatingSequence = -1L;
+
+    /**
+     * Constructs the ring buffer and preallocates its slots
+     *
+     * @param bufferSize   the number of slots, which must be a power of two
+     * @param waitStrategy the strategy used by the publisher and handlers while waiting
+     * @param executor     the executor providing a thread for each handler
+     */
+    @SuppressWarnings("unchecked")
+    public ChangeRingBuffer(final int bufferSize, final WaitStrategy waitStrategy, final Executor executor) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size must be a power of two: " + bufferSize);
+        }
+
+        this.slots = new MutableChangeMessage[bufferSize];
+        this.mask = bufferSize - 1;
+        this.waitStrategy = waitStrategy;
+        this.executor = executor;
+
+        for (int i = 0; i < bufferSize; i++) {
+            slots[i] = new MutableChangeMessage<>();
+        }
+    }
+
+    /**
+     * Adds a handler that processes the change messages as soon as they are published
+     *
+     * @param handler the handler
+     * @throws IllegalStateException if the ring buffer was already started
+     */
+    public void addHandler(final ChangeEventHandler<D, M> handler) {
+        synchronized (processorList) {
+            addProcessor(handler, new AtomicLong[0]);
+        }
+    }
+
+    /**
+     * Adds a handler that only processes each change message after it was processed by all of its dependencies
+     *
+     * @param handler      the handler
+     * @param dependencies the previously added handlers that must process each change message first
+     * @throws IllegalStateException    if the ring buffer was already started
+     * @throws IllegalArgumentException if a dependency was not added to the ring buffer
+     */
+    @SafeVarargs
+    public final void addHandler(final ChangeEventHandler<D, M> handler,
+                                 final ChangeEventHandler<D, M>... dependencies) {
+        synchronized (processorList) {
+            final AtomicLong[] barrierSequences = new AtomicLong[dependencies.length];
+
+            for (int i = 0; i < dependencies.length; i++) {
+                barrierSequences[i] = processorOf(dependencies[i]).sequence;
+            }
+
+            addProcessor(handler, barrierSequences);
+        }
+    }
+
+    /**
+     * Starts a thread for each handler on the executor, after which change messages can be published
+     *
+     * @throws IllegalStateException if the ring buffer was already started
+     */
+    public void start() {
+        synchronized (processorList) {
+            if (!started.compareAndSet(false, true)) {
+                throw new IllegalStateException("Ring buffer already started");
+            }
+
+            for (final EventProcessor processor : processorList) {
+                executor.execute(processor);
+            }
+        }
+    }
+
+    /**
+     * Stops the handlers and the publisher, change messages that were not consumed yet are discarded
+     */
+    public void halt() {
+        halted = true;
+    }
+
+    /**
+     * Returns whether change messages are currently accepted
+     *
+     * @return {@code true} if the ring buffer was started and not halted, {@code false} otherwise
+     */
+    public boolean isRunning() {
+        return started.get() && !halted;
+    }
+
+    /**
+     * Publishes a change message into the next slot, waiting if no slot is free
+     * <p>
+     * Publishing must be serialized by the caller, as the ring buffer supports a single publisher at a time
+     *
+     * @param oldData    the original data
+     * @param newData    the updated data
+     * @param changeType the type of change that occurred
+     * @param metadata   the metadata
+     * @return {@code true} if the change message was published, {@code false} if the ring buffer is not running
+     */
+    public boolean publish(final D oldData, final D newData, final ChangeType changeType, final M metadata) {
+        if (!isRunning()) {
+            return false;
+        }
+
+        final long nextSequence = cursor.get() + 1L;
+        final long wrapPoint = nextSequence - slots.length;
+
+        // Wait until the slot has been consumed by every handler
+        if (cachedGatingSequence < wrapPoint) {
+            long gatingSequence;
+
+            while ((gatingSequence = minimumSequence()) < wrapPoint) {
+                if (halted) {
+                    return false;
+                }
+
+                waitStrategy.idle();
+            }
+
+            cachedGatingSequence = gatingSequence;
+        }
+
+        slots[(int) nextSequence & mask].set(oldData, newData, changeType, metadata);
+
+        // Make the slot visible to the handlers
+        cursor.set(nextSequence);
+
+        return true;
+    }
+
+    /**
+     * Returns the sequence number of the last published change message
+     *
+     * @return the sequence number, -1 if nothing was published
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Returns the number of slots in the ring buffer
+     *
+     * @return the buffer size
+     */
+    public int getBufferSize() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the number of change messages that can be published without waiting for the handlers
+     *
+     * @return the remaining capacity
+     */
+    public long getRemainingCapacity() {
+        return slots.length - (cursor.get() - minimumSequence());
+    }
+
+    private void addProcessor(final ChangeEventHandler<D, M> handler, final AtomicLong[] barrierSequences) {
+        if (started.get()) {
+            throw new IllegalStateException("Handlers must be added before the ring buffer is started");
+        }
+
+        processorList.add(new EventProcessor(handler, barrierSequences));
+    }
+
+        private EventProcessor processorOf(final ChangeEventHandler<D, M> handler) {
+        for (final EventProcessor processor : processorList) {
+            if (processor.handler == handler) {
+                return processor;
+            }
+        }
+
+        throw new IllegalArgumentException("Dependency was not added to the ring buffer");
+    }
+
+    private long minimumSequence() {
+        long minimum = cursor.get();
+
+        for (final EventProcessor processor : processorList) {
+            minimum = Math.min(minimum, processor.sequence.get());
+        }
+
+        return minimum;
+    }
+
+    private final class EventProcessor implements Runnable {
+        private final ChangeEventHandler<D, M> handler;
+        private final AtomicLong[] barrierSequences;
+        private final AtomicLong sequence = new AtomicLong(-1L);
+
+        EventProcessor(final ChangeEventHandler<D, M> handler, final AtomicLong[] barrierSequences) {
+            this.handler = handler;
+            this.barrierSequences = barrierSequences;
+        }
+
+        @Override
+        public void run() {
+            long nextSequence = sequence.get() + 1L;
+
+            while (!halted) {
+                final long availableSequence = availableSequence();
+
+                // Wait for the next change message
+                if (availableSequence < nextSequence) {
+                    waitStrategy.idle();
+                    continue;
+                }
+
+                // Process the available change messages as a batch
+                for (; nextSequence <= availableSequence; nextSequence++) {
+                    try {
+                        handler.onEvent(slots[(int) nextSequence & mask], nextSequence,
+                                nextSequence == availableSequence);
+                    } catch (Throwable throwable) {
+                        Exceptions.throwIfFatal(throwable);
+                        RxJavaPlugins.onError(throwable);
+                    }
+                }
+
+                // Release the slots to the publisher
+                sequence.set(availableSequence);
+            }
+        }
+
+        private long availableSequence() {
+            long available = cursor.get();
+
+            for (final AtomicLong barrierSequence : barrierSequences) {
+                available = Math.min(available, barrierSequence.get());
+            }
+
+            return available;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.umbraltech.rxchange.message.ChangeMessage;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.MissingBackpressureException;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The subscription of an observer to an {@link AsyncChangeDispatcher}
+ * <p>
+ * Each subscription owns a bounded queue, which is filled by the publishing thread and drained
+ * on the executor of the dispatcher. Change messages are always delivered in order, and the
+ * observer is never invoked concurrently.
+ *
+ * @param <D> the type of data being observed
+ */
+public final class DispatchSubscription<D> implements Disposable {
+    private static final long BLOCK_PARK_NANOS = 1000L;
+
+    private final Observer<? super ChangeMessage<D>> observer;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+
+    private final SpscRingBuffer<ChangeMessage<D>> queue;
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    private volatile boolean disposed;
+    private volatile boolean done;
+    private Throwable error;
+
+    DispatchSubscription(final Observer<? super ChangeMessage<D>> observer, final int capacity,
+                         final OverflowPolicy overflowPolicy, final Executor executor) {
+        this.observer = observer;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.queue = new SpscRingBuffer<>(capacity);
+    }
+
+    /**
+     * Returns the number of change messages waiting to be delivered
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the maximum number of change messages that can wait to be delivered
+     *
+     * @return the queue capacity
+     */
+    public int getQueueCapacity() {
+        return queue.capacity();
+    }
+
+    /**
+     * Returns the number of change messages discarded by the overflow policy
+     *
+     * @return the number of dropped change messages
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Returns the overflow policy applied when the queue is full
+     *
+     * @return the overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    /**
+     * Returns whether the subscription no longer accepts change messages
+     *
+     * @return {@code true} if the subscription was disposed or disconnected, {@code false} otherwise
+     */
+    boolean isTerminated() {
+        return disposed || done;
+    }
+
+    /**
+     * Enqueues a change message, called by the publishing thread only
+     *
+     * @param changeMessage the change message
+     */
+    void offer(final ChangeMessage<D> changeMessage) {
+        if (isTerminated()) {
+            return;
+        }
+
+        if (!queue.offer(changeMessage)) {
+            switch (overflowPolicy) {
+                case BLOCK:
+                    while (!queue.offer(changeMessage)) {
+                        if (disposed) {
+                            return;
+                        }
+
+                        LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!queue.offer(changeMessage)) {
+                        if (queue.poll() != null) {
+                            droppedCount.incrementAndGet();
+                        }
+                    }
+                    break;
+                case CONFLATE:
+                    while (!queue.offer(changeMessage)) {
+                        while (queue.poll() != null) {
+                            droppedCount.incrementAndGet();
+                        }
+                    }
+                    break;
+                case DISCONNECT:
+                    droppedCount.incrementAndGet();
+                    terminate(new MissingBackpressureException("Queue of " + queue.capacity()
+                            + " change messages is full"));
+                    return;
+                default:
+                    throw new IllegalStateException("Unsupported overflow policy: " + overflowPolicy);
+            }
+        }
+
+        schedule();
+    }
+
+    /**
+     * Signals the end of the stream after the queued change messages, called by the publishing thread only
+     *
+     * @param throwable the error, null if the stream completed normally
+     */
+    void terminate(final Throwable throwable) {
+        if (isTerminated()) {
+            return;
+        }
+
+        error = throwable;
+        done = true;
+        schedule();
+    }
+
+    private void drain() {
+        int missed = 1;
+
+        for (;;) {
+            ChangeMessage<D> changeMessage;
+
+            while ((changeMessage = queue.poll()) != null) {
+                if (disposed) {
+                    return;
+                }
+
+                try {
+                    observer.onNext(changeMessage);
+                } catch (Throwable throwable) {
+                    disposed = true;
+                    observer.onError(throwable);
+                    return;
+                }
+            }
+
+            if (done && !disposed && queue.isEmpty()) {
+                disposed = true;
+
+                if (error != null) {
+                    observer.onError(error);
+                } else {
+                    observer.onComplete();
+                }
+
+                return;
+            }
+
+            missed = wip.addAndGet(-missed);
+
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private void schedule() {
+        if (wip.getAndIncrement() == 0) {
+            executor.execute(drainTask);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.google.common.base.Objects;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import com.umbraltech.rxchange.type.ChangeType;
+import io.reactivex.Observable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.observers.DisposableObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A dispatcher that splits the change messages of a map adapter into per-key changes, and processes
+ * them on a fixed number of lanes selected by the hash of the key
+ * <p>
+ * Each per-key change carries the old and new value of the entry as its data, and the key as its metadata.
+ * All of the changes of a key are handled on the same lane, strictly in order, while changes of keys
+ * assigned to different lanes are handled in parallel on the executor. Each lane hands the changes that
+ * accumulated in its queue to the handler as a batch.
+ * <p>
+ * The handler is invoked concurrently from different lanes, but never concurrently for the same lane.
+ *
+ * @param <K> the type used for the keys of the map
+ * @param <D> the type used for the data of the map
+ */
+public class KeyedChangeDispatcher<K, D> {
+    private final ChangeEventHandler<D, K> handler;
+    private final Executor executor;
+    private final List<Lane> laneList = new ArrayList<>();
+
+    private final DisposableObserver<ChangeMessage<Map<K, D>>> sourceObserver =
+            new DisposableObserver<ChangeMessage<Map<K, D>>>() {
+                @Override
+                public void onNext(ChangeMessage<Map<K, D>> changeMessage) {
+                    final Map<K, D> oldMap = changeMessage.getOldData();
+                    final Map<K, D> newMap = changeMessage.getNewData();
+
+                    // Route the change of each key to its lane, copying its values so that pooled
+                    // change messages are not retained
+                    for (final K key : changedKeys(changeMessage)) {
+                        final D oldData = oldMap.get(key);
+                        final D newData = newMap.get(key);
+
+                        if (Objects.equal(oldData, newData) && oldMap.containsKey(key) == newMap.containsKey(key)) {
+                            continue;
+                        }
+
+                        laneList.get(getLane(key)).offer(new MetaChangeMessage<>(oldData, newData,
+                                changeTypeOf(oldMap.containsKey(key), newMap.containsKey(key)), key));
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    RxJavaPlugins.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    // Stub
+                }
+            };
+
+    /**
+     * Constructs the dispatcher and subscribes it to the source of change messages
+     *
+     * @param source    the observable of a map adapter
+     * @param laneCount the number of lanes, bounding the parallelism
+     * @param handler   the handler of the per-key changes, which must be safe to invoke from several lanes
+     * @param executor  the executor on which the lanes are drained
+     */
+    public KeyedChangeDispatcher(final Observable<ChangeMessage<Map<K, D>>> source, final int laneCount,
+                                 final ChangeEventHandler<D, K> handler, final Executor executor) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("Lane count must be positive: " + laneCount);
+        }
+
+        this.handler = handler;
+        this.executor = executor;
+
+        for (int i = 0; i < laneCount; i++) {
+            laneList.add(new Lane());
+        }
+
+        source.subscribe(sourceObserver);
+    }
+
+    /**
+     * Returns the number of lanes
+     *
+     * @return the lane count
+     */
+    public int getLaneCount() {
+        return laneList.size();
+    }
+
+    /**
+     * Returns the lane on which the changes of a key are handled
+     *
+     * @param key the key of the entry
+     * @return the index of the lane
+     */
+    public int getLane(final K key) {
+        final int hashCode = (key == null) ? 0 : key.hashCode();
+
+        // Spread the higher bits, so that keys with similar hash codes are distributed across lanes
+        return ((hashCode ^ (hashCode >>> 16)) & Integer.MAX_VALUE) % laneList.size();
+    }
+
+    /**
+     * Returns the number of changes waiting to be handled on a lane
+     *
+     * @param lane the index of the lane
+     * @return the backlog of the lane
+     */
+    public long getBacklog(final int lane) {
+        return laneList.get(lane).backlog.get();
+    }
+
+    /**
+     * Returns the number of changes handled on a lane
+     *
+     * @param lane the index of the lane
+     * @return the number of handled changes
+     */
+    public long getProcessedCount(final int lane) {
+        return laneList.get(lane).processedCount.get();
+    }
+
+    /**
+     * Returns the number of batches handed to the handler on a lane
+     *
+     * @param lane the index of the lane
+     * @return the number of batches
+     */
+    public long getBatchCount(final int lane) {
+        return laneList.get(lane).batchCount.get();
+    }
+
+    /**
+     * Stops listening to the source, changes that are already queued are still handled
+     */
+    public void dispose() {
+        sourceObserver.dispose();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, D> Collection<K> changedKeys(final ChangeMessage<Map<K, D>> changeMessage) {
+        final Object metadata = MetaChangeMessage.metadataOf(changeMessage);
+
+        if (metadata instanceof Map.Entry) {
+            final List<K> keyList = new ArrayList<>(1);
+            keyList.add(((Map.Entry<K, D>) metadata).getKey());
+
+            return keyList;
+        }
+
+        if (metadata instanceof Map) {
+            return ((Map<K, D>) metadata).keySet();
+        }
+
+        // Fall back to comparing the snapshots
+        final Set<K> keySet = new LinkedHashSet<>(changeMessage.getOldData().keySet());
+        keySet.addAll(changeMessage.getNewData().keySet());
+
+        return keySet;
+    }
+
+    private static ChangeType changeTypeOf(final boolean existed, final boolean exists) {
+        if (!existed) {
+            return ChangeType.ADD;
+        }
+
+        if (!exists) {
+            return ChangeType.REMOVE;
+        }
+
+        return ChangeType.UPDATE;
+    }
+
+    private final class Lane implements Runnable {
+        private final Queue<MetaChangeMessage<D, K>> queue = new ConcurrentLinkedQueue<>();
+        private final MutableChangeMessage<D, K> slot = new MutableChangeMessage<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong backlog = new AtomicLong();
+        private final AtomicLong processedCount = new AtomicLong();
+        private final AtomicLong batchCount = new AtomicLong();
+
+        @Override
+        public void run() {
+            int missed = 1;
+
+            for (;;) {
+                final long batchSize = backlog.get();
+
+                // Hand the queued changes to the handler as a batch
+                if (batchSize > 0) {
+                    batchCount.incrementAndGet();
+                }
+
+                for (long i = 1; i <= batchSize; i++) {
+                    final MetaChangeMessage<D, K> changeMessage = queue.poll();
+
+                    // Hand the change to the handler through the slot of the lane
+                    slot.set(changeMessage.getOldData(), changeMessage.getNewData(), changeMessage.getChangeType(),
+                            changeMessage.getMetadata());
+
+                    try {
+                        handler.onEvent(slot, processedCount.get(), i == batchSize);
+                    } catch (Throwable throwable) {
+                        Exceptions.throwIfFatal(throwable);
+                        RxJavaPlugins.onError(throwable);
+                    }
+
+                    processedCount.incrementAndGet();
+                    backlog.decrementAndGet();
+                }
+
+                slot.clear();
+
+                missed = wip.addAndGet(-missed);
+
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        void offer(final MetaChangeMessage<D, K> changeMessage) {
+            queue.offer(changeMessage);
+            backlog.incrementAndGet();
+
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+/**
+ * The policies applied when the queue of a subscriber is full
+ */
+public enum OverflowPolicy {
+    /**
+     * The publishing thread waits until the subscriber frees up space in its queue
+     * <p>
+     * Since the adapter holds its write lock while publishing, the subscriber must not modify the adapter,
+     * nor read it in the locked read mode, where every read acquires the read lock, as the adapter would
+     * deadlock once the queue is full. Reads in the snapshot read mode use the snapshot published
+     * by the change and do not wait for the lock.
+     */
+    BLOCK,
+
+    /**
+     * The oldest queued change message is discarded to make room for the new one
+     */
+    DROP_OLDEST,
+
+    /**
+     * All queued change messages are discarded and only the new one is kept,
+     * so the subscriber catches up directly to the latest state
+     */
+    CONFLATE,
+
+    /**
+     * The subscriber is disconnected, and receives a
+     * {@link io.reactivex.exceptions.MissingBackpressureException} after its queued change messages
+     */
+    DISCONNECT
+}
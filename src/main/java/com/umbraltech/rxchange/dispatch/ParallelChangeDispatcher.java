@@ -0,0 +1,311 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.DisposableObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A dispatcher that delivers each change message of an adapter to its subscribers in parallel
+ * <p>
+ * Every subscriber is assigned a serial lane on the executor, so independent subscribers process
+ * a change message concurrently while each subscriber still receives the change messages in order
+ * and is never invoked concurrently.
+ * <p>
+ * When completion is awaited, the publishing thread waits until every subscriber has processed
+ * the change message, so the mutation of the adapter only returns once all observers are done.
+ * Since the adapter holds its write lock while publishing, observers must not modify the adapter
+ * in that case, nor read it in the locked read mode, where every read acquires the read lock.
+ * Reads in the snapshot read mode use the snapshot published by the change and do not wait for the lock.
+ * <p>
+ * If the subscribers do not complete within the completion timeout, or the publishing thread is
+ * interrupted while waiting, the mutation of the adapter fails with an {@link IllegalStateException}
+ * after its change was applied, and the interrupt status of the publishing thread is preserved.
+ *
+ * @param <D> the type of data being observed
+ */
+public class ParallelChangeDispatcher<D> {
+    private final Executor executor;
+    private final boolean awaitCompletion;
+    private final long completionTimeoutNanos;
+    private final List<Lane> laneList = new CopyOnWriteArrayList<>();
+
+    private final DisposableObserver<ChangeMessage<D>> sourceObserver = new DisposableObserver<ChangeMessage<D>>() {
+        @Override
+        public void onNext(ChangeMessage<D> changeMessage) {
+            // Take a stable view of the lanes, so that the latch matches the number of deliveries
+            final List<Lane> lanes = awaitCompletion ? new ArrayList<>(laneList) : laneList;
+            final CountDownLatch latch = awaitCompletion ? new CountDownLatch(lanes.size()) : null;
+
+            // Pooled change messages must be copied, as the lanes may outlive their delivery
+            final ChangeMessage<D> retainedMessage = MutableChangeMessage.retain(changeMessage);
+
+            // Hand the change message to every lane
+            for (final Lane lane : lanes) {
+                lane.offer(new Delivery<>(retainedMessage, latch));
+            }
+
+            if (latch != null) {
+                await(latch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            for (final Lane lane : laneList) {
+                lane.terminate(throwable);
+            }
+
+            laneList.clear();
+        }
+
+        @Override
+        public void onComplete() {
+            for (final Lane lane : laneList) {
+                lane.terminate(null);
+            }
+
+            laneList.clear();
+        }
+    };
+
+    /**
+     * Constructs the dispatcher on the common fork-join pool, without awaiting completion
+     *
+     * @param source the observable of an adapter
+     */
+    public ParallelChangeDispatcher(final Observable<ChangeMessage<D>> source) {
+        this(source, ForkJoinPool.commonPool(), false);
+    }
+
+    /**
+     * Constructs the dispatcher and subscribes it to the source of change messages
+     * <p>
+     * When completion is awaited, the publishing thread waits without a timeout
+     *
+     * @param source          the observable of an adapter
+     * @param executor        the executor on which the subscribers are invoked
+     * @param awaitCompletion whether the publishing thread waits until every subscriber has processed
+     *                        each change message
+     */
+    public ParallelChangeDispatcher(final Observable<ChangeMessage<D>> source, final Executor executor,
+                                    final boolean awaitCompletion) {
+        this(source, executor, awaitCompletion, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs the dispatcher awaiting completion with a timeout, and subscribes it to the source
+     * of change messages
+     *
+     * @param source            the observable of an adapter
+     * @param executor          the executor on which the subscribers are invoked
+     * @param completionTimeout the maximum time the publishing thread waits for the subscribers
+     *                          to process each change message
+     * @param unit              the unit of the completion timeout
+     */
+    public ParallelChangeDispatcher(final Observable<ChangeMessage<D>> source, final Executor executor,
+                                    final long completionTimeout, final TimeUnit unit) {
+        this(source, executor, true, unit.toNanos(checkTimeout(completionTimeout)));
+    }
+
+    private ParallelChangeDispatcher(final Observable<ChangeMessage<D>> source, final Executor executor,
+                                     final boolean awaitCompletion, final long completionTimeoutNanos) {
+        this.executor = executor;
+        this.awaitCompletion = awaitCompletion;
+        this.completionTimeoutNanos = completionTimeoutNanos;
+        source.subscribe(sourceObserver);
+    }
+
+    /**
+     * Subscribes an observer on its own serial lane
+     *
+     * @param observer the observer receiving the change messages
+     * @return the subscription, which can be disposed
+     */
+    public Disposable subscribe(final Observer<? super ChangeMessage<D>> observer) {
+        final Lane lane = new Lane(observer);
+
+        observer.onSubscribe(lane);
+        laneList.add(lane);
+
+        return lane;
+    }
+
+    /**
+     * Returns whether the publishing thread waits until every subscriber has processed each change message
+     *
+     * @return {@code true} if completion is awaited, {@code false} otherwise
+     */
+    public boolean isAwaitingCompletion() {
+        return awaitCompletion;
+    }
+
+    /**
+     * Returns the number of active subscriptions
+     *
+     * @return the number of subscriptions
+     */
+    public int getSubscriptionCount() {
+        return laneList.size();
+    }
+
+    /**
+     * Stops listening to the source and disposes all of the subscriptions
+     */
+    public void dispose() {
+        sourceObserver.dispose();
+
+        for (final Lane lane : laneList) {
+            lane.dispose();
+        }
+    }
+
+    private void await(final CountDownLatch latch) {
+        try {
+            if (!latch.await(completionTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Subscribers did not complete within "
+                        + completionTimeoutNanos + " ns");
+            }
+        } catch (InterruptedException e) {
+            // Restore the interrupt status for the publishing thread
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while awaiting the subscribers", e);
+        }
+    }
+
+    private static long checkTimeout(final long completionTimeout) {
+        if (completionTimeout <= 0L) {
+            throw new IllegalArgumentException("Completion timeout must be positive: " + completionTimeout);
+        }
+
+        return completionTimeout;
+    }
+
+    private static final class Delivery<D> {
+        private final ChangeMessage<D> changeMessage;
+        private final CountDownLatch latch;
+
+        Delivery(final ChangeMessage<D> changeMessage, final CountDownLatch latch) {
+            this.changeMessage = changeMessage;
+            this.latch = latch;
+        }
+
+        void complete() {
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+    }
+
+    private final class Lane implements Disposable, Runnable {
+        private final Observer<? super ChangeMessage<D>> observer;
+        private final Queue<Delivery<D>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean disposed;
+        private volatile boolean done;
+        private Throwable error;
+
+        Lane(final Observer<? super ChangeMessage<D>> observer) {
+            this.observer = observer;
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            laneList.remove(this);
+
+            // Release any publisher waiting on the pending deliveries
+            schedule();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+
+            for (;;) {
+                Delivery<D> delivery;
+
+                while ((delivery = queue.poll()) != null) {
+                    try {
+                        if (!disposed) {
+                            observer.onNext(delivery.changeMessage);
+                        }
+                    } catch (Throwable throwable) {
+                        dispose();
+                        observer.onError(throwable);
+                    } finally {
+                        delivery.complete();
+                    }
+                }
+
+                if (done && !disposed) {
+                    disposed = true;
+
+                    if (error != null) {
+                        observer.onError(error);
+                    } else {
+                        observer.onComplete();
+                    }
+                }
+
+                missed = wip.addAndGet(-missed);
+
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        void offer(final Delivery<D> delivery) {
+            queue.offer(delivery);
+            schedule();
+        }
+
+        void terminate(final Throwable throwable) {
+            error = throwable;
+            done = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+    }
+}
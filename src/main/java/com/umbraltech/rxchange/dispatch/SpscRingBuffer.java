@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded single-producer/single-consumer ring buffer
+ * <p>
+ * Only the producer may call {@link #offer(Object)}. Elements are removed with {@link #poll()}, which
+ * is normally called by the consumer, but may also be called by the producer to discard the oldest
+ * element when the buffer is full, since the head is advanced atomically.
+ *
+ * @param <T> the type of the elements
+ */
+final class SpscRingBuffer<T> {
+    private final AtomicReferenceArray<T> buffer;
+    private final int capacity;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    SpscRingBuffer(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        final int length = Integer.highestOneBit(capacity - 1) << 1;
+
+        this.buffer = new AtomicReferenceArray<>(Math.max(length, 1));
+        this.capacity = capacity;
+        this.mask = buffer.length() - 1;
+    }
+
+    /**
+     * Adds an element to the buffer, called by the producer only
+     *
+     * @param value the element
+     * @return {@code true} if the element was added, {@code false} if the buffer is full
+     */
+    boolean offer(final T value) {
+        final long currentTail = tail.get();
+
+        if (currentTail - head.get() >= capacity) {
+            return false;
+        }
+
+        buffer.lazySet((int) currentTail & mask, value);
+        tail.lazySet(currentTail + 1);
+
+        return true;
+    }
+
+    /**
+     * Removes the oldest element from the buffer
+     *
+     * @return the element, null if the buffer is empty
+     */
+    T poll() {
+        for (;;) {
+            final long currentHead = head.get();
+
+            if (currentHead >= tail.get()) {
+                return null;
+            }
+
+            final int index = (int) currentHead & mask;
+            final T value = buffer.get(index);
+
+            // The slot cannot be reused until the head has moved past it
+            if (head.compareAndSet(currentHead, currentHead + 1)) {
+                buffer.compareAndSet(index, value, null);
+                return value;
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    int size() {
+        return (int) Math.max(0L, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
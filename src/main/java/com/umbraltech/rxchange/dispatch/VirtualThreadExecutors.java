@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import io.reactivex.exceptions.Exceptions;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A utility class providing executors backed by virtual threads, on runtimes that support them
+ * <p>
+ * When used with an {@link AsyncChangeDispatcher}, the queue of each subscriber is drained on its
+ * own virtual thread, so observers may block (e.g. on database or network calls) without occupying
+ * a platform thread or delaying the publishing thread, while still receiving their change messages
+ * in order. Virtual threads are looked up reflectively, so the library still loads on older runtimes.
+ */
+public final class VirtualThreadExecutors {
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findFactoryMethod();
+
+    private VirtualThreadExecutors() {
+    }
+
+    /**
+     * Returns whether virtual threads are supported by the current runtime
+     *
+     * @return {@code true} if virtual threads are supported, {@code false} otherwise
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor that runs each task on a new virtual thread
+     *
+     * @return the executor, which should be shut down once its dispatchers are disposed
+     * @throws UnsupportedOperationException if virtual threads are not supported by the current runtime
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+        }
+
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException e) {
+            throw Exceptions.propagate(e);
+        } catch (InvocationTargetException e) {
+            throw Exceptions.propagate(e.getCause());
+        }
+    }
+
+    private static Method findFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The strategies used by a {@link ChangeRingBuffer} while waiting for a sequence to become available
+ */
+public enum WaitStrategy {
+    /**
+     * Spins without yielding, for the lowest latency at the cost of a dedicated core per waiting thread
+     */
+    BUSY_SPIN {
+        @Override
+        void idle() {
+            // Spin
+        }
+    },
+
+    /**
+     * Yields the processor between checks, trading some latency for CPU usage
+     */
+    YIELD {
+        @Override
+        void idle() {
+            Thread.yield();
+        }
+    },
+
+    /**
+     * Parks the waiting thread briefly between checks, for the lowest CPU usage
+     */
+    PARK {
+        @Override
+        void idle() {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    };
+
+    private static final long PARK_NANOS = 1000L;
+
+    /**
+     * Waits once before the sequence is checked again
+     */
+    abstract void idle();
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.filter;
+
+import com.google.common.base.Objects;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import io.reactivex.functions.Predicate;
+
+/**
+ * A utility class used for filtering out change messages whose data is unchanged
+ * <p>
+ * Only messages whose old data differs from their new data will be passed to the observers
+ */
+public class ChangedDataFilter implements Predicate<ChangeMessage> {
+    @Override
+    public boolean test(ChangeMessage changeMessage) {
+        return !Objects.equal(changeMessage.getOldData(), changeMessage.getNewData());
+    }
+}
@@ -40,14 +40,7 @@ public class MetadataFilter implements Predicate<ChangeMessage> {
 
     @Override
     public boolean test(ChangeMessage changeMessage) {
-
-        // Verify message supports metadata
-        if (!(changeMessage instanceof MetaChangeMessage)) {
-            return false;
-        }
-
-        final MetaChangeMessage metaChangeMessage = (MetaChangeMessage) changeMessage;
-        final Object metadata = metaChangeMessage.getMetadata();
+        final Object metadata = MetaChangeMessage.metadataOf(changeMessage);
 
         // Verify metadata is provided
         if (metadata == null) {
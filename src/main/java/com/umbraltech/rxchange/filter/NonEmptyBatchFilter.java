@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.filter;
+
+import io.reactivex.functions.Predicate;
+
+import java.util.List;
+
+/**
+ * A utility class used for filtering out empty batches of change messages
+ * <p>
+ * Only batches containing at least one change message will be passed to observers
+ */
+public class NonEmptyBatchFilter implements Predicate<List<?>> {
+    @Override
+    public boolean test(List<?> batch) {
+        return !batch.isEmpty();
+    }
+}
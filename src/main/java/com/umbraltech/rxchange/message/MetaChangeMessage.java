@@ -51,6 +51,24 @@ public class MetaChangeMessage<D, M> extends ChangeMessage<D> {
         return metadata;
     }
 
+    /**
+     * Returns the metadata of a change message, which can either be immutable or mutable
+     *
+     * @param changeMessage the change message
+     * @return the metadata, null if the change message does not carry any
+     */
+    public static Object metadataOf(final ChangeMessage<?> changeMessage) {
+        if (changeMessage instanceof MetaChangeMessage) {
+            return ((MetaChangeMessage<?, ?>) changeMessage).getMetadata();
+        }
+
+        if (changeMessage instanceof MutableChangeMessage) {
+            return ((MutableChangeMessage<?, ?>) changeMessage).getMetadata();
+        }
+
+        return null;
+    }
+
     @Override
     public String toString() {
         return String.format("%s(changeMessage=%s, metadata=%s)",
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.message;
+
+import com.umbraltech.rxchange.type.ChangeType;
+
+/**
+ * A change message whose contents are reused for successive changes, used by the allocation-free
+ * publishing paths
+ * <p>
+ * The contents of a mutable change message are only valid while it is being delivered. Observers
+ * that need to retain a change message must keep the values they need, or a {@link #copy()} taken
+ * while it is delivered, see {@link #retain(ChangeMessage)}.
+ * <p>
+ * A mutable change message is deliberately not a {@link MetaChangeMessage}, so that code retaining
+ * the immutable change messages it receives never holds one by accident. Its metadata can be read
+ * through {@link #getMetadata()}, or through {@link MetaChangeMessage#metadataOf(ChangeMessage)}
+ * for change messages of either kind.
+ *
+ * @param <D> the type of data
+ * @param <M> the type of metadata
+ */
+public class MutableChangeMessage<D, M> extends ChangeMessage<D> {
+    private D oldData;
+    private D newData;
+    private ChangeType changeType;
+    private M metadata;
+
+    /**
+     * Creates an empty change message
+     */
+    public MutableChangeMessage() {
+        super(null, null, null);
+    }
+
+    /**
+     * Replaces the contents of the change message, must only be called by the publisher
+     *
+     * @param oldData    the original data
+     * @param newData    the updated data
+     * @param changeType the type of change that occurred
+     * @param metadata   the metadata
+     */
+    public void set(final D oldData, final D newData, final ChangeType changeType, final M metadata) {
+        this.oldData = oldData;
+        this.newData = newData;
+        this.changeType = changeType;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Clears the contents of the change message, so that the data can be garbage collected
+     */
+    public void clear() {
+        set(null, null, null, null);
+    }
+
+    /**
+     * Returns an immutable copy of the change message, which can be retained by observers
+     * <p>
+     * The copy must be taken while the change message is being delivered
+     *
+     * @return the copied change message
+     */
+    public MetaChangeMessage<D, M> copy() {
+        return new MetaChangeMessage<>(oldData, newData, changeType, metadata);
+    }
+
+    /**
+     * Returns a change message that can be retained after it was delivered, copying it if it is mutable
+     * <p>
+     * Consumers that queue or buffer change messages must retain them while they are being delivered
+     *
+     * @param changeMessage the change message being delivered
+     * @param <D>           the type of data
+     * @return the copied change message if it is mutable, the change message itself otherwise
+     */
+    public static <D> ChangeMessage<D> retain(final ChangeMessage<D> changeMessage) {
+        if (changeMessage instanceof MutableChangeMessage) {
+            return ((MutableChangeMessage<D, ?>) changeMessage).copy();
+        }
+
+        return changeMessage;
+    }
+
+    @Override
+    public D getOldData() {
+        return oldData;
+    }
+
+    @Override
+    public D getNewData() {
+        return newData;
+    }
+
+    @Override
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    /**
+     * Returns the metadata
+     *
+     * @return the metadata
+     */
+    public M getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(changeMessage=%s, metadata=%s)",
+                MutableChangeMessage.class.getSimpleName(),
+                new ChangeMessage<>(oldData, newData, changeType),
+                metadata);
+    }
+}
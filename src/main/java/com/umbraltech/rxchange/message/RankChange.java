@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.message;
+
+import com.google.common.base.Objects;
+
+/**
+ * The metadata describing a change to an element of a sorted list, including the rank of the element
+ * before and after the change
+ * <p>
+ * The rank is the index of the element in the sorted list, and is {@code -1} if the element
+ * was not present before the change or is not present after it
+ *
+ * @param <D> the type of the element
+ */
+public final class RankChange<D> {
+    private final D element;
+    private final int oldRank;
+    private final int newRank;
+
+    /**
+     * Creates the metadata for a change to an element
+     *
+     * @param element the element that was changed
+     * @param oldRank the rank before the change, {@code -1} if absent
+     * @param newRank the rank after the change, {@code -1} if absent
+     */
+    public RankChange(final D element, final int oldRank, final int newRank) {
+        this.element = element;
+        this.oldRank = oldRank;
+        this.newRank = newRank;
+    }
+
+    /**
+     * Returns the element that was changed
+     *
+     * @return the element
+     */
+    public D getElement() {
+        return element;
+    }
+
+    /**
+     * Returns the rank of the element before the change
+     *
+     * @return the old rank, {@code -1} if the element was absent
+     */
+    public int getOldRank() {
+        return oldRank;
+    }
+
+    /**
+     * Returns the rank of the element after the change
+     *
+     * @return the new rank, {@code -1} if the element is absent
+     */
+    public int getNewRank() {
+        return newRank;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        }
+
+        if (!(object instanceof RankChange)) {
+            return false;
+        }
+
+        final RankChange<?> rankChange = (RankChange<?>) object;
+        return oldRank == rankChange.oldRank && newRank == rankChange.newRank
+                && Objects.equal(element, rankChange.element);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(element, oldRank, newRank);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(element=%s, oldRank=%d, newRank=%d)",
+                RankChange.class.getSimpleName(),
+                element,
+                oldRank,
+                newRank);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.message;
+
+import io.reactivex.functions.Function;
+
+/**
+ * A utility function used for retaining change messages before they are buffered or scheduled
+ * <p>
+ * Mutable change messages are replaced with a copy, see {@link MutableChangeMessage#retain(ChangeMessage)}
+ *
+ * @param <D> the type of data
+ */
+public class RetainFunction<D> implements Function<ChangeMessage<D>, ChangeMessage<D>> {
+    @Override
+    public ChangeMessage<D> apply(ChangeMessage<D> changeMessage) {
+        return MutableChangeMessage.retain(changeMessage);
+    }
+}
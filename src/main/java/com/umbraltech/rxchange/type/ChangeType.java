@@ -22,5 +22,7 @@ package com.umbraltech.rxchange.type;
 public enum ChangeType {
     ADD,
     REMOVE,
-    UPDATE
+    UPDATE,
+    EXPIRE,
+    EVICT
 }
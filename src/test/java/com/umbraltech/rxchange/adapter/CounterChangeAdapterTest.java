@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter;
+
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CounterChangeAdapterTest {
+
+    @Test
+    public void sampleByUpdates() {
+        final CounterChangeAdapter changeAdapter = new CounterChangeAdapter(10, 3, 1, TimeUnit.HOURS);
+        final List<MetaChangeMessage<Long, ?>> changeMessageList = observeMetaChangeMessages(changeAdapter);
+
+        for (int i = 0; i < 7; i++) {
+            changeAdapter.increment();
+        }
+
+        assertEquals("Value", 17, changeAdapter.get());
+        assertEquals("Change messages", 2, changeMessageList.size());
+        assertEquals("Old data", 10L, changeMessageList.get(0).getOldData().longValue());
+        assertEquals("New data", 13L, changeMessageList.get(0).getNewData().longValue());
+        assertEquals("Metadata", 3L, changeMessageList.get(0).getMetadata());
+        assertEquals("New data", 16L, changeMessageList.get(1).getNewData().longValue());
+
+        // Publish the remaining update
+        assertTrue("Flush", changeAdapter.flush());
+        assertFalse("Flush unchanged", changeAdapter.flush());
+
+        assertEquals("Change messages", 3, changeMessageList.size());
+        assertEquals("Old data", 16L, changeMessageList.get(2).getOldData().longValue());
+        assertEquals("New data", 17L, changeMessageList.get(2).getNewData().longValue());
+    }
+
+    @Test
+    public void sampleByDelay() {
+        final CounterChangeAdapter changeAdapter = new CounterChangeAdapter(0, 16, 0, TimeUnit.MILLISECONDS);
+        final List<MetaChangeMessage<Long, ?>> changeMessageList = observeMetaChangeMessages(changeAdapter);
+
+        changeAdapter.add(5);
+        changeAdapter.decrement();
+
+        assertEquals("Change messages", 2, changeMessageList.size());
+        assertEquals("New data", 5L, changeMessageList.get(0).getNewData().longValue());
+        assertEquals("New data", 4L, changeMessageList.get(1).getNewData().longValue());
+    }
+
+    @Test
+    public void sampledChecks() {
+        final CounterChangeAdapter changeAdapter = new CounterChangeAdapter(0, 1024, 1, TimeUnit.HOURS);
+        final List<MetaChangeMessage<Long, ?>> changeMessageList = observeMetaChangeMessages(changeAdapter);
+
+        for (int i = 0; i < 10000; i++) {
+            changeAdapter.increment();
+        }
+
+        // The thresholds are only checked by some updates, so samples may aggregate more updates
+        assertTrue("Sampled", changeMessageList.size() >= 1 && changeMessageList.size() <= 9);
+
+        for (final MetaChangeMessage<Long, ?> changeMessage : changeMessageList) {
+            assertTrue("Maximum updates reached", (Long) changeMessage.getMetadata() >= 1024L);
+        }
+    }
+
+    @Test
+    public void concurrentUpdates() throws InterruptedException {
+        final CounterChangeAdapter changeAdapter = new CounterChangeAdapter(0, 100, 1, TimeUnit.MILLISECONDS);
+        final List<MetaChangeMessage<Long, ?>> changeMessageList = observeMetaChangeMessages(changeAdapter);
+        final List<Thread> threadList = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        changeAdapter.increment();
+                    }
+                }
+            });
+
+            threadList.add(thread);
+            thread.start();
+        }
+
+        for (final Thread thread : threadList) {
+            thread.join();
+        }
+
+        changeAdapter.flush();
+
+        assertEquals("Value", 40000, changeAdapter.get());
+        assertEquals("Last sample", 40000L,
+                changeMessageList.get(changeMessageList.size() - 1).getNewData().longValue());
+
+        // Verify the samples are contiguous
+        for (int i = 1; i < changeMessageList.size(); i++) {
+            assertEquals("Contiguous samples", changeMessageList.get(i - 1).getNewData(),
+                    changeMessageList.get(i).getOldData());
+        }
+    }
+
+    private static List<MetaChangeMessage<Long, ?>> observeMetaChangeMessages(
+            final CounterChangeAdapter changeAdapter) {
+        final List<MetaChangeMessage<Long, ?>> changeMessageList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Long>() {
+            @Override
+            public void onNext(ChangeMessage<Long> changeMessage) {
+                changeMessageList.add((MetaChangeMessage<Long, ?>) changeMessage);
+            }
+        });
+
+        return changeMessageList;
+    }
+}
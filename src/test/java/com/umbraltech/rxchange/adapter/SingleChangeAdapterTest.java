@@ -16,16 +16,27 @@
 
 package com.umbraltech.rxchange.adapter;
 
+import com.google.common.base.Equivalence;
 import com.google.common.collect.Lists;
 import com.umbraltech.rxchange.filter.ChangeTypeFilter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import com.umbraltech.rxchange.observer.BatchChangeMessageObserver;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
 import com.umbraltech.rxchange.type.ChangeType;
 import com.umbraltech.rxchange.util.ChangePayloadTestObserver;
+import io.reactivex.schedulers.TestScheduler;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class SingleChangeAdapterTest {
@@ -62,4 +73,91 @@ public class SingleChangeAdapterTest {
         changeAdapter.update(testList.get(0));
         assertEquals("Get", testList.get(0), changeAdapter.get());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getBatchedObservable() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final List<Integer> batchSizeList = new ArrayList<>();
+
+        changeAdapter.getBatchedObservable(2, 1, TimeUnit.SECONDS, testScheduler)
+                .subscribe(new BatchChangeMessageObserver<Integer>() {
+                    @Override
+                    public void onNext(List<ChangeMessage<Integer>> changeMessages) {
+                        batchSizeList.add(changeMessages.size());
+                    }
+                });
+
+        // Emitted when full
+        changeAdapter.update(1);
+        changeAdapter.update(2);
+        assertEquals("Full batch", Lists.newArrayList(2), batchSizeList);
+
+        // Emitted when the delay elapses
+        changeAdapter.update(3);
+        testScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals("Partial batch", Lists.newArrayList(2, 1), batchSizeList);
+
+        // Empty batches are not emitted
+        testScheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+        assertEquals("No empty batch", Lists.newArrayList(2, 1), batchSizeList);
+    }
+
+    @Test
+    public void messagePooling() {
+        final List<ChangeMessage<Integer>> messageList = new ArrayList<>();
+        final List<ChangeMessage<Integer>> copyList = new ArrayList<>();
+
+        changeAdapter.setMessagePooling(true);
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Integer>() {
+            @Override
+            public void onNext(ChangeMessage<Integer> changeMessage) {
+                messageList.add(changeMessage);
+                copyList.add(((MutableChangeMessage<Integer, ?>) changeMessage).copy());
+            }
+        });
+
+        changeAdapter.update(1);
+        changeAdapter.update(2);
+
+        assertSame("Change message reused", messageList.get(0), messageList.get(1));
+        assertNull("Released after delivery", messageList.get(0).getNewData());
+        assertEquals("Copied old data", Integer.valueOf(1), copyList.get(1).getOldData());
+        assertEquals("Copied new data", Integer.valueOf(2), copyList.get(1).getNewData());
+    }
+
+    @Test
+    public void messagePoolingBatched() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final List<List<ChangeMessage<Integer>>> batchList = new ArrayList<>();
+
+        changeAdapter.setMessagePooling(true);
+        changeAdapter.getBatchedObservable(10, 1, TimeUnit.SECONDS, testScheduler)
+                .subscribe(new BatchChangeMessageObserver<Integer>() {
+                    @Override
+                    public void onNext(List<ChangeMessage<Integer>> changeMessages) {
+                        batchList.add(changeMessages);
+                    }
+                });
+
+        changeAdapter.update(1);
+        changeAdapter.update(2);
+        testScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        // The buffered change messages are copies that outlive their delivery
+        assertEquals("Batch size", 2, batchList.get(0).size());
+        assertEquals("First change", Integer.valueOf(1), batchList.get(0).get(0).getNewData());
+        assertEquals("Second change", Integer.valueOf(2), batchList.get(0).get(1).getNewData());
+        assertEquals("Old data", Integer.valueOf(1), batchList.get(0).get(1).getOldData());
+    }
+
+    @Test
+    public void equivalence() {
+        changeAdapter.setEquivalence(Equivalence.equals());
+        changeAdapter.getObservable()
+                .subscribe(new ChangePayloadTestObserver<>(Lists.newArrayList(0), Lists.newArrayList(1)));
+
+        assertFalse("Equal update", changeAdapter.update(0));
+        assertTrue("Changed update", changeAdapter.update(1));
+        assertEquals("Suppressed count", 1, changeAdapter.getSuppressedUpdateCount());
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import com.umbraltech.rxchange.type.ChangeType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BoundedMapChangeAdapterTest {
+
+    @Test
+    public void addRemoveUpdate() {
+        final BoundedMapChangeAdapter<Integer, String> changeAdapter = new BoundedMapChangeAdapter<>(10);
+        final List<MetaChangeMessage<Map<Integer, String>, ?>> changeMessageList =
+                observeMetaChangeMessages(changeAdapter);
+
+        assertTrue("Add", changeAdapter.add(1, "a"));
+        assertFalse("Add existing", changeAdapter.add(1, "b"));
+        assertTrue("Update", changeAdapter.update(1, "b"));
+        assertFalse("Update nonexistent", changeAdapter.update(2, "b"));
+        assertEquals("Get", "b", changeAdapter.get(1));
+        assertTrue("Remove", changeAdapter.remove(1));
+        assertFalse("Remove nonexistent", changeAdapter.remove(1));
+
+        assertEquals("Size", 0, changeAdapter.size());
+        assertEquals("Change messages", 3, changeMessageList.size());
+        assertEquals("Change type", ChangeType.UPDATE, changeMessageList.get(1).getChangeType());
+        assertEquals("Metadata", Maps.immutableEntry(1, "b"), changeMessageList.get(2).getMetadata());
+    }
+
+    @Test
+    public void evict() {
+        final BoundedMapChangeAdapter<Integer, String> changeAdapter = new BoundedMapChangeAdapter<>(2);
+        final List<MetaChangeMessage<Map<Integer, String>, ?>> changeMessageList =
+                observeMetaChangeMessages(changeAdapter);
+
+        changeAdapter.add(1, "a");
+        changeAdapter.add(2, "b");
+        changeAdapter.add(3, "c");
+
+        assertEquals("Size", 2, changeAdapter.size());
+        assertEquals("Change messages", 4, changeMessageList.size());
+        assertEquals("Change type", ChangeType.ADD, changeMessageList.get(2).getChangeType());
+        assertEquals("Change type", ChangeType.EVICT, changeMessageList.get(3).getChangeType());
+        assertEquals("Old data", ImmutableMap.of(1, "a", 2, "b", 3, "c"), changeMessageList.get(3).getOldData());
+        assertEquals("New data", changeAdapter.getAll(), changeMessageList.get(3).getNewData());
+
+        // The most recently added entry is never evicted by its own addition
+        assertTrue("Contains added", changeAdapter.containsKey(3));
+        assertEquals("Metadata", 1, ((Map<?, ?>) changeMessageList.get(3).getMetadata()).size());
+    }
+
+    @Test
+    public void frequentEntriesSurviveScan() {
+        final BoundedMapChangeAdapter<Integer, Integer> changeAdapter = new BoundedMapChangeAdapter<>(100);
+        final List<MetaChangeMessage<Map<Integer, Integer>, ?>> changeMessageList =
+                observeMetaChangeMessages(changeAdapter);
+
+        for (int i = 0; i < 100; i++) {
+            changeAdapter.add(i, i);
+        }
+
+        // Read the first half of the entries repeatedly
+        for (int j = 0; j < 5; j++) {
+            for (int i = 0; i < 50; i++) {
+                assertEquals("Get", Integer.valueOf(i), changeAdapter.get(i));
+            }
+
+            changeAdapter.remove(-1);
+        }
+
+        // Scan through entries that are only added once
+        for (int i = 1000; i < 2000; i++) {
+            changeAdapter.add(i, i);
+        }
+
+        assertEquals("Size", 100, changeAdapter.size());
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue("Contains frequent entry", changeAdapter.containsKey(i));
+        }
+
+        int evictionCount = 0;
+
+        for (final MetaChangeMessage<Map<Integer, Integer>, ?> changeMessage : changeMessageList) {
+            if (changeMessage.getChangeType() == ChangeType.EVICT) {
+                evictionCount += ((Map<?, ?>) changeMessage.getMetadata()).size();
+            }
+        }
+
+        assertEquals("Evictions", 1000, evictionCount);
+    }
+
+    @Test
+    public void missesNotRecorded() {
+        final BoundedMapChangeAdapter<Integer, Integer> changeAdapter = new BoundedMapChangeAdapter<>(100);
+
+        for (int i = 0; i < 100; i++) {
+            changeAdapter.add(i, i);
+        }
+
+        // Miss the keys repeatedly, which must not count as accesses
+        for (int j = 0; j < 5; j++) {
+            for (int i = 1000; i < 1010; i++) {
+                assertNull("Get", changeAdapter.get(i));
+            }
+        }
+
+        for (int i = 1000; i < 1010; i++) {
+            changeAdapter.add(i, i);
+        }
+
+        int admittedCount = 0;
+
+        for (int i = 1000; i < 1010; i++) {
+            if (changeAdapter.containsKey(i)) {
+                admittedCount++;
+            }
+        }
+
+        // Only the most recently added entry remains in the window
+        assertEquals("Admitted", 1, admittedCount);
+    }
+
+    @Test
+    public void concurrentReadsRecorded() throws InterruptedException {
+        final BoundedMapChangeAdapter<Integer, Integer> changeAdapter = new BoundedMapChangeAdapter<>(100);
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        for (int i = 0; i < 100; i++) {
+            changeAdapter.add(i, i);
+        }
+
+        // Read the first half of the entries repeatedly from several threads
+        try {
+            for (int t = 0; t < 4; t++) {
+                executorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 5; j++) {
+                            for (int i = 0; i < 50; i++) {
+                                changeAdapter.get(i);
+                            }
+                        }
+                    }
+                });
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertTrue("Reads completed", executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int i = 1000; i < 2000; i++) {
+            changeAdapter.add(i, i);
+        }
+
+        assertEquals("Size", 100, changeAdapter.size());
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue("Contains frequent entry", changeAdapter.containsKey(i));
+        }
+    }
+
+    private static <D> List<MetaChangeMessage<Map<Integer, D>, ?>> observeMetaChangeMessages(
+            final BoundedMapChangeAdapter<Integer, D> changeAdapter) {
+        final List<MetaChangeMessage<Map<Integer, D>, ?>> changeMessageList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, D>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, D>> changeMessage) {
+                changeMessageList.add((MetaChangeMessage<Map<Integer, D>, ?>) changeMessage);
+            }
+        });
+
+        return changeMessageList;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import io.reactivex.functions.BiFunction;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ChangeAdapterLockTest {
+    private static final BiFunction<String, String, String> CONCAT_FUNCTION = new BiFunction<String, String, String>() {
+        @Override
+        public String apply(String data, String argument) {
+            return data + argument;
+        }
+    };
+
+    private ChangeAdapterLock changeAdapterLock;
+
+    @Before
+    public void setUp() {
+        changeAdapterLock = new ChangeAdapterLock(ReadMode.SNAPSHOT);
+    }
+
+    @Test
+    public void readSnapshotWhileWriteLocked() throws InterruptedException {
+        final AtomicReference<String> result = new AtomicReference<>();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result.set(changeAdapterLock.read("snapshot", "data", CONCAT_FUNCTION, "!"));
+            }
+        });
+
+        changeAdapterLock.writeLock().lock();
+
+        try {
+            // The published snapshot is read without waiting for the writer
+            thread.start();
+            thread.join(5000);
+        } finally {
+            changeAdapterLock.writeLock().unlock();
+        }
+
+        assertEquals("Snapshot read", "snapshot!", result.get());
+    }
+
+    @Test
+    public void readWithoutSnapshot() {
+        assertEquals("Live data read", "data!", changeAdapterLock.read(null, "data", CONCAT_FUNCTION, "!"));
+    }
+
+    @Test
+    public void lockedMode() {
+        assertEquals("Live data read", "data!",
+                new ChangeAdapterLock(ReadMode.LOCKED).read("snapshot", "data", CONCAT_FUNCTION, "!"));
+    }
+
+    @Test
+    public void readWhileWriteLockedByCurrentThread() {
+        final ChangeAdapterLock lockedAdapterLock = new ChangeAdapterLock(ReadMode.LOCKED);
+
+        lockedAdapterLock.writeLock().lock();
+
+        try {
+            // Observers notified under the write lock may still read the live data
+            assertEquals("Live data read", "data!", lockedAdapterLock.read("snapshot", "data", CONCAT_FUNCTION, "!"));
+        } finally {
+            lockedAdapterLock.writeLock().unlock();
+        }
+    }
+}
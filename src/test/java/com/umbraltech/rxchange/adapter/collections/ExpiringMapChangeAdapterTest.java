@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import com.umbraltech.rxchange.type.ChangeType;
+import io.reactivex.schedulers.TestScheduler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ExpiringMapChangeAdapterTest {
+    private TestScheduler testScheduler;
+    private ExpiringMapChangeAdapter<Integer, String> changeAdapter;
+    private List<MetaChangeMessage<Map<Integer, String>, ?>> changeMessageList;
+
+    @Before
+    public void setUp() {
+        testScheduler = new TestScheduler();
+        changeAdapter = new ExpiringMapChangeAdapter<>(10, TimeUnit.MILLISECONDS, testScheduler);
+        changeMessageList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, String>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, String>> changeMessage) {
+                changeMessageList.add((MetaChangeMessage<Map<Integer, String>, ?>) changeMessage);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        changeAdapter.dispose();
+    }
+
+    @Test
+    public void addRemove() {
+        assertTrue("Add", changeAdapter.add(1, "a", 1, TimeUnit.SECONDS));
+        assertFalse("Add existing", changeAdapter.add(1, "b", 1, TimeUnit.SECONDS));
+        assertTrue("Remove", changeAdapter.remove(1));
+        assertFalse("Remove nonexistent", changeAdapter.remove(1));
+
+        // The removed entry no longer expires
+        testScheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+
+        assertEquals("Change messages", 2, changeMessageList.size());
+        assertEquals("Change type", ChangeType.ADD, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", Maps.immutableEntry(1, "a"), changeMessageList.get(0).getMetadata());
+        assertEquals("Change type", ChangeType.REMOVE, changeMessageList.get(1).getChangeType());
+    }
+
+    @Test
+    public void expireAfterWrite() {
+        changeAdapter.add(1, "a", 101, TimeUnit.MILLISECONDS);
+        changeAdapter.add(2, "b", 105, TimeUnit.MILLISECONDS);
+        changeAdapter.add(3, "c", 1, TimeUnit.HOURS);
+        changeMessageList.clear();
+
+        testScheduler.advanceTimeBy(90, TimeUnit.MILLISECONDS);
+        assertEquals("Data", ImmutableMap.of(1, "a", 2, "b", 3, "c"), changeAdapter.getAll());
+
+        // Both entries expire within the same tick
+        testScheduler.advanceTimeBy(20, TimeUnit.MILLISECONDS);
+
+        assertEquals("Data", ImmutableMap.of(3, "c"), changeAdapter.getAll());
+        assertEquals("Change messages", 1, changeMessageList.size());
+        assertEquals("Change type", ChangeType.EXPIRE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", ImmutableMap.of(1, "a", 2, "b"), changeMessageList.get(0).getMetadata());
+        assertEquals("Old data", ImmutableMap.of(1, "a", 2, "b", 3, "c"), changeMessageList.get(0).getOldData());
+
+        testScheduler.advanceTimeBy(1, TimeUnit.HOURS);
+        assertEquals("Size", 0, changeAdapter.size());
+    }
+
+    @Test
+    public void updateRestartsLifetime() {
+        changeAdapter.add(1, "a", 100, TimeUnit.MILLISECONDS);
+
+        testScheduler.advanceTimeBy(80, TimeUnit.MILLISECONDS);
+        assertTrue("Update", changeAdapter.update(1, "b"));
+        assertFalse("Update nonexistent", changeAdapter.update(2, "b"));
+
+        testScheduler.advanceTimeBy(80, TimeUnit.MILLISECONDS);
+        assertEquals("Get", "b", changeAdapter.get(1));
+
+        testScheduler.advanceTimeBy(40, TimeUnit.MILLISECONDS);
+        assertFalse("Contains expired", changeAdapter.containsKey(1));
+        assertEquals("Change type", ChangeType.UPDATE, changeMessageList.get(1).getChangeType());
+        assertEquals("Change type", ChangeType.EXPIRE, changeMessageList.get(2).getChangeType());
+    }
+
+    @Test
+    public void expireAfterAccess() {
+        changeAdapter.add(1, "a", 100, TimeUnit.MILLISECONDS, ExpirationMode.AFTER_ACCESS);
+        changeAdapter.add(2, "b", 100, TimeUnit.MILLISECONDS);
+
+        // Reading keeps the idle entry alive, but not the other
+        for (int i = 0; i < 5; i++) {
+            testScheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+            assertEquals("Get", "a", changeAdapter.get(1));
+        }
+
+        assertFalse("Contains expired", changeAdapter.containsKey(2));
+
+        testScheduler.advanceTimeBy(110, TimeUnit.MILLISECONDS);
+        assertEquals("Size", 0, changeAdapter.size());
+    }
+
+    @Test
+    public void dispose() {
+        changeAdapter.add(1, "a", 100, TimeUnit.MILLISECONDS);
+        changeAdapter.dispose();
+
+        testScheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+        assertTrue("Contains", changeAdapter.containsKey(1));
+
+        assertTrue("Expire", changeAdapter.expire());
+        assertFalse("Contains expired", changeAdapter.containsKey(1));
+    }
+}
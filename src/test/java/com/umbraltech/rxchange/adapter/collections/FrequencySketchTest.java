@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrequencySketchTest {
+
+    @Test
+    public void increment() {
+        final FrequencySketch frequencySketch = new FrequencySketch(1000);
+
+        for (int i = 0; i < 5; i++) {
+            frequencySketch.increment("a");
+        }
+
+        frequencySketch.increment("b");
+
+        assertEquals("Frequency", 5, frequencySketch.frequency("a"));
+        assertEquals("Frequency", 1, frequencySketch.frequency("b"));
+        assertEquals("Frequency of absent key", 0, frequencySketch.frequency("c"));
+    }
+
+    @Test
+    public void saturate() {
+        final FrequencySketch frequencySketch = new FrequencySketch(1000);
+
+        for (int i = 0; i < 100; i++) {
+            frequencySketch.increment("a");
+        }
+
+        assertEquals("Frequency", 15, frequencySketch.frequency("a"));
+
+        // Saturated counters do not carry over into the neighbouring counters of their word
+        assertEquals("Frequency of other key", 0, frequencySketch.frequency("b"));
+    }
+
+    @Test
+    public void reset() {
+        final FrequencySketch frequencySketch = new FrequencySketch(1);
+
+        // The counters are halved after ten increments
+        for (int i = 0; i < 8; i++) {
+            frequencySketch.increment("a");
+        }
+
+        assertEquals("Frequency", 8, frequencySketch.frequency("a"));
+
+        frequencySketch.increment("b");
+        frequencySketch.increment("b");
+
+        assertEquals("Halved frequency", 4, frequencySketch.frequency("a"));
+        assertEquals("Halved frequency", 1, frequencySketch.frequency("b"));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+public class IndexedListTest {
+    private IndexedList<Integer> indexedList;
+
+    @Before
+    public void setUp() {
+        indexedList = new IndexedList<>();
+        indexedList.addAll(ImmutableList.of(0, 1, 2, 1));
+    }
+
+    @Test
+    public void contains() {
+        assertTrue("Contains", indexedList.contains(1));
+        assertFalse("Contains nonexistent", indexedList.contains(3));
+        assertTrue("Contains all", indexedList.containsAll(ImmutableList.of(0, 2)));
+        assertFalse("Contains all nonexistent", indexedList.containsAll(ImmutableList.of(0, 3)));
+    }
+
+    @Test
+    public void indexOf() {
+        assertEquals("Index", 1, indexedList.indexOf(1));
+        assertEquals("Last index", 3, indexedList.lastIndexOf(1));
+        assertEquals("Index nonexistent", -1, indexedList.indexOf(3));
+    }
+
+    @Test
+    public void remove() {
+        assertTrue("Remove", indexedList.remove((Integer) 1));
+        assertEquals("Data", ImmutableList.of(0, 2, 1), indexedList);
+        assertTrue("Contains remaining occurrence", indexedList.contains(1));
+
+        assertTrue("Remove last occurrence", indexedList.remove((Integer) 1));
+        assertFalse("Contains removed", indexedList.contains(1));
+        assertFalse("Remove nonexistent", indexedList.remove((Integer) 1));
+
+        assertEquals("Remove at", (Integer) 0, indexedList.remove(0));
+        assertFalse("Contains removed at", indexedList.contains(0));
+    }
+
+    @Test
+    public void removeAll() {
+        assertTrue("Remove all", indexedList.removeAll(ImmutableList.of(1, 2)));
+        assertEquals("Data", ImmutableList.of(0), indexedList);
+        assertFalse("Contains removed", indexedList.contains(1));
+        assertFalse("Remove all nonexistent", indexedList.removeAll(ImmutableSet.of(3)));
+    }
+
+    @Test
+    public void set() {
+        assertEquals("Set", (Integer) 0, indexedList.set(0, 3));
+        assertFalse("Contains replaced", indexedList.contains(0));
+        assertTrue("Contains set", indexedList.contains(3));
+
+        indexedList.add(1, 4);
+
+        assertEquals("Data", ImmutableList.of(3, 4, 1, 2, 1), indexedList);
+        assertTrue("Contains added", indexedList.contains(4));
+    }
+
+    @Test
+    public void iteratorRemove() {
+        final Iterator<Integer> iterator = indexedList.iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next() == 1) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals("Data", ImmutableList.of(0, 2), indexedList);
+        assertFalse("Contains removed", indexedList.contains(1));
+    }
+}
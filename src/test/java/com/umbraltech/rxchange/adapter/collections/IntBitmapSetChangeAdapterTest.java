@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import com.umbraltech.rxchange.type.ChangeType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IntBitmapSetChangeAdapterTest {
+    private IntBitmapSetChangeAdapter changeAdapter;
+    private List<MetaChangeMessage<IntBitmap, ?>> changeMessageList;
+
+    @Before
+    public void setUp() {
+        changeAdapter = new IntBitmapSetChangeAdapter(IntBitmap.of(1, 2, 3));
+        changeMessageList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<IntBitmap>() {
+            @Override
+            public void onNext(ChangeMessage<IntBitmap> changeMessage) {
+                changeMessageList.add((MetaChangeMessage<IntBitmap, ?>) changeMessage);
+            }
+        });
+    }
+
+    @Test
+    public void add() {
+        assertTrue("Add", changeAdapter.add(4));
+        assertFalse("Add existing", changeAdapter.add(4));
+
+        assertEquals("Data", IntBitmap.of(1, 2, 3, 4), changeAdapter.getAll());
+        assertEquals("Change messages", 1, changeMessageList.size());
+        assertEquals("Change type", ChangeType.ADD, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", 4, changeMessageList.get(0).getMetadata());
+        assertEquals("Old data", IntBitmap.of(1, 2, 3), changeMessageList.get(0).getOldData());
+    }
+
+    @Test
+    public void remove() {
+        assertTrue("Remove", changeAdapter.remove(2));
+        assertFalse("Remove nonexistent", changeAdapter.remove(2));
+
+        assertEquals("Data", IntBitmap.of(1, 3), changeAdapter.getAll());
+        assertFalse("Contains", changeAdapter.contains(2));
+        assertEquals("Change messages", 1, changeMessageList.size());
+        assertEquals("Change type", ChangeType.REMOVE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", 2, changeMessageList.get(0).getMetadata());
+    }
+
+    @Test
+    public void union() {
+        assertTrue("Union", changeAdapter.union(IntBitmap.of(3, 4, 100000)));
+        assertFalse("Union existing", changeAdapter.union(IntBitmap.of(1, 4)));
+
+        assertEquals("Data", IntBitmap.of(1, 2, 3, 4, 100000), changeAdapter.getAll());
+        assertEquals("Size", 5, changeAdapter.size());
+        assertEquals("Change messages", 1, changeMessageList.size());
+        assertEquals("Change type", ChangeType.ADD, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", IntBitmap.of(4, 100000), changeMessageList.get(0).getMetadata());
+    }
+
+    @Test
+    public void intersect() {
+        assertTrue("Intersect", changeAdapter.intersect(IntBitmap.of(2, 3, 4)));
+        assertFalse("Intersect superset", changeAdapter.intersect(IntBitmap.of(2, 3, 4)));
+
+        assertEquals("Data", IntBitmap.of(2, 3), changeAdapter.getAll());
+        assertEquals("Change messages", 1, changeMessageList.size());
+        assertEquals("Change type", ChangeType.REMOVE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", IntBitmap.of(1), changeMessageList.get(0).getMetadata());
+    }
+
+    @Test
+    public void difference() {
+        assertTrue("Difference", changeAdapter.difference(IntBitmap.of(2, 3, 4)));
+        assertFalse("Difference nonexistent", changeAdapter.difference(IntBitmap.of(2, 4)));
+
+        assertEquals("Data", IntBitmap.of(1), changeAdapter.getAll());
+        assertEquals("Change messages", 1, changeMessageList.size());
+        assertEquals("Change type", ChangeType.REMOVE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", IntBitmap.of(2, 3), changeMessageList.get(0).getMetadata());
+        assertEquals("New data", IntBitmap.of(1), changeMessageList.get(0).getNewData());
+    }
+}
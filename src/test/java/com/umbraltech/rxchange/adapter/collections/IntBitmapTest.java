@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class IntBitmapTest {
+
+    @Test
+    public void withWithout() {
+        final IntBitmap bitmap = IntBitmap.of(3, 1, 70000, 1);
+
+        assertEquals("Cardinality", 3, bitmap.getCardinality());
+        assertTrue("Contains", bitmap.contains(70000));
+        assertFalse("Contains absent", bitmap.contains(2));
+        assertSame("With existing", bitmap, bitmap.with(3));
+        assertSame("Without absent", bitmap, bitmap.without(2));
+
+        final IntBitmap newBitmap = bitmap.with(2).without(70000);
+
+        assertEquals("Data", IntBitmap.of(1, 2, 3), newBitmap);
+        assertEquals("Old data", IntBitmap.of(1, 3, 70000), bitmap);
+        assertTrue("Empty", newBitmap.without(1).without(2).without(3).isEmpty());
+    }
+
+    @Test
+    public void denseContainers() {
+        IntBitmap bitmap = IntBitmap.empty();
+
+        // Grow past the array limit, so that the container is converted to a bitmap and back
+        for (int i = 0; i < 10000; i += 2) {
+            bitmap = bitmap.with(i);
+        }
+
+        assertEquals("Cardinality", 5000, bitmap.getCardinality());
+        assertTrue("Contains", bitmap.contains(9998));
+        assertFalse("Contains absent", bitmap.contains(9999));
+
+        for (int i = 0; i < 2000; i += 2) {
+            bitmap = bitmap.without(i);
+        }
+
+        assertEquals("Cardinality", 4000, bitmap.getCardinality());
+        assertEquals("Equal across representations", IntBitmap.of(bitmap.toArray()), bitmap);
+        assertEquals("First", 2000, bitmap.iterator().next().intValue());
+    }
+
+    @Test
+    public void unsignedOrder() {
+        final IntBitmap bitmap = IntBitmap.of(-1, 5, Integer.MIN_VALUE, 0);
+
+        assertEquals("Data", ImmutableList.of(0, 5, Integer.MIN_VALUE, -1), ImmutableList.copyOf(bitmap));
+    }
+
+    @Test
+    public void bulkOperations() {
+        final Random random = new Random(42);
+
+        // Compare against sets of integers, mixing sparse and dense containers
+        for (int i = 0; i < 20; i++) {
+            final Set<Integer> firstSet = randomSet(random);
+            final Set<Integer> secondSet = randomSet(random);
+            final IntBitmap firstBitmap = IntBitmap.of(Ints.toArray(firstSet));
+            final IntBitmap secondBitmap = IntBitmap.of(Ints.toArray(secondSet));
+
+            assertEquals("Union", bitmapOf(Sets.union(firstSet, secondSet)), firstBitmap.or(secondBitmap));
+            assertEquals("Intersection", bitmapOf(Sets.intersection(firstSet, secondSet)),
+                    firstBitmap.and(secondBitmap));
+            assertEquals("Difference", bitmapOf(Sets.difference(firstSet, secondSet)),
+                    firstBitmap.andNot(secondBitmap));
+            assertEquals("Data", ImmutableList.copyOf(firstSet), ImmutableList.copyOf(firstBitmap));
+        }
+    }
+
+    private static Set<Integer> randomSet(final Random random) {
+        final Set<Integer> set = new TreeSet<>();
+        final int count = random.nextInt(20000);
+        final int range = random.nextBoolean() ? 3 * 65536 : 20000;
+
+        for (int i = 0; i < count; i++) {
+            set.add(random.nextInt(range));
+        }
+
+        return set;
+    }
+
+    private static IntBitmap bitmapOf(final Set<Integer> set) {
+        return IntBitmap.of(Ints.toArray(set));
+    }
+}
@@ -16,17 +16,27 @@
 
 package com.umbraltech.rxchange.adapter.collections;
 
+import com.google.common.base.Equivalence;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.umbraltech.rxchange.filter.ChangeTypeFilter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.observer.BatchChangeMessageObserver;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
 import com.umbraltech.rxchange.type.ChangeType;
 import com.umbraltech.rxchange.util.ChangePayloadTestObserver;
 import com.umbraltech.rxchange.util.InvocationFailObserver;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.TestScheduler;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -296,4 +306,249 @@ public class ListChangeAdapterTest {
 
         assertEquals("Get all", testList, changeAdapter.getAll());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void size() {
+        // Set up initial values
+        changeAdapter.addAll(testList);
+
+        assertEquals("Size", testList.size(), changeAdapter.size());
+    }
+
+    @Test
+    public void contains() {
+        // Set up initial values
+        changeAdapter.addAll(testList);
+
+        assertTrue("Contains", changeAdapter.contains(0));
+        assertFalse("Contains nonexistent", changeAdapter.contains(3));
+    }
+
+    @Test
+    public void forEach() {
+        final List<Integer> resultList = new ArrayList<>();
+
+        // Set up initial values
+        changeAdapter.addAll(testList);
+
+        changeAdapter.forEach(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer data) {
+                resultList.add(data);
+            }
+        });
+
+        assertEquals("For each", ImmutableList.copyOf(testList), resultList);
+    }
+
+    @Test
+    public void read() {
+        // Set up initial values
+        changeAdapter.addAll(testList);
+
+        final Boolean result = changeAdapter.read(new Function<List<Integer>, Boolean>() {
+            @Override
+            public Boolean apply(List<Integer> dataList) {
+                return dataList.containsAll(testList);
+            }
+        });
+
+        assertTrue("Read", result);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnlyView() {
+        changeAdapter.read(new Function<List<Integer>, Boolean>() {
+            @Override
+            public Boolean apply(List<Integer> dataList) {
+                return dataList.add(0);
+            }
+        });
+    }
+
+    @Test
+    public void readSnapshot() {
+        changeAdapter = new ListChangeAdapter<>(testList, ReadMode.SNAPSHOT);
+
+        final List<List<Integer>> snapshotList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<List<Integer>>() {
+            @Override
+            public void onNext(ChangeMessage<List<Integer>> changeMessage) {
+                snapshotList.add(changeMessage.getNewData());
+            }
+        });
+
+        assertEquals("Initial snapshot", testList, changeAdapter.getAll());
+        assertTrue("Add", changeAdapter.add(3));
+
+        // The published snapshot is shared with the change message
+        assertSame("Published snapshot", snapshotList.get(0), changeAdapter.getAll());
+        assertTrue("Contains", changeAdapter.contains(3));
+        assertEquals("Size", 4, changeAdapter.size());
+    }
+
+    @Test
+    public void storageIndexed() {
+        changeAdapter = new ListChangeAdapter<>(ImmutableList.of(0, 1, 2, 1), ReadMode.LOCKED, ListStorage.INDEXED);
+
+        final List<MetaChangeMessage<List<Integer>, ?>> changeMessageList = observeMetaChangeMessages();
+
+        assertTrue("Contains", changeAdapter.contains(1));
+        assertTrue("Remove", changeAdapter.remove(1));
+        assertFalse("Remove nonexistent", changeAdapter.remove(3));
+        assertEquals("Data", ImmutableList.of(0, 2, 1), changeAdapter.getAll());
+
+        assertTrue("Remove all", changeAdapter.removeAll(ImmutableList.of(1, 2)));
+        assertFalse("Remove all nonexistent", changeAdapter.removeAll(ImmutableList.of(0, 3)));
+        assertFalse("Contains removed", changeAdapter.contains(1));
+        assertEquals("Data", ImmutableList.of(0), changeAdapter.getAll());
+
+        assertEquals("Change messages", 2, changeMessageList.size());
+        assertEquals("Metadata", 1, changeMessageList.get(0).getMetadata());
+        assertEquals("Batch metadata", ImmutableList.of(1, 2), changeMessageList.get(1).getMetadata());
+    }
+
+    @Test
+    public void storageTree() {
+        changeAdapter = new ListChangeAdapter<>(testList, ReadMode.LOCKED, ListStorage.TREE);
+
+        final List<MetaChangeMessage<List<Integer>, ?>> changeMessageList = observeMetaChangeMessages();
+
+        assertTrue("Add at", changeAdapter.addAt(1, 3));
+        assertTrue("Remove at", changeAdapter.removeAt(3));
+        assertTrue("Update", changeAdapter.update(0, 4));
+        assertTrue("Remove", changeAdapter.remove(1));
+        assertTrue("Remove all", changeAdapter.removeAll(ImmutableList.of(3)));
+
+        assertEquals("Data", ImmutableList.of(4), changeAdapter.getAll());
+        assertEquals("Get", (Integer) 4, changeAdapter.get(0));
+        assertEquals("Size", 1, changeAdapter.size());
+
+        // Snapshots are unaffected by later changes
+        assertEquals("Old data", testList, changeMessageList.get(0).getOldData());
+        assertEquals("New data", ImmutableList.of(0, 3, 1, 2), changeMessageList.get(0).getNewData());
+        assertEquals("Updated data", ImmutableList.of(4, 3, 1), changeMessageList.get(2).getNewData());
+    }
+
+    @Test
+    public void getBatchedObservable() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final List<List<ChangeMessage<List<Integer>>>> batchList = new ArrayList<>();
+
+        changeAdapter.getBatchedObservable(10, 1, TimeUnit.SECONDS, testScheduler)
+                .subscribe(new BatchChangeMessageObserver<List<Integer>>() {
+                    @Override
+                    public void onNext(List<ChangeMessage<List<Integer>>> changeMessages) {
+                        batchList.add(changeMessages);
+                    }
+                });
+
+        changeAdapter.add(0);
+        changeAdapter.add(1);
+        assertTrue("Not emitted before delay", batchList.isEmpty());
+
+        testScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        assertEquals("Batch count", 1, batchList.size());
+        assertEquals("Batch size", 2, batchList.get(0).size());
+        assertEquals("Batch order", ChangeType.ADD, batchList.get(0).get(1).getChangeType());
+    }
+
+    @Test
+    public void equivalence() {
+        changeAdapter.addAll(testList);
+        changeAdapter.setEquivalence(Equivalence.equals());
+
+        changeAdapter.getObservable()
+                .subscribe(new InvocationFailObserver<List<Integer>>("Change emitted for equal value"));
+
+        assertFalse("Equal update", changeAdapter.update(1, 1));
+        assertEquals("Suppressed count", 1, changeAdapter.getSuppressedUpdateCount());
+    }
+
+    @Test
+    public void addAllPresent() {
+        changeAdapter.add(1);
+
+        final List<MetaChangeMessage<List<Integer>, ?>> changeMessageList = observeMetaChangeMessages();
+
+        assertEquals("Applied elements", BitSet.valueOf(new long[]{0b101}),
+                changeAdapter.addAllPresent(Lists.newArrayList(0, 1, 2, 0)));
+        assertEquals("Metadata", ImmutableList.of(0, 2), changeMessageList.get(0).getMetadata());
+        assertEquals("Added in order", ImmutableList.of(1, 0, 2), changeAdapter.getAll());
+    }
+
+    @Test
+    public void removeAllPresent() {
+        changeAdapter.addAll(Lists.newArrayList(0, 1, 0, 2));
+
+        final List<MetaChangeMessage<List<Integer>, ?>> changeMessageList = observeMetaChangeMessages();
+
+        assertEquals("Applied elements", BitSet.valueOf(new long[]{0b101}),
+                changeAdapter.removeAllPresent(Lists.newArrayList(0, 3, 2)));
+        assertEquals("Change type", ChangeType.REMOVE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", ImmutableList.of(0, 2), changeMessageList.get(0).getMetadata());
+        assertEquals("First occurrence removed", ImmutableList.of(1, 0), changeAdapter.getAll());
+    }
+
+    @Test
+    public void snapshotReuse() {
+        final List<MetaChangeMessage<List<Integer>, ?>> changeMessageList = observeMetaChangeMessages();
+
+        changeAdapter.add(0);
+        changeAdapter.update(0, 1);
+
+        assertSame("Old data", changeMessageList.get(0).getNewData(), changeMessageList.get(1).getOldData());
+        assertSame("Current snapshot", changeMessageList.get(1).getNewData(), changeAdapter.getAll());
+        assertSame("Repeated snapshot", changeAdapter.getAll(), changeAdapter.getAll());
+    }
+
+    @Test
+    public void observeRange() {
+        changeAdapter = new ListChangeAdapter<>(ImmutableList.of(0, 1, 2, 3, 4, 5));
+
+        final List<ChangeMessage<List<Integer>>> changeMessageList = new ArrayList<>();
+
+        changeAdapter.observeRange(2, 4).subscribe(new ChangeMessageObserver<List<Integer>>() {
+            @Override
+            public void onNext(ChangeMessage<List<Integer>> changeMessage) {
+                changeMessageList.add(changeMessage);
+            }
+        });
+
+        // Changes after the window are not emitted
+        assertTrue("Update after window", changeAdapter.update(5, 6));
+        assertTrue("Add after window", changeAdapter.add(7));
+        assertEquals("Changes after window", 0, changeMessageList.size());
+
+        // Changes before the window shift its contents
+        assertTrue("Remove before window", changeAdapter.removeAt(0));
+        assertEquals("Old window", ImmutableList.of(2, 3), changeMessageList.get(0).getOldData());
+        assertEquals("New window", ImmutableList.of(3, 4), changeMessageList.get(0).getNewData());
+        assertEquals("Change type", ChangeType.REMOVE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", 0, ((MetaChangeMessage<?, ?>) changeMessageList.get(0)).getMetadata());
+
+        assertTrue("Update in window", changeAdapter.update(3, 8));
+        assertEquals("Updated window", ImmutableList.of(3, 8), changeMessageList.get(1).getNewData());
+        assertEquals("Changes", 2, changeMessageList.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void observeRangeInvalid() {
+        changeAdapter.observeRange(2, 1);
+    }
+
+    private List<MetaChangeMessage<List<Integer>, ?>> observeMetaChangeMessages() {
+        final List<MetaChangeMessage<List<Integer>, ?>> changeMessageList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<List<Integer>>() {
+            @Override
+            public void onNext(ChangeMessage<List<Integer>> changeMessage) {
+                changeMessageList.add((MetaChangeMessage<List<Integer>, ?>) changeMessage);
+            }
+        });
+
+        return changeMessageList;
+    }
+}
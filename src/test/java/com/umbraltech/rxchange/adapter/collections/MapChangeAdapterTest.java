@@ -16,18 +16,40 @@
 
 package com.umbraltech.rxchange.adapter.collections;
 
+import com.google.common.base.Equivalence;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.umbraltech.rxchange.dispatch.ChangeEventHandler;
+import com.umbraltech.rxchange.dispatch.ChangeRingBuffer;
+import com.umbraltech.rxchange.dispatch.WaitStrategy;
 import com.umbraltech.rxchange.filter.ChangeTypeFilter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import com.umbraltech.rxchange.observer.BatchChangeMessageObserver;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
 import com.umbraltech.rxchange.type.ChangeType;
 import com.umbraltech.rxchange.util.ChangePayloadTestObserver;
 import com.umbraltech.rxchange.util.InvocationFailObserver;
+import io.reactivex.functions.BiConsumer;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.TestScheduler;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -285,4 +307,535 @@ public class MapChangeAdapterTest {
 
         assertEquals("Get all", testMap, changeAdapter.getAll());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void size() {
+        // Set up initial values
+        changeAdapter.addAll(testMap);
+
+        assertEquals("Size", testMap.size(), changeAdapter.size());
+    }
+
+    @Test
+    public void contains() {
+        // Set up initial values
+        changeAdapter.addAll(testMap);
+
+        assertTrue("Contains", changeAdapter.contains(0));
+        assertFalse("Contains nonexistent", changeAdapter.contains(3));
+    }
+
+    @Test
+    public void forEach() {
+        final Map<Integer, String> resultMap = new HashMap<>();
+
+        // Set up initial values
+        changeAdapter.addAll(testMap);
+
+        changeAdapter.forEach(new BiConsumer<Integer, String>() {
+            @Override
+            public void accept(Integer key, String data) {
+                resultMap.put(key, data);
+            }
+        });
+
+        assertEquals("For each", testMap, resultMap);
+    }
+
+    @Test
+    public void read() {
+        // Set up initial values
+        changeAdapter.addAll(testMap);
+
+        final String result = changeAdapter.read(new Function<Map<Integer, String>, String>() {
+            @Override
+            public String apply(Map<Integer, String> dataMap) {
+                return dataMap.get(1);
+            }
+        });
+
+        assertEquals("Read", "1", result);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnlyView() {
+        changeAdapter.read(new Function<Map<Integer, String>, String>() {
+            @Override
+            public String apply(Map<Integer, String> dataMap) {
+                return dataMap.put(0, "0");
+            }
+        });
+    }
+
+    @Test
+    public void getSnapshotInObserver() {
+        changeAdapter = new MapChangeAdapter<>(testMap, ReadMode.SNAPSHOT);
+
+        // Reading from an observer must not deadlock while the write lock is held
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, String>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, String>> changeMessage) {
+                assertEquals("Get in observer", "3", changeAdapter.get(3));
+                assertEquals("Size in observer", 4, changeAdapter.size());
+            }
+        });
+
+        assertTrue("Add", changeAdapter.add(3, "3"));
+
+        for (final Integer key : testMap.keySet()) {
+            assertEquals("Get", testMap.get(key), changeAdapter.get(key));
+        }
+
+        assertTrue("Contains", changeAdapter.contains(3));
+    }
+
+    @Test
+    public void readSnapshot() {
+        changeAdapter = new MapChangeAdapter<>(testMap, ReadMode.SNAPSHOT);
+
+        final List<Map<Integer, String>> snapshotList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, String>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, String>> changeMessage) {
+                snapshotList.add(changeMessage.getNewData());
+            }
+        });
+
+        final Map<Integer, String> initialSnapshot = changeAdapter.getAll();
+        assertEquals("Initial snapshot", testMap, initialSnapshot);
+
+        assertTrue("Add", changeAdapter.add(3, "3"));
+
+        // The published snapshot is shared with the change message
+        assertSame("Published snapshot", snapshotList.get(0), changeAdapter.getAll());
+        assertEquals("Get", "3", changeAdapter.get(3));
+        assertTrue("Contains", changeAdapter.contains(3));
+        assertEquals("Size", 4, changeAdapter.size());
+        assertEquals("Initial snapshot unchanged", testMap, initialSnapshot);
+    }
+
+    @Test
+    public void ringBuffer() throws InterruptedException {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final ChangeRingBuffer<Map<Integer, String>, Object> ringBuffer = new ChangeRingBuffer<>(4,
+                WaitStrategy.YIELD, executorService);
+        final List<Object> metadataList = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        ringBuffer.addHandler(new ChangeEventHandler<Map<Integer, String>, Object>() {
+            @Override
+            public void onEvent(MutableChangeMessage<Map<Integer, String>, Object> changeMessage, long sequence,
+                                boolean endOfBatch) {
+                metadataList.add(changeMessage.getMetadata());
+                latch.countDown();
+            }
+        });
+
+        ringBuffer.start();
+        changeAdapter.setRingBuffer(ringBuffer);
+
+        changeAdapter.add(0, "0");
+        changeAdapter.update(0, "1");
+
+        try {
+            assertTrue("Published", latch.await(10, TimeUnit.SECONDS));
+            assertEquals("Add metadata", ImmutableMap.of(0, "0").entrySet().iterator().next(),
+                    metadataList.get(0));
+            assertEquals("Update metadata", ImmutableMap.of(0, "1").entrySet().iterator().next(),
+                    metadataList.get(1));
+        } finally {
+            ringBuffer.halt();
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void haltedRingBuffer() {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final ChangeRingBuffer<Map<Integer, String>, Object> ringBuffer = new ChangeRingBuffer<>(4,
+                WaitStrategy.YIELD, executorService);
+
+        try {
+            changeAdapter.setRingBuffer(ringBuffer);
+            fail("Ring buffer accepted before start");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        ringBuffer.start();
+        changeAdapter.setRingBuffer(ringBuffer);
+        ringBuffer.halt();
+
+        try {
+            // Changes are still applied and emitted once the ring buffer is halted
+            for (int i = 0; i < 8; i++) {
+                assertTrue("Add", changeAdapter.add(i, String.valueOf(i)));
+            }
+
+            assertEquals("Size", 8, changeAdapter.size());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getBatchedObservable() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final List<List<ChangeMessage<Map<Integer, String>>>> batchList = new ArrayList<>();
+
+        changeAdapter.getBatchedObservable(10, 1, TimeUnit.SECONDS, testScheduler)
+                .subscribe(new BatchChangeMessageObserver<Map<Integer, String>>() {
+                    @Override
+                    public void onNext(List<ChangeMessage<Map<Integer, String>>> changeMessages) {
+                        batchList.add(changeMessages);
+                    }
+                });
+
+        changeAdapter.add(0, "0");
+        changeAdapter.add(1, "1");
+        assertTrue("Not emitted before delay", batchList.isEmpty());
+
+        testScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        assertEquals("Batch count", 1, batchList.size());
+        assertEquals("Batch size", 2, batchList.get(0).size());
+        assertEquals("Batch order", ChangeType.ADD, batchList.get(0).get(1).getChangeType());
+    }
+
+    @Test
+    public void messagePooling() {
+        changeAdapter = new MapChangeAdapter<>(ImmutableMap.of(0, "0"));
+        changeAdapter.setMessagePooling(true);
+
+        final List<ChangeMessage<Map<Integer, String>>> messageList = new ArrayList<>();
+        final List<Map<Integer, String>> oldDataList = new ArrayList<>();
+        final List<Map<Integer, String>> newDataList = new ArrayList<>();
+        final List<Object> metadataList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, String>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, String>> changeMessage) {
+                final Map.Entry<?, ?> metadata = (Map.Entry<?, ?>) MetaChangeMessage.metadataOf(changeMessage);
+
+                // Pooled change messages are never mistaken for immutable ones
+                assertFalse("Immutable type", changeMessage instanceof MetaChangeMessage);
+
+                // Copy what is kept
+                messageList.add(changeMessage);
+                oldDataList.add(ImmutableMap.copyOf(changeMessage.getOldData()));
+                newDataList.add(ImmutableMap.copyOf(changeMessage.getNewData()));
+                metadataList.add(Maps.immutableEntry(metadata.getKey(), metadata.getValue()));
+            }
+        });
+
+        changeAdapter.add(1, "1");
+        changeAdapter.update(0, "2");
+        changeAdapter.remove(1);
+
+        assertSame("Change message reused", messageList.get(0), messageList.get(2));
+        assertEquals("Old data", Lists.newArrayList(ImmutableMap.of(0, "0"), ImmutableMap.of(0, "0", 1, "1"),
+                ImmutableMap.of(0, "2", 1, "1")), oldDataList);
+        assertEquals("New data", Lists.newArrayList(ImmutableMap.of(0, "0", 1, "1"),
+                ImmutableMap.of(0, "2", 1, "1"), ImmutableMap.of(0, "2")), newDataList);
+        assertEquals("Metadata", Lists.newArrayList(Maps.immutableEntry(1, "1"), Maps.immutableEntry(0, "2"),
+                Maps.immutableEntry(1, "1")), metadataList);
+    }
+
+    @Test
+    public void messagePoolingBatched() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final List<List<ChangeMessage<Map<Integer, String>>>> batchList = new ArrayList<>();
+
+        changeAdapter = new MapChangeAdapter<>(ImmutableMap.of(0, "0"));
+        changeAdapter.setMessagePooling(true);
+        changeAdapter.getBatchedObservable(10, 1, TimeUnit.SECONDS, testScheduler)
+                .subscribe(new BatchChangeMessageObserver<Map<Integer, String>>() {
+                    @Override
+                    public void onNext(List<ChangeMessage<Map<Integer, String>>> changeMessages) {
+                        batchList.add(changeMessages);
+                    }
+                });
+
+        changeAdapter.add(1, "1");
+        changeAdapter.update(0, "2");
+        changeAdapter.remove(1);
+        testScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        // The buffered change messages are copies that outlive their delivery
+        final List<ChangeMessage<Map<Integer, String>>> batch = batchList.get(0);
+        assertEquals("Batch size", 3, batch.size());
+        assertNotSame("Change message copied", batch.get(0), batch.get(2));
+        assertEquals("Old data", ImmutableMap.of(0, "0", 1, "1"), batch.get(1).getOldData());
+        assertEquals("New data", ImmutableMap.of(0, "2", 1, "1"), batch.get(1).getNewData());
+        assertEquals("Change type", ChangeType.REMOVE, batch.get(2).getChangeType());
+        assertEquals("Metadata", Maps.immutableEntry(1, "1"),
+                ((MetaChangeMessage<Map<Integer, String>, ?>) batch.get(2)).getMetadata());
+        assertEquals("Final data", ImmutableMap.of(0, "2"), batch.get(2).getNewData());
+    }
+
+    @Test
+    public void messagePoolingNested() {
+        changeAdapter.setMessagePooling(true);
+
+        final List<Map<Integer, String>> oldDataList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, String>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, String>> changeMessage) {
+                oldDataList.add(ImmutableMap.copyOf(changeMessage.getOldData()));
+
+                // Nested change made while the pooled change message is delivered
+                if (oldDataList.size() == 1) {
+                    changeAdapter.add(1, "1");
+                }
+            }
+        });
+
+        changeAdapter.add(0, "0");
+
+        assertEquals("Nested change delivered", 2, oldDataList.size());
+        assertEquals("Nested old data", ImmutableMap.of(0, "0"), oldDataList.get(1));
+    }
+
+    @Test
+    public void compute() {
+        changeAdapter = new MapChangeAdapter<>(ImmutableMap.of(0, "a"));
+
+        final List<ChangeType> changeTypeList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, String>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, String>> changeMessage) {
+                changeTypeList.add(changeMessage.getChangeType());
+            }
+        });
+
+        final BiFunction<Integer, String, String> appendFunction = new BiFunction<Integer, String, String>() {
+            @Override
+            public String apply(Integer key, String data) {
+                return (data == null) ? "x" : data + "b";
+            }
+        };
+
+        final BiFunction<Integer, String, String> removeFunction = new BiFunction<Integer, String, String>() {
+            @Override
+            public String apply(Integer key, String data) {
+                return null;
+            }
+        };
+
+        assertEquals("Compute existing", "ab", changeAdapter.compute(0, appendFunction));
+        assertEquals("Compute absent", "x", changeAdapter.compute(1, appendFunction));
+        assertNull("Compute removal", changeAdapter.compute(1, removeFunction));
+        assertNull("Compute absent removal", changeAdapter.compute(1, removeFunction));
+        assertNull("Compute if present absent", changeAdapter.computeIfPresent(2, appendFunction));
+        assertEquals("Compute if present", "abb", changeAdapter.computeIfPresent(0, appendFunction));
+        assertEquals("Compute unchanged", "abb", changeAdapter.compute(0, new BiFunction<Integer, String, String>() {
+            @Override
+            public String apply(Integer key, String data) {
+                return new String(data);
+            }
+        }));
+
+        assertEquals("Change types", Lists.newArrayList(ChangeType.UPDATE, ChangeType.ADD, ChangeType.REMOVE,
+                ChangeType.UPDATE), changeTypeList);
+    }
+
+    @Test
+    public void computeIfAbsent() {
+        final Function<Integer, String> valueFunction = new Function<Integer, String>() {
+            @Override
+            public String apply(Integer key) {
+                return String.valueOf(key);
+            }
+        };
+
+        assertEquals("Compute absent", "0", changeAdapter.computeIfAbsent(0, valueFunction));
+
+        changeAdapter.getObservable()
+                .subscribe(new InvocationFailObserver<Map<Integer, String>>("Change emitted for existing entry"));
+
+        assertEquals("Compute existing", "0", changeAdapter.computeIfAbsent(0, valueFunction));
+        assertEquals("Put if absent existing", "0", changeAdapter.putIfAbsent(0, "1"));
+    }
+
+    @Test
+    public void merge() {
+        final BiFunction<String, String, String> concatFunction = new BiFunction<String, String, String>() {
+            @Override
+            public String apply(String oldData, String data) {
+                return oldData + data;
+            }
+        };
+
+        assertEquals("Merge absent", "a", changeAdapter.merge(0, "a", concatFunction));
+        assertEquals("Merge existing", "ab", changeAdapter.merge(0, "b", concatFunction));
+
+        changeAdapter.getObservable()
+                .filter(new ChangeTypeFilter(ChangeType.UPDATE))
+                .subscribe(new ChangePayloadTestObserver<>(
+                        Lists.newArrayList((Map<Integer, String>) ImmutableMap.of(0, "ab")),
+                        Lists.newArrayList((Map<Integer, String>) ImmutableMap.of(0, "abc"))));
+
+        assertEquals("Merge emits update", "abc", changeAdapter.merge(0, "c", concatFunction));
+    }
+
+    @Test
+    public void replace() {
+        changeAdapter.addAll(testMap);
+
+        assertFalse("Replace unexpected", changeAdapter.replace(0, "1", "x"));
+        assertFalse("Replace absent", changeAdapter.replace(3, null, "x"));
+
+        changeAdapter.setEquivalence(Equivalence.equals());
+        changeAdapter.getObservable()
+                .subscribe(new InvocationFailObserver<Map<Integer, String>>("Change emitted for unchanged value"));
+
+        assertFalse("Replace unchanged", changeAdapter.replace(0, "0", "0"));
+    }
+
+    @Test
+    public void replaceExpected() {
+        changeAdapter.addAll(testMap);
+
+        assertTrue("Replace expected", changeAdapter.replace(0, "0", "x"));
+        assertEquals("Replaced", "x", changeAdapter.get(0));
+    }
+
+    @Test
+    public void equivalence() {
+        changeAdapter.addAll(ImmutableMap.of(0, new String("a")));
+        changeAdapter.setEquivalence(Equivalence.identity());
+
+        final List<ChangeMessage<Map<Integer, String>>> changeMessageList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, String>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, String>> changeMessage) {
+                changeMessageList.add(changeMessage);
+            }
+        });
+
+        final String data = changeAdapter.get(0);
+
+        assertFalse("Identical update", changeAdapter.update(0, data));
+        assertTrue("Equal but not identical update", changeAdapter.update(0, "a"));
+        assertEquals("Suppressed count", 1, changeAdapter.getSuppressedUpdateCount());
+        assertEquals("Emitted", 1, changeMessageList.size());
+    }
+
+    @Test
+    public void equalValuesWithoutEquivalence() {
+        changeAdapter.addAll(ImmutableMap.of(0, "0", 1, "1"));
+
+        final List<MetaChangeMessage<Map<Integer, String>, ?>> changeMessageList = observeMetaChangeMessages();
+
+        // Without an equivalence, writing an equal value is emitted like an update
+        assertTrue("Update", changeAdapter.update(0, "0"));
+        assertTrue("Replace", changeAdapter.replace(0, "0", "0"));
+        assertEquals("Put all", BitSet.valueOf(new long[]{0b1}), changeAdapter.putAll(ImmutableMap.of(0, "0")));
+
+        // The atomic operations never emit a change for an equal value
+        assertEquals("Compute", "1", changeAdapter.compute(1, new BiFunction<Integer, String, String>() {
+            @Override
+            public String apply(Integer key, String data) {
+                return data;
+            }
+        }));
+
+        assertEquals("Emitted", 3, changeMessageList.size());
+        assertEquals("Suppressed count", 0, changeAdapter.getSuppressedUpdateCount());
+    }
+
+    @Test
+    public void putAll() {
+        changeAdapter.addAll(ImmutableMap.of(0, "0", 1, "1"));
+        changeAdapter.setEquivalence(Equivalence.equals());
+
+        final List<MetaChangeMessage<Map<Integer, String>, ?>> changeMessageList = observeMetaChangeMessages();
+        final BitSet resultSet = changeAdapter.putAll(ImmutableMap.of(0, "0", 1, "x", 2, "2"));
+
+        assertEquals("Applied entries", BitSet.valueOf(new long[]{0b110}), resultSet);
+        assertEquals("Single emission", 1, changeMessageList.size());
+        assertEquals("Change type", ChangeType.UPDATE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", ImmutableMap.of(1, "x", 2, "2"), changeMessageList.get(0).getMetadata());
+        assertEquals("Stored", ImmutableMap.of(0, "0", 1, "x", 2, "2"), changeAdapter.getAll());
+
+        assertTrue("Nothing applied", changeAdapter.putAll(ImmutableMap.of(0, "0")).isEmpty());
+        assertEquals("No emission", 1, changeMessageList.size());
+    }
+
+    @Test
+    public void addAllPresent() {
+        changeAdapter.add(1, "1");
+
+        final List<MetaChangeMessage<Map<Integer, String>, ?>> changeMessageList = observeMetaChangeMessages();
+        final BitSet resultSet = changeAdapter.addAllPresent(ImmutableMap.of(0, "0", 1, "x", 2, "2"));
+
+        assertEquals("Applied entries", BitSet.valueOf(new long[]{0b101}), resultSet);
+        assertEquals("Change type", ChangeType.ADD, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", ImmutableMap.of(0, "0", 2, "2"), changeMessageList.get(0).getMetadata());
+        assertEquals("Existing entry kept", "1", changeAdapter.get(1));
+    }
+
+    @Test
+    public void removeAllPresent() {
+        changeAdapter.addAll(testMap);
+
+        final List<MetaChangeMessage<Map<Integer, String>, ?>> changeMessageList = observeMetaChangeMessages();
+        final BitSet resultSet = changeAdapter.removeAllPresent(ImmutableSet.of(3, 1, 2));
+
+        assertEquals("Applied entries", BitSet.valueOf(new long[]{0b110}), resultSet);
+        assertEquals("Change type", ChangeType.REMOVE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", ImmutableMap.of(1, "1", 2, "2"), changeMessageList.get(0).getMetadata());
+        assertEquals("Remaining", ImmutableMap.of(0, "0"), changeAdapter.getAll());
+    }
+
+    @Test
+    public void snapshotReuse() {
+        final List<MetaChangeMessage<Map<Integer, String>, ?>> changeMessageList = observeMetaChangeMessages();
+
+        changeAdapter.add(0, "0");
+        changeAdapter.update(0, "1");
+
+        assertSame("Old data", changeMessageList.get(0).getNewData(), changeMessageList.get(1).getOldData());
+        assertSame("Current snapshot", changeMessageList.get(1).getNewData(), changeAdapter.getAll());
+        assertSame("Repeated snapshot", changeAdapter.getAll(), changeAdapter.getAll());
+    }
+
+    @Test
+    public void snapshotReuseAfterPooling() {
+        changeAdapter.setMessagePooling(true);
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, String>>());
+
+        final Map<Integer, String> initialSnapshot = changeAdapter.getAll();
+        changeAdapter.add(0, "0");
+
+        final Map<Integer, String> pooledSnapshot = changeAdapter.getAll();
+
+        assertNotSame("Discarded snapshot", initialSnapshot, pooledSnapshot);
+        assertEquals("Data", Collections.singletonMap(0, "0"), pooledSnapshot);
+        assertSame("Repeated snapshot", pooledSnapshot, changeAdapter.getAll());
+
+        changeAdapter.setMessagePooling(false);
+
+        final List<MetaChangeMessage<Map<Integer, String>, ?>> changeMessageList = observeMetaChangeMessages();
+        changeAdapter.add(1, "1");
+
+        assertSame("Old data", pooledSnapshot, changeMessageList.get(0).getOldData());
+    }
+
+    private List<MetaChangeMessage<Map<Integer, String>, ?>> observeMetaChangeMessages() {
+        final List<MetaChangeMessage<Map<Integer, String>, ?>> changeMessageList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, String>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, String>> changeMessage) {
+                changeMessageList.add((MetaChangeMessage<Map<Integer, String>, ?>) changeMessage);
+            }
+        });
+
+        return changeMessageList;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.umbraltech.rxchange.util.InvocationFailObserver;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Function;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MapIndexTest {
+    private MapChangeAdapter<Integer, String> changeAdapter;
+
+    private final Function<String, Integer> lengthFunction = new Function<String, Integer>() {
+        @Override
+        public Integer apply(String data) {
+            return data.length();
+        }
+    };
+
+    private final Function<String, String> identityFunction = new Function<String, String>() {
+        @Override
+        public String apply(String data) {
+            return data;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        changeAdapter = new MapChangeAdapter<>(ImmutableMap.of(0, "a", 1, "bb", 2, "cc", 3, "ddd"));
+    }
+
+    @Test
+    public void get() {
+        final MapIndex<Integer, Integer, String> index = changeAdapter.addIndex(lengthFunction, false);
+
+        assertEquals("Get", ImmutableMap.of(1, "bb", 2, "cc"), index.get(2));
+        assertEquals("Get keys", ImmutableSet.of(1, 2), index.getKeys(2));
+        assertEquals("Count", 2, index.count(2));
+        assertFalse("Contains nonexistent", index.contains(4));
+    }
+
+    @Test
+    public void maintained() {
+        final MapIndex<Integer, Integer, String> index = changeAdapter.addIndex(lengthFunction, false);
+
+        changeAdapter.add(4, "eeee");
+        changeAdapter.update(0, "aa");
+        changeAdapter.remove(3);
+
+        assertEquals("Added", ImmutableMap.of(4, "eeee"), index.get(4));
+        assertEquals("Updated", ImmutableSet.of(0, 1, 2), index.getKeys(2));
+        assertFalse("Old key removed", index.contains(1));
+        assertFalse("Removed", index.contains(3));
+
+        changeAdapter.removeAll(ImmutableSet.of(0, 1, 2));
+        assertEquals("Removed all", 0, index.count(2));
+    }
+
+    @Test
+    public void getRange() {
+        final MapIndex<Integer, Integer, String> index = changeAdapter.addSortedIndex(lengthFunction, null, false);
+
+        final Map<Integer, String> rangeMap = index.getRange(2, true, 3, true);
+
+        assertEquals("Range", ImmutableMap.of(1, "bb", 2, "cc", 3, "ddd"), rangeMap);
+        assertEquals("Range order", Integer.valueOf(3), Iterables.getLast(rangeMap.keySet()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getRangeUnsorted() {
+        changeAdapter.addIndex(lengthFunction, false).getRange(0, true, 1, true);
+    }
+
+    @Test
+    public void unique() {
+        final MapIndex<String, Integer, String> index = changeAdapter.addIndex(identityFunction, true);
+
+        changeAdapter.getObservable()
+                .subscribe(new InvocationFailObserver<Map<Integer, String>>("Change accepted for duplicate value"));
+
+        assertFalse("Add duplicate", changeAdapter.add(4, "a"));
+        assertFalse("Update duplicate", changeAdapter.update(0, "bb"));
+        assertFalse("Add all duplicate", changeAdapter.addAll(ImmutableMap.of(4, "x", 5, "x")));
+        assertEquals("Get single", "a", index.getSingle("a"));
+    }
+
+    @Test
+    public void uniqueSwap() {
+        changeAdapter.addIndex(identityFunction, true);
+
+        assertTrue("Swap values", changeAdapter.updateAll(ImmutableMap.of(1, "cc", 2, "bb")));
+    }
+
+    @Test
+    public void uniqueViolatedByCompute() {
+        changeAdapter.addIndex(identityFunction, true);
+        changeAdapter.getObservable()
+                .subscribe(new InvocationFailObserver<Map<Integer, String>>("Change accepted for duplicate value"));
+
+        final BiFunction<Object, String, String> duplicateFunction = new BiFunction<Object, String, String>() {
+            @Override
+            public String apply(Object key, String data) {
+                return "a";
+            }
+        };
+
+        try {
+            changeAdapter.compute(1, duplicateFunction);
+            fail("Compute accepted duplicate");
+        } catch (IllegalStateException e) {
+            assertTrue("Message names the index", e.getMessage().startsWith(
+                    "Entry for key 1 violates the unique index MapIndex(unique=true, sorted=false"));
+        }
+
+        try {
+            changeAdapter.computeIfPresent(1, duplicateFunction);
+            fail("Compute if present accepted duplicate");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        try {
+            changeAdapter.merge(1, "x", duplicateFunction);
+            fail("Merge accepted duplicate");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        try {
+            changeAdapter.computeIfAbsent(4, new Function<Integer, String>() {
+                @Override
+                public String apply(Integer key) {
+                    return "a";
+                }
+            });
+            fail("Compute if absent accepted duplicate");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        assertEquals("Entry unchanged", "bb", changeAdapter.get(1));
+        assertFalse("Entry not added", changeAdapter.contains(4));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void uniqueViolatedOnRegistration() {
+        changeAdapter.addIndex(lengthFunction, true);
+    }
+
+    @Test
+    public void removeIndex() {
+        final MapIndex<Integer, Integer, String> index = changeAdapter.addIndex(lengthFunction, false);
+
+        assertTrue("Remove index", changeAdapter.removeIndex(index));
+        changeAdapter.add(4, "eeee");
+
+        assertFalse("Index not maintained", index.contains(4));
+    }
+}
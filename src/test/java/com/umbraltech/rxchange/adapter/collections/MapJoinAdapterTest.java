@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapDifference;
+import com.google.common.collect.Maps;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import com.umbraltech.rxchange.type.ChangeType;
+import io.reactivex.functions.BiFunction;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class MapJoinAdapterTest {
+    private MapChangeAdapter<Integer, String> orderAdapter;
+    private MapChangeAdapter<String, String> customerAdapter;
+    private MapJoinAdapter<Integer, String, String, String, String, String> joinAdapter;
+
+    private final List<MetaChangeMessage<Map<Map.Entry<Integer, String>, String>, ?>> messageList = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        // Orders are encoded as "customer:item"
+        orderAdapter = new MapChangeAdapter<>(ImmutableMap.of(0, "a:apple", 1, "b:pear"));
+        customerAdapter = new MapChangeAdapter<>(ImmutableMap.of("a", "Alice"));
+
+        joinAdapter = new MapJoinAdapter<>(
+                orderAdapter, new BiFunction<Integer, String, String>() {
+                    @Override
+                    public String apply(Integer key, String order) {
+                        return order.split(":")[0];
+                    }
+                },
+                customerAdapter, new BiFunction<String, String, String>() {
+                    @Override
+                    public String apply(String key, String customer) {
+                        return key;
+                    }
+                },
+                new BiFunction<String, String, String>() {
+                    @Override
+                    public String apply(String order, String customer) {
+                        return customer + " " + order.split(":")[1];
+                    }
+                });
+
+        joinAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Map.Entry<Integer, String>, String>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Map.Entry<Integer, String>, String>> changeMessage) {
+                messageList.add((MetaChangeMessage<Map<Map.Entry<Integer, String>, String>, ?>) changeMessage);
+            }
+        });
+    }
+
+    @Test
+    public void initialJoin() {
+        assertEquals("Initial join", ImmutableMap.of(Maps.immutableEntry(0, "a"), "Alice apple"),
+                joinAdapter.getAll());
+        assertEquals("Get", "Alice apple", joinAdapter.get(0, "a"));
+        assertNull("Get unmatched", joinAdapter.get(1, "b"));
+    }
+
+    @Test
+    public void addMatchingRight() {
+        assertTrue("Add", customerAdapter.add("b", "Bob"));
+
+        assertEquals("Message count", 1, messageList.size());
+        assertEquals("Change type", ChangeType.ADD, messageList.get(0).getChangeType());
+        assertEquals("Metadata", ImmutableMap.of(Maps.immutableEntry(1, "b"), "Bob pear"),
+                messageList.get(0).getMetadata());
+        assertEquals("Joined size", 2, joinAdapter.getAll().size());
+    }
+
+    @Test
+    public void addUnmatchedLeft() {
+        assertTrue("Add", orderAdapter.add(2, "c:plum"));
+
+        assertEquals("Message count", 0, messageList.size());
+    }
+
+    @Test
+    public void updateRight() {
+        assertTrue("Update", customerAdapter.update("a", "Alicia"));
+
+        assertEquals("Message count", 1, messageList.size());
+        assertEquals("Change type", ChangeType.UPDATE, messageList.get(0).getChangeType());
+        assertEquals("Joined row", "Alicia apple", joinAdapter.get(0, "a"));
+    }
+
+    @Test
+    public void updateLeftJoinKey() {
+        customerAdapter.add("b", "Bob");
+        messageList.clear();
+
+        // Moving the order to another customer removes one row and adds another in a single change
+        assertTrue("Update", orderAdapter.update(0, "b:apple"));
+
+        assertEquals("Message count", 1, messageList.size());
+        assertEquals("Change type", ChangeType.UPDATE, messageList.get(0).getChangeType());
+        assertEquals("Old data", ImmutableMap.of(Maps.immutableEntry(0, "a"), "Alice apple",
+                Maps.immutableEntry(1, "b"), "Bob pear"), messageList.get(0).getOldData());
+        assertEquals("New data", ImmutableMap.of(Maps.immutableEntry(0, "b"), "Bob apple",
+                Maps.immutableEntry(1, "b"), "Bob pear"), messageList.get(0).getNewData());
+
+        final MapDifference<?, ?> difference = (MapDifference<?, ?>) messageList.get(0).getMetadata();
+        assertEquals("Removed rows", ImmutableMap.of(Maps.immutableEntry(0, "a"), "Alice apple"),
+                difference.entriesOnlyOnLeft());
+        assertEquals("Added rows", ImmutableMap.of(Maps.immutableEntry(0, "b"), "Bob apple"),
+                difference.entriesOnlyOnRight());
+        assertNull("Old row", joinAdapter.get(0, "a"));
+        assertEquals("New row", "Bob apple", joinAdapter.get(0, "b"));
+    }
+
+    @Test
+    public void removeLeft() {
+        assertTrue("Remove", orderAdapter.remove(0));
+
+        assertEquals("Message count", 1, messageList.size());
+        assertEquals("Change type", ChangeType.REMOVE, messageList.get(0).getChangeType());
+        assertTrue("Joined map empty", joinAdapter.getAll().isEmpty());
+    }
+
+    @Test
+    public void nullJoinedRow() {
+        final AtomicBoolean nullRows = new AtomicBoolean(true);
+        final MapJoinAdapter<Integer, String, String, String, String, String> nullJoinAdapter =
+                new MapJoinAdapter<>(
+                        orderAdapter, new BiFunction<Integer, String, String>() {
+                            @Override
+                            public String apply(Integer key, String order) {
+                                return order.split(":")[0];
+                            }
+                        },
+                        customerAdapter, new BiFunction<String, String, String>() {
+                            @Override
+                            public String apply(String key, String customer) {
+                                return key;
+                            }
+                        },
+                        new BiFunction<String, String, String>() {
+                            @Override
+                            public String apply(String order, String customer) {
+                                return (nullRows.get() && customer.equals("Bob")) ? null : customer;
+                            }
+                        });
+
+        final Map<Map.Entry<Integer, String>, String> joinedSnapshot = nullJoinAdapter.getAll();
+
+        try {
+            customerAdapter.add("b", "Bob");
+            fail("Null joined row accepted");
+        } catch (NullPointerException e) {
+            assertEquals("Message", "Join function returned null for b:pear and Bob", e.getMessage());
+        }
+
+        assertEquals("Joined data unchanged", joinedSnapshot, nullJoinAdapter.getAll());
+        assertNull("Joined row", nullJoinAdapter.get(1, "b"));
+
+        // The failed change was not recorded, so repeating it joins the row
+        nullRows.set(false);
+        customerAdapter.update("b", "Bob");
+
+        assertEquals("Joined row", "Bob", nullJoinAdapter.get(1, "b"));
+    }
+
+    @Test
+    public void dispose() {
+        joinAdapter.dispose();
+        customerAdapter.add("b", "Bob");
+
+        assertEquals("Message count", 0, messageList.size());
+        assertEquals("Joined size", 1, joinAdapter.getAll().size());
+    }
+}
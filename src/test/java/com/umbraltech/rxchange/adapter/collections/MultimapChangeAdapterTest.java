@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import com.umbraltech.rxchange.type.ChangeType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MultimapChangeAdapterTest {
+    private MultimapChangeAdapter<Integer, String> changeAdapter;
+    private List<MetaChangeMessage<Map<Integer, Set<String>>, ?>> changeMessageList;
+
+    @Before
+    public void setUp() {
+        changeAdapter = new MultimapChangeAdapter<>(ImmutableMultimap.of(0, "a", 0, "b", 1, "c"));
+        changeMessageList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Map<Integer, Set<String>>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, Set<String>>> changeMessage) {
+                changeMessageList.add((MetaChangeMessage<Map<Integer, Set<String>>, ?>) changeMessage);
+            }
+        });
+    }
+
+    @Test
+    public void put() {
+        assertTrue("Put", changeAdapter.put(1, "d"));
+        assertFalse("Put existing", changeAdapter.put(1, "d"));
+
+        assertEquals("Values", ImmutableSet.of("c", "d"), changeAdapter.get(1));
+        assertEquals("Change messages", 1, changeMessageList.size());
+        assertEquals("Change type", ChangeType.ADD, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", Maps.immutableEntry(1, "d"), changeMessageList.get(0).getMetadata());
+        assertEquals("Old data", ImmutableMap.of(0, ImmutableSet.of("a", "b"), 1, ImmutableSet.of("c")),
+                changeMessageList.get(0).getOldData());
+
+        // The values of unrelated keys are shared between snapshots
+        assertSame("Shared values", changeMessageList.get(0).getOldData().get(0),
+                changeMessageList.get(0).getNewData().get(0));
+    }
+
+    @Test
+    public void remove() {
+        assertTrue("Remove", changeAdapter.remove(0, "a"));
+        assertFalse("Remove nonexistent", changeAdapter.remove(0, "a"));
+        assertTrue("Remove last value", changeAdapter.remove(1, "c"));
+
+        assertEquals("Data", ImmutableMap.of(0, ImmutableSet.of("b")), changeAdapter.getAll());
+        assertFalse("Contains removed key", changeAdapter.containsKey(1));
+        assertEquals("Change messages", 2, changeMessageList.size());
+        assertEquals("Metadata", Maps.immutableEntry(0, "a"), changeMessageList.get(0).getMetadata());
+    }
+
+    @Test
+    public void removeAll() {
+        assertTrue("Remove all", changeAdapter.removeAll(0));
+        assertFalse("Remove all nonexistent", changeAdapter.removeAll(0));
+
+        assertEquals("Data", ImmutableMap.of(1, ImmutableSet.of("c")), changeAdapter.getAll());
+        assertEquals("Change type", ChangeType.REMOVE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", ImmutableMap.of(0, ImmutableSet.of("a", "b")),
+                changeMessageList.get(0).getMetadata());
+    }
+
+    @Test
+    public void read() {
+        assertTrue("Contains key", changeAdapter.containsKey(0));
+        assertTrue("Contains entry", changeAdapter.containsEntry(0, "b"));
+        assertFalse("Contains nonexistent entry", changeAdapter.containsEntry(1, "a"));
+        assertTrue("Values of nonexistent key", changeAdapter.get(2).isEmpty());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PersistentListTest {
+    private final List<Integer> testList = ImmutableList.of(0, 1, 2, 3, 4);
+
+    @Test
+    public void copyOf() {
+        final PersistentList<Integer> persistentList = PersistentList.copyOf(testList);
+
+        assertEquals("Data", testList, persistentList);
+        assertEquals("Size", testList.size(), persistentList.size());
+        assertEquals("Get", (Integer) 3, persistentList.get(3));
+        assertEquals("Index", 2, persistentList.indexOf(2));
+        assertEquals("Index nonexistent", -1, persistentList.indexOf(5));
+        assertTrue("Empty", PersistentList.copyOf(ImmutableList.of()).isEmpty());
+    }
+
+    @Test
+    public void structureSharing() {
+        final PersistentList<Integer> persistentList = PersistentList.copyOf(testList);
+
+        final PersistentList<Integer> insertedList = persistentList.plus(2, 5);
+        final PersistentList<Integer> removedList = persistentList.minus(0);
+        final PersistentList<Integer> replacedList = persistentList.with(4, 6);
+
+        assertEquals("Original", testList, persistentList);
+        assertEquals("Inserted", ImmutableList.of(0, 1, 5, 2, 3, 4), insertedList);
+        assertEquals("Removed", ImmutableList.of(1, 2, 3, 4), removedList);
+        assertEquals("Replaced", ImmutableList.of(0, 1, 2, 3, 6), replacedList);
+    }
+
+    @Test
+    public void randomOperations() {
+        final Random random = new Random(42);
+        final List<Integer> expectedList = new ArrayList<>();
+        PersistentList<Integer> persistentList = PersistentList.empty();
+
+        // Compare against an array list after each operation
+        for (int i = 0; i < 2000; i++) {
+            final int operation = random.nextInt(3);
+
+            if (operation == 0 || expectedList.isEmpty()) {
+                final int index = random.nextInt(expectedList.size() + 1);
+
+                expectedList.add(index, i);
+                persistentList = persistentList.plus(index, i);
+            } else if (operation == 1) {
+                final int index = random.nextInt(expectedList.size());
+
+                expectedList.remove(index);
+                persistentList = persistentList.minus(index);
+            } else {
+                final int index = random.nextInt(expectedList.size());
+
+                expectedList.set(index, i);
+                persistentList = persistentList.with(index, i);
+            }
+
+            assertEquals("Size", expectedList.size(), persistentList.size());
+        }
+
+        assertEquals("Data", expectedList, persistentList);
+
+        for (int i = 0; i < expectedList.size(); i++) {
+            assertEquals("Get", expectedList.get(i), persistentList.get(i));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutOfBounds() {
+        PersistentList.copyOf(testList).get(5);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutable() {
+        final Iterator<Integer> iterator = PersistentList.copyOf(testList).iterator();
+
+        iterator.next();
+        iterator.remove();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PersistentMapTest {
+    @Test
+    public void plusMinus() {
+        final PersistentMap<Integer, String> emptyMap = PersistentMap.empty();
+        final PersistentMap<Integer, String> persistentMap = emptyMap.plus(0, "a").plus(1, "b");
+
+        assertEquals("Data", ImmutableMap.of(0, "a", 1, "b"), persistentMap);
+        assertEquals("Get", "b", persistentMap.get(1));
+        assertTrue("Contains", persistentMap.containsKey(0));
+        assertFalse("Contains nonexistent", persistentMap.containsKey(2));
+
+        assertSame("Unchanged value", persistentMap, persistentMap.plus(0, "a"));
+        assertSame("Remove nonexistent", persistentMap, persistentMap.minus(2));
+
+        final PersistentMap<Integer, String> removedMap = persistentMap.minus(0).plus(1, "c");
+
+        assertEquals("Original", ImmutableMap.of(0, "a", 1, "b"), persistentMap);
+        assertEquals("Modified", ImmutableMap.of(1, "c"), removedMap);
+        assertTrue("Empty", removedMap.minus(1).isEmpty());
+    }
+
+    @Test
+    public void hashCollisions() {
+        PersistentMap<CollidingKey, Integer> persistentMap = PersistentMap.empty();
+
+        for (int i = 0; i < 4; i++) {
+            persistentMap = persistentMap.plus(new CollidingKey(i), i);
+        }
+
+        assertEquals("Size", 4, persistentMap.size());
+        assertEquals("Get", (Integer) 2, persistentMap.get(new CollidingKey(2)));
+
+        persistentMap = persistentMap.minus(new CollidingKey(2)).minus(new CollidingKey(0)).minus(new CollidingKey(3));
+
+        assertEquals("Data", ImmutableMap.of(new CollidingKey(1), 1), persistentMap);
+    }
+
+    @Test
+    public void randomOperations() {
+        final Random random = new Random(42);
+        final Map<Integer, Integer> expectedMap = new HashMap<>();
+        PersistentMap<Integer, Integer> persistentMap = PersistentMap.empty();
+
+        // Compare against a hash map after each operation, using keys with sparse hashes
+        for (int i = 0; i < 5000; i++) {
+            final Integer key = random.nextInt(2000) * 65537;
+
+            if (random.nextBoolean()) {
+                expectedMap.put(key, i);
+                persistentMap = persistentMap.plus(key, i);
+            } else {
+                expectedMap.remove(key);
+                persistentMap = persistentMap.minus(key);
+            }
+
+            assertEquals("Size", expectedMap.size(), persistentMap.size());
+        }
+
+        assertEquals("Data", expectedMap, persistentMap);
+
+        for (final Map.Entry<Integer, Integer> entry : expectedMap.entrySet()) {
+            assertEquals("Get", entry.getValue(), persistentMap.get(entry.getKey()));
+        }
+    }
+
+    private static final class CollidingKey {
+        private final int id;
+
+        private CollidingKey(final int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            return object instanceof CollidingKey && ((CollidingKey) object).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+}
@@ -16,18 +16,28 @@
 
 package com.umbraltech.rxchange.adapter.collections;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.umbraltech.rxchange.filter.ChangeTypeFilter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.observer.BatchChangeMessageObserver;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
 import com.umbraltech.rxchange.type.ChangeType;
 import com.umbraltech.rxchange.util.ChangePayloadTestObserver;
 import com.umbraltech.rxchange.util.InvocationFailObserver;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.TestScheduler;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -196,4 +206,160 @@ public class SetChangeAdapterTest {
 
         assertEquals("Get all", testSet, changeAdapter.getAll());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void size() {
+        // Set up initial values
+        changeAdapter.addAll(testSet);
+
+        assertEquals("Size", testSet.size(), changeAdapter.size());
+    }
+
+    @Test
+    public void contains() {
+        // Set up initial values
+        changeAdapter.addAll(testSet);
+
+        assertTrue("Contains", changeAdapter.contains(0));
+        assertFalse("Contains nonexistent", changeAdapter.contains(3));
+    }
+
+    @Test
+    public void forEach() {
+        final List<Integer> resultList = new ArrayList<>();
+
+        // Set up initial values
+        changeAdapter.addAll(testSet);
+
+        changeAdapter.forEach(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer data) {
+                resultList.add(data);
+            }
+        });
+
+        assertEquals("For each", ImmutableList.copyOf(testSet), resultList);
+    }
+
+    @Test
+    public void read() {
+        // Set up initial values
+        changeAdapter.addAll(testSet);
+
+        final Boolean result = changeAdapter.read(new Function<Set<Integer>, Boolean>() {
+            @Override
+            public Boolean apply(Set<Integer> dataSet) {
+                return dataSet.containsAll(testSet);
+            }
+        });
+
+        assertTrue("Read", result);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnlyView() {
+        changeAdapter.read(new Function<Set<Integer>, Boolean>() {
+            @Override
+            public Boolean apply(Set<Integer> dataSet) {
+                return dataSet.add(0);
+            }
+        });
+    }
+
+    @Test
+    public void readSnapshot() {
+        changeAdapter = new SetChangeAdapter<>(testSet, ReadMode.SNAPSHOT);
+
+        final List<Set<Integer>> snapshotList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Set<Integer>>() {
+            @Override
+            public void onNext(ChangeMessage<Set<Integer>> changeMessage) {
+                snapshotList.add(changeMessage.getNewData());
+            }
+        });
+
+        assertEquals("Initial snapshot", testSet, changeAdapter.getAll());
+        assertTrue("Add", changeAdapter.add(3));
+
+        // The published snapshot is shared with the change message
+        assertSame("Published snapshot", snapshotList.get(0), changeAdapter.getAll());
+        assertTrue("Contains", changeAdapter.contains(3));
+        assertEquals("Size", 4, changeAdapter.size());
+    }
+
+    @Test
+    public void getBatchedObservable() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final List<List<ChangeMessage<Set<Integer>>>> batchList = new ArrayList<>();
+
+        changeAdapter.getBatchedObservable(10, 1, TimeUnit.SECONDS, testScheduler)
+                .subscribe(new BatchChangeMessageObserver<Set<Integer>>() {
+                    @Override
+                    public void onNext(List<ChangeMessage<Set<Integer>>> changeMessages) {
+                        batchList.add(changeMessages);
+                    }
+                });
+
+        changeAdapter.add(0);
+        changeAdapter.add(1);
+        assertTrue("Not emitted before delay", batchList.isEmpty());
+
+        testScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        assertEquals("Batch count", 1, batchList.size());
+        assertEquals("Batch size", 2, batchList.get(0).size());
+        assertEquals("Batch order", ChangeType.ADD, batchList.get(0).get(1).getChangeType());
+    }
+
+    @Test
+    public void addAllPresent() {
+        changeAdapter.add(1);
+
+        final List<MetaChangeMessage<Set<Integer>, ?>> changeMessageList = observeMetaChangeMessages();
+
+        assertEquals("Applied elements", BitSet.valueOf(new long[]{0b101}),
+                changeAdapter.addAllPresent(ImmutableSet.of(0, 1, 2)));
+        assertEquals("Metadata", ImmutableSet.of(0, 2), changeMessageList.get(0).getMetadata());
+        assertTrue("Nothing applied", changeAdapter.addAllPresent(ImmutableSet.of(0)).isEmpty());
+        assertEquals("Single emission", 1, changeMessageList.size());
+    }
+
+    @Test
+    public void removeAllPresent() {
+        changeAdapter.addAll(ImmutableSet.of(0, 1, 2));
+
+        final List<MetaChangeMessage<Set<Integer>, ?>> changeMessageList = observeMetaChangeMessages();
+
+        assertEquals("Applied elements", BitSet.valueOf(new long[]{0b011}),
+                changeAdapter.removeAllPresent(ImmutableSet.of(0, 1, 3)));
+        assertEquals("Change type", ChangeType.REMOVE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", ImmutableSet.of(0, 1), changeMessageList.get(0).getMetadata());
+        assertEquals("Remaining", ImmutableSet.of(2), changeAdapter.getAll());
+    }
+
+    @Test
+    public void snapshotReuse() {
+        final List<MetaChangeMessage<Set<Integer>, ?>> changeMessageList = observeMetaChangeMessages();
+
+        changeAdapter.add(0);
+        changeAdapter.add(1);
+
+        assertSame("Old data", changeMessageList.get(0).getNewData(), changeMessageList.get(1).getOldData());
+        assertSame("Current snapshot", changeMessageList.get(1).getNewData(), changeAdapter.getAll());
+        assertSame("Repeated snapshot", changeAdapter.getAll(), changeAdapter.getAll());
+    }
+
+    private List<MetaChangeMessage<Set<Integer>, ?>> observeMetaChangeMessages() {
+        final List<MetaChangeMessage<Set<Integer>, ?>> changeMessageList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<Set<Integer>>() {
+            @Override
+            public void onNext(ChangeMessage<Set<Integer>> changeMessage) {
+                changeMessageList.add((MetaChangeMessage<Set<Integer>, ?>) changeMessage);
+            }
+        });
+
+        return changeMessageList;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import com.google.common.collect.ImmutableList;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.message.MetaChangeMessage;
+import com.umbraltech.rxchange.message.RankChange;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import com.umbraltech.rxchange.type.ChangeType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SortedListChangeAdapterTest {
+    private SortedListChangeAdapter<Integer> changeAdapter;
+    private List<MetaChangeMessage<List<Integer>, ?>> changeMessageList;
+
+    @Before
+    public void setUp() {
+        changeAdapter = new SortedListChangeAdapter<>(ImmutableList.of(20, 40, 10, 30),
+                Collections.<Integer>reverseOrder());
+        changeMessageList = observeMetaChangeMessages();
+    }
+
+    @Test
+    public void initialData() {
+        assertEquals("Data", ImmutableList.of(40, 30, 20, 10), changeAdapter.getAll());
+        assertEquals("Size", 4, changeAdapter.size());
+        assertEquals("Get", (Integer) 30, changeAdapter.get(1));
+        assertEquals("Rank", 2, changeAdapter.getRank(20));
+        assertEquals("Rank nonexistent", -1, changeAdapter.getRank(25));
+    }
+
+    @Test
+    public void add() {
+        assertTrue("Add", changeAdapter.add(25));
+
+        assertEquals("Data", ImmutableList.of(40, 30, 25, 20, 10), changeAdapter.getAll());
+        assertEquals("Change type", ChangeType.ADD, changeMessageList.get(0).getChangeType());
+        assertEquals("Old data", ImmutableList.of(40, 30, 20, 10), changeMessageList.get(0).getOldData());
+        assertEquals("Metadata", new RankChange<>(25, -1, 2), changeMessageList.get(0).getMetadata());
+    }
+
+    @Test
+    public void remove() {
+        assertTrue("Remove", changeAdapter.remove(30));
+        assertFalse("Remove nonexistent", changeAdapter.remove(30));
+
+        assertEquals("Data", ImmutableList.of(40, 20, 10), changeAdapter.getAll());
+        assertEquals("Change messages", 1, changeMessageList.size());
+        assertEquals("Metadata", new RankChange<>(30, 1, -1), changeMessageList.get(0).getMetadata());
+    }
+
+    @Test
+    public void update() {
+        assertTrue("Update", changeAdapter.update(10, 50));
+        assertFalse("Update nonexistent", changeAdapter.update(10, 60));
+
+        assertEquals("Data", ImmutableList.of(50, 40, 30, 20), changeAdapter.getAll());
+        assertEquals("Change type", ChangeType.UPDATE, changeMessageList.get(0).getChangeType());
+        assertEquals("Metadata", new RankChange<>(50, 3, 0), changeMessageList.get(0).getMetadata());
+    }
+
+    @Test
+    public void equalElements() {
+        final SortedListChangeAdapter<String> stringAdapter = new SortedListChangeAdapter<>(
+                new Comparator<String>() {
+                    @Override
+                    public int compare(String first, String second) {
+                        return Integer.compare(first.length(), second.length());
+                    }
+                });
+
+        stringAdapter.add("bb");
+        stringAdapter.add("a");
+        stringAdapter.add("cc");
+        stringAdapter.add("dd");
+
+        // Elements comparing equal are kept in insertion order
+        assertEquals("Data", ImmutableList.of("a", "bb", "cc", "dd"), stringAdapter.getAll());
+        assertEquals("Rank", 2, stringAdapter.getRank("cc"));
+        assertEquals("Rank nonexistent", -1, stringAdapter.getRank("ee"));
+
+        assertTrue("Remove", stringAdapter.remove("cc"));
+        assertEquals("Data", ImmutableList.of("a", "bb", "dd"), stringAdapter.getAll());
+    }
+
+    private List<MetaChangeMessage<List<Integer>, ?>> observeMetaChangeMessages() {
+        final List<MetaChangeMessage<List<Integer>, ?>> changeMessageList = new ArrayList<>();
+
+        changeAdapter.getObservable().subscribe(new ChangeMessageObserver<List<Integer>>() {
+            @Override
+            public void onNext(ChangeMessage<List<Integer>> changeMessage) {
+                changeMessageList.add((MetaChangeMessage<List<Integer>, ?>) changeMessage);
+            }
+        });
+
+        return changeMessageList;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.adapter.collections;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TimerWheelTest {
+
+    @Test
+    public void scheduleDeschedule() {
+        final TimerWheel<String> timerWheel = new TimerWheel<>(16);
+        final TimerWheel.Node<String> firstNode = new TimerWheel.Node<>("a", ExpirationMode.AFTER_WRITE, 100, 0);
+        final TimerWheel.Node<String> secondNode = new TimerWheel.Node<>("b", ExpirationMode.AFTER_WRITE, 100, 0);
+        final List<TimerWheel.Node<String>> expiredList = new ArrayList<>();
+
+        timerWheel.schedule(firstNode);
+        timerWheel.schedule(secondNode);
+        timerWheel.deschedule(secondNode);
+        timerWheel.deschedule(secondNode);
+
+        timerWheel.advance(99, expiredList);
+        assertTrue("Expired early", expiredList.isEmpty());
+
+        // The entry is collected once the wheel advances past the tick of its expiration
+        timerWheel.advance(100, expiredList);
+        assertTrue("Expired within the tick", expiredList.isEmpty());
+
+        timerWheel.advance(112, expiredList);
+        assertEquals("Expired", 1, expiredList.size());
+        assertEquals("Key", "a", expiredList.get(0).getKey());
+    }
+
+    @Test
+    public void recordAccess() {
+        final TimerWheel<String> timerWheel = new TimerWheel<>(1);
+        final TimerWheel.Node<String> node = new TimerWheel.Node<>("a", ExpirationMode.AFTER_ACCESS, 100, 0);
+        final List<TimerWheel.Node<String>> expiredList = new ArrayList<>();
+
+        timerWheel.schedule(node);
+        node.recordAccess(80);
+
+        timerWheel.advance(150, expiredList);
+        assertTrue("Expired despite access", expiredList.isEmpty());
+
+        timerWheel.advance(180, expiredList);
+        assertEquals("Expired", 1, expiredList.size());
+    }
+
+    @Test
+    public void randomExpirations() {
+        final Random random = new Random(42);
+        final TimerWheel<Integer> timerWheel = new TimerWheel<>(16);
+        final List<TimerWheel.Node<Integer>> nodeList = new ArrayList<>();
+        final Set<Integer> expiredKeySet = new HashSet<>();
+
+        // Spread the lifetimes across all levels of the wheel
+        for (int i = 0; i < 5000; i++) {
+            final long duration = (long) Math.pow(2, random.nextInt(30)) + random.nextInt(1000);
+            final TimerWheel.Node<Integer> node = new TimerWheel.Node<>(i, ExpirationMode.AFTER_WRITE, duration, 0);
+
+            nodeList.add(node);
+            timerWheel.schedule(node);
+        }
+
+        long nowNanos = 0;
+
+        while (expiredKeySet.size() < nodeList.size()) {
+            final List<TimerWheel.Node<Integer>> expiredList = new ArrayList<>();
+            nowNanos += 1 + random.nextInt(1 << random.nextInt(24));
+            timerWheel.advance(nowNanos, expiredList);
+
+            for (final TimerWheel.Node<Integer> node : expiredList) {
+                assertTrue("Expired early", node.getExpirationNanos() <= nowNanos);
+                assertTrue("Expired twice", expiredKeySet.add(node.getKey()));
+            }
+
+            // Verify no expired entry remains scheduled
+            for (final TimerWheel.Node<Integer> node : nodeList) {
+                if ((node.getExpirationNanos() >>> 4) < (nowNanos >>> 4)) {
+                    assertTrue("Expired late", expiredKeySet.contains(node.getKey()));
+                }
+            }
+        }
+    }
+}
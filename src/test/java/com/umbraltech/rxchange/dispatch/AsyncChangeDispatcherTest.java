@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.google.common.collect.Lists;
+import com.umbraltech.rxchange.adapter.SingleChangeAdapter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import com.umbraltech.rxchange.util.ManualExecutor;
+import io.reactivex.exceptions.MissingBackpressureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncChangeDispatcherTest {
+    private SingleChangeAdapter<Integer> changeAdapter;
+    private ManualExecutor executor;
+    private AsyncChangeDispatcher<Integer> dispatcher;
+
+    private final List<Integer> resultList = new ArrayList<>();
+    private final List<Throwable> errorList = new ArrayList<>();
+
+    private final ChangeMessageObserver<Integer> recordingObserver = new ChangeMessageObserver<Integer>() {
+        @Override
+        public void onNext(ChangeMessage<Integer> changeMessage) {
+            resultList.add(changeMessage.getNewData());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errorList.add(throwable);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        changeAdapter = new SingleChangeAdapter<>(0);
+        executor = new ManualExecutor();
+        dispatcher = new AsyncChangeDispatcher<>(changeAdapter.getObservable(), executor);
+    }
+
+    @Test
+    public void deliveredOnExecutor() {
+        final DispatchSubscription<Integer> subscription = dispatcher.subscribe(recordingObserver, 4,
+                OverflowPolicy.BLOCK);
+
+        update(1, 2, 3);
+
+        assertTrue("Not delivered on publishing thread", resultList.isEmpty());
+        assertEquals("Queue depth", 3, subscription.getQueueDepth());
+        assertEquals("Single drain task", 1, executor.getPendingCount());
+
+        executor.runAll();
+
+        assertEquals("Delivered in order", Lists.newArrayList(1, 2, 3), resultList);
+        assertEquals("Queue drained", 0, subscription.getQueueDepth());
+    }
+
+    @Test
+    public void pooledMessagesRetained() {
+        changeAdapter.setMessagePooling(true);
+        dispatcher.subscribe(recordingObserver, 4, OverflowPolicy.BLOCK);
+
+        update(1, 2, 3);
+        executor.runAll();
+
+        // The queued change messages are copies that outlive their delivery
+        assertEquals("Delivered in order", Lists.newArrayList(1, 2, 3), resultList);
+    }
+
+    @Test
+    public void dropOldest() {
+        final DispatchSubscription<Integer> subscription = dispatcher.subscribe(recordingObserver, 2,
+                OverflowPolicy.DROP_OLDEST);
+
+        update(1, 2, 3, 4);
+        executor.runAll();
+
+        assertEquals("Newest kept", Lists.newArrayList(3, 4), resultList);
+        assertEquals("Dropped count", 2, subscription.getDroppedCount());
+    }
+
+    @Test
+    public void conflate() {
+        final DispatchSubscription<Integer> subscription = dispatcher.subscribe(recordingObserver, 2,
+                OverflowPolicy.CONFLATE);
+
+        update(1, 2, 3);
+        executor.runAll();
+
+        assertEquals("Latest kept", Lists.newArrayList(3), resultList);
+        assertEquals("Dropped count", 2, subscription.getDroppedCount());
+    }
+
+    @Test
+    public void disconnect() {
+        final DispatchSubscription<Integer> subscription = dispatcher.subscribe(recordingObserver, 2,
+                OverflowPolicy.DISCONNECT);
+
+        update(1, 2, 3, 4);
+        executor.runAll();
+
+        assertEquals("Queued messages delivered", Lists.newArrayList(1, 2), resultList);
+        assertEquals("Error count", 1, errorList.size());
+        assertTrue("Backpressure error", errorList.get(0) instanceof MissingBackpressureException);
+        assertTrue("Disposed", subscription.isDisposed());
+        assertEquals("Subscription removed", 0, dispatcher.getSubscriptionCount());
+    }
+
+    @Test
+    public void dispose() {
+        final DispatchSubscription<Integer> subscription = dispatcher.subscribe(recordingObserver, 2,
+                OverflowPolicy.BLOCK);
+
+        update(1);
+        subscription.dispose();
+        update(2);
+        executor.runAll();
+
+        assertTrue("Nothing delivered", resultList.isEmpty());
+    }
+
+    @Test
+    public void block() throws InterruptedException {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final CountDownLatch latch = new CountDownLatch(100);
+        final List<Integer> receivedList = new ArrayList<>();
+
+        dispatcher = new AsyncChangeDispatcher<>(changeAdapter.getObservable(), executorService);
+        dispatcher.subscribe(new ChangeMessageObserver<Integer>() {
+            @Override
+            public void onNext(ChangeMessage<Integer> changeMessage) {
+                receivedList.add(changeMessage.getNewData());
+                latch.countDown();
+            }
+        }, 2, OverflowPolicy.BLOCK);
+
+        for (int i = 1; i <= 100; i++) {
+            changeAdapter.update(i);
+        }
+
+        try {
+            assertTrue("All delivered", latch.await(10, TimeUnit.SECONDS));
+            assertEquals("Last delivered", Integer.valueOf(100), receivedList.get(99));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private void update(final Integer... values) {
+        for (final Integer value : values) {
+            changeAdapter.update(value);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import com.umbraltech.rxchange.type.ChangeType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class ChangeRingBufferTest {
+    private static final int EVENT_COUNT = 100;
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void publish() throws InterruptedException {
+        final ChangeRingBuffer<Integer, String> ringBuffer = new ChangeRingBuffer<>(4, WaitStrategy.YIELD,
+                executorService);
+        final List<Integer> resultList = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<String> metadataList = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch latch = new CountDownLatch(EVENT_COUNT);
+
+        ringBuffer.addHandler(new ChangeEventHandler<Integer, String>() {
+            @Override
+            public void onEvent(MutableChangeMessage<Integer, String> changeMessage,
+                                long sequence, boolean endOfBatch) {
+                assertEquals("Sequence", changeMessage.getNewData().longValue(), sequence);
+
+                resultList.add(changeMessage.getNewData());
+                metadataList.add(changeMessage.getMetadata());
+                latch.countDown();
+            }
+        });
+
+        ringBuffer.start();
+
+        // Publish more change messages than there are slots
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            assertTrue("Publish", ringBuffer.publish(i - 1, i, ChangeType.UPDATE, "m" + i));
+        }
+
+        assertTrue("Consumed", latch.await(10, TimeUnit.SECONDS));
+        assertEquals("Cursor", EVENT_COUNT - 1, ringBuffer.getCursor());
+
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            assertEquals("Delivered in order", Integer.valueOf(i), resultList.get(i));
+            assertEquals("Metadata", "m" + i, metadataList.get(i));
+        }
+
+        ringBuffer.halt();
+        assertFalse("Publish after halt", ringBuffer.publish(0, 0, ChangeType.UPDATE, null));
+    }
+
+    @Test
+    public void endOfBatch() throws InterruptedException {
+        final ChangeRingBuffer<Integer, Void> ringBuffer = new ChangeRingBuffer<>(8, WaitStrategy.PARK,
+                executorService);
+        final List<Integer> batchEndList = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(4);
+
+        ringBuffer.addHandler(new ChangeEventHandler<Integer, Void>() {
+            @Override
+            public void onEvent(MutableChangeMessage<Integer, Void> changeMessage, long sequence, boolean endOfBatch)
+                    throws InterruptedException {
+                // Hold the first change message until the rest have been published
+                startLatch.await();
+
+                if (endOfBatch) {
+                    batchEndList.add(changeMessage.getNewData());
+                }
+
+                latch.countDown();
+            }
+        });
+
+        ringBuffer.start();
+
+        for (int i = 0; i < 4; i++) {
+            ringBuffer.publish(null, i, ChangeType.ADD, null);
+        }
+
+        startLatch.countDown();
+
+        assertTrue("Consumed", latch.await(10, TimeUnit.SECONDS));
+        assertEquals("Batch end", Integer.valueOf(3), batchEndList.get(batchEndList.size() - 1));
+        assertTrue("Batched", batchEndList.size() < 4);
+
+        ringBuffer.halt();
+    }
+
+    @Test
+    public void dependencies() throws InterruptedException {
+        final ChangeRingBuffer<Integer, Void> ringBuffer = new ChangeRingBuffer<>(4, WaitStrategy.BUSY_SPIN,
+                executorService);
+        final Set<Long> journaledSet = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        final AtomicBoolean ordered = new AtomicBoolean(true);
+        final CountDownLatch latch = new CountDownLatch(EVENT_COUNT);
+
+        final ChangeEventHandler<Integer, Void> journalHandler = new ChangeEventHandler<Integer, Void>() {
+            @Override
+            public void onEvent(MutableChangeMessage<Integer, Void> changeMessage, long sequence, boolean endOfBatch) {
+                journaledSet.add(sequence);
+            }
+        };
+
+        ringBuffer.addHandler(journalHandler);
+        ringBuffer.addHandler(new ChangeEventHandler<Integer, Void>() {
+            @Override
+            public void onEvent(MutableChangeMessage<Integer, Void> changeMessage, long sequence, boolean endOfBatch) {
+                if (!journaledSet.contains(sequence)) {
+                    ordered.set(false);
+                }
+
+                latch.countDown();
+            }
+        }, journalHandler);
+
+        ringBuffer.start();
+
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            ringBuffer.publish(null, i, ChangeType.ADD, null);
+        }
+
+        assertTrue("Consumed", latch.await(10, TimeUnit.SECONDS));
+        assertTrue("Dependency processed first", ordered.get());
+
+        ringBuffer.halt();
+    }
+
+    @Test
+    public void notStarted() {
+        final ChangeRingBuffer<Integer, Void> ringBuffer = new ChangeRingBuffer<>(4, WaitStrategy.YIELD,
+                executorService);
+
+        assertFalse("Publish before start", ringBuffer.publish(null, 0, ChangeType.ADD, null));
+        assertEquals("Remaining capacity", 4, ringBuffer.getRemainingCapacity());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addHandlerAfterStart() {
+        final ChangeRingBuffer<Integer, Void> ringBuffer = new ChangeRingBuffer<>(4, WaitStrategy.YIELD,
+                executorService);
+
+        ringBuffer.start();
+        ringBuffer.halt();
+
+        ringBuffer.addHandler(new ChangeEventHandler<Integer, Void>() {
+            @Override
+            public void onEvent(MutableChangeMessage<Integer, Void> changeMessage, long sequence, boolean endOfBatch) {
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBufferSize() {
+        new ChangeRingBuffer<Integer, Void>(3, WaitStrategy.YIELD, executorService);
+    }
+
+    @Test
+    public void getBufferSize() {
+        assertEquals("Buffer size", 16, new ChangeRingBuffer<Integer, Void>(16, WaitStrategy.YIELD,
+                executorService).getBufferSize());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.umbraltech.rxchange.adapter.collections.MapChangeAdapter;
+import com.umbraltech.rxchange.message.MutableChangeMessage;
+import com.umbraltech.rxchange.type.ChangeType;
+import com.umbraltech.rxchange.util.ManualExecutor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class KeyedChangeDispatcherTest {
+    private MapChangeAdapter<Integer, String> changeAdapter;
+    private ManualExecutor executor;
+
+    private final List<String> resultList = Collections.synchronizedList(new ArrayList<String>());
+
+    private final ChangeEventHandler<String, Integer> recordingHandler = new ChangeEventHandler<String, Integer>() {
+        @Override
+        public void onEvent(MutableChangeMessage<String, Integer> changeMessage, long sequence, boolean endOfBatch) {
+            resultList.add(changeMessage.getMetadata() + ":" + changeMessage.getChangeType() + ":"
+                    + changeMessage.getOldData() + "->" + changeMessage.getNewData());
+        }
+    };
+
+    @Before
+    public void setUp() {
+        changeAdapter = new MapChangeAdapter<>();
+        executor = new ManualExecutor();
+    }
+
+    @Test
+    public void perKeyChanges() {
+        final KeyedChangeDispatcher<Integer, String> dispatcher = new KeyedChangeDispatcher<>(
+                changeAdapter.getObservable(), 1, recordingHandler, executor);
+
+        changeAdapter.addAll(ImmutableMap.of(0, "a", 1, "b"));
+        changeAdapter.update(0, "c");
+        changeAdapter.removeAll(ImmutableSet.of(0, 1));
+
+        assertTrue("Not handled on publishing thread", resultList.isEmpty());
+        assertEquals("Backlog", 5, dispatcher.getBacklog(0));
+
+        executor.runAll();
+
+        assertEquals("Per-key changes", Lists.newArrayList(
+                "0:ADD:null->a", "1:ADD:null->b", "0:UPDATE:a->c", "0:REMOVE:c->null", "1:REMOVE:b->null"),
+                resultList);
+        assertEquals("Backlog drained", 0, dispatcher.getBacklog(0));
+        assertEquals("Processed count", 5, dispatcher.getProcessedCount(0));
+        assertEquals("Single batch", 1, dispatcher.getBatchCount(0));
+    }
+
+    @Test
+    public void lanes() {
+        final KeyedChangeDispatcher<Integer, String> dispatcher = new KeyedChangeDispatcher<>(
+                changeAdapter.getObservable(), 4, recordingHandler, executor);
+
+        for (int i = 0; i < 4; i++) {
+            changeAdapter.add(i, "a");
+        }
+
+        assertEquals("Lane count", 4, dispatcher.getLaneCount());
+        assertEquals("Task per lane", 4, executor.getPendingCount());
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Backlog per lane", 1, dispatcher.getBacklog(dispatcher.getLane(i)));
+        }
+    }
+
+    @Test
+    public void orderedPerKey() throws InterruptedException {
+        final int keyCount = 8;
+        final int updateCount = 200;
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final Map<Integer, List<String>> resultMap = new ConcurrentHashMap<>();
+        final CountDownLatch latch = new CountDownLatch(keyCount * updateCount);
+
+        for (int i = 0; i < keyCount; i++) {
+            changeAdapter.add(i, "0");
+            resultMap.put(i, Collections.synchronizedList(new ArrayList<String>()));
+        }
+
+        new KeyedChangeDispatcher<>(changeAdapter.getObservable(), 4, new ChangeEventHandler<String, Integer>() {
+            @Override
+            public void onEvent(MutableChangeMessage<String, Integer> changeMessage,
+                                long sequence, boolean endOfBatch) {
+                resultMap.get(changeMessage.getMetadata()).add(changeMessage.getNewData());
+                latch.countDown();
+            }
+        }, executorService);
+
+        for (int i = 1; i <= updateCount; i++) {
+            for (int key = 0; key < keyCount; key++) {
+                changeAdapter.update(key, String.valueOf(i));
+            }
+        }
+
+        try {
+            assertTrue("All handled", latch.await(10, TimeUnit.SECONDS));
+
+            for (final List<String> keyResultList : resultMap.values()) {
+                for (int i = 0; i < updateCount; i++) {
+                    assertEquals("Ordered per key", String.valueOf(i + 1), keyResultList.get(i));
+                }
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.google.common.collect.Lists;
+import com.umbraltech.rxchange.adapter.SingleChangeAdapter;
+import com.umbraltech.rxchange.adapter.collections.MapChangeAdapter;
+import com.umbraltech.rxchange.adapter.collections.ReadMode;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import com.umbraltech.rxchange.util.ManualExecutor;
+import io.reactivex.disposables.Disposable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ParallelChangeDispatcherTest {
+    private static final int OBSERVER_COUNT = 4;
+
+    private SingleChangeAdapter<Integer> changeAdapter;
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        changeAdapter = new SingleChangeAdapter<>(0);
+        executorService = Executors.newFixedThreadPool(OBSERVER_COUNT);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void deliveredInParallel() throws Exception {
+        final ParallelChangeDispatcher<Integer> dispatcher = new ParallelChangeDispatcher<>(
+                changeAdapter.getObservable(), executorService, false);
+
+        // Every observer must be running at the same time to pass the barrier
+        final CyclicBarrier barrier = new CyclicBarrier(OBSERVER_COUNT);
+        final CountDownLatch latch = new CountDownLatch(OBSERVER_COUNT);
+
+        for (int i = 0; i < OBSERVER_COUNT; i++) {
+            dispatcher.subscribe(new ChangeMessageObserver<Integer>() {
+                @Override
+                public void onNext(ChangeMessage<Integer> changeMessage) {
+                    try {
+                        barrier.await(10, TimeUnit.SECONDS);
+                        latch.countDown();
+                    } catch (Exception e) {
+                        fail("Observers not invoked in parallel");
+                    }
+                }
+            });
+        }
+
+        changeAdapter.update(1);
+
+        assertTrue("Delivered in parallel", latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void awaitCompletion() {
+        final ParallelChangeDispatcher<Integer> dispatcher = new ParallelChangeDispatcher<>(
+                changeAdapter.getObservable(), executorService, true);
+        final List<List<Integer>> resultLists = new ArrayList<>();
+
+        for (int i = 0; i < OBSERVER_COUNT; i++) {
+            final List<Integer> resultList = Collections.synchronizedList(new ArrayList<Integer>());
+            resultLists.add(resultList);
+
+            dispatcher.subscribe(new ChangeMessageObserver<Integer>() {
+                @Override
+                public void onNext(ChangeMessage<Integer> changeMessage) {
+                    resultList.add(changeMessage.getNewData());
+                }
+            });
+        }
+
+        for (int i = 1; i <= 3; i++) {
+            changeAdapter.update(i);
+
+            // All observers are done when the update returns
+            for (final List<Integer> resultList : resultLists) {
+                assertEquals("Processed", i, resultList.size());
+            }
+        }
+
+        for (final List<Integer> resultList : resultLists) {
+            assertEquals("Delivered in order", Lists.newArrayList(1, 2, 3), resultList);
+        }
+    }
+
+    @Test
+    public void readAdapterWhileAwaiting() {
+        final MapChangeAdapter<Integer, Integer> mapChangeAdapter = new MapChangeAdapter<>(ReadMode.SNAPSHOT);
+        final ParallelChangeDispatcher<Map<Integer, Integer>> dispatcher = new ParallelChangeDispatcher<>(
+                mapChangeAdapter.getObservable(), executorService, 10, TimeUnit.SECONDS);
+        final List<Integer> resultList = Collections.synchronizedList(new ArrayList<Integer>());
+
+        // Reading the published snapshot does not wait for the write lock held by the publisher
+        dispatcher.subscribe(new ChangeMessageObserver<Map<Integer, Integer>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, Integer>> changeMessage) {
+                resultList.add(mapChangeAdapter.get(1));
+                resultList.add(mapChangeAdapter.size());
+            }
+        });
+
+        assertTrue("Add", mapChangeAdapter.add(1, 10));
+        assertEquals("Read by observer", Lists.newArrayList(10, 1), resultList);
+    }
+
+    @Test
+    public void completionTimeout() throws InterruptedException {
+        final MapChangeAdapter<Integer, Integer> mapChangeAdapter = new MapChangeAdapter<>(ReadMode.LOCKED);
+        final ParallelChangeDispatcher<Map<Integer, Integer>> dispatcher = new ParallelChangeDispatcher<>(
+                mapChangeAdapter.getObservable(), executorService, 100, TimeUnit.MILLISECONDS);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        // Reading in the locked mode waits for the write lock held by the publisher
+        dispatcher.subscribe(new ChangeMessageObserver<Map<Integer, Integer>>() {
+            @Override
+            public void onNext(ChangeMessage<Map<Integer, Integer>> changeMessage) {
+                mapChangeAdapter.get(1);
+                latch.countDown();
+            }
+        });
+
+        try {
+            mapChangeAdapter.add(1, 10);
+            fail("Completion not timed out");
+        } catch (IllegalStateException e) {
+            assertTrue("Message", e.getMessage().startsWith("Subscribers did not complete"));
+        }
+
+        // The observer proceeds once the write lock is released
+        assertTrue("Observer completed", latch.await(10, TimeUnit.SECONDS));
+        assertEquals("Change applied", Integer.valueOf(10), mapChangeAdapter.get(1));
+    }
+
+    @Test
+    public void interruptedWhileAwaiting() {
+        final ParallelChangeDispatcher<Integer> dispatcher = new ParallelChangeDispatcher<>(
+                changeAdapter.getObservable(), executorService, true);
+
+        dispatcher.subscribe(new ChangeMessageObserver<Integer>() {
+            @Override
+            public void onNext(ChangeMessage<Integer> changeMessage) {
+                // Stub
+            }
+        });
+
+        Thread.currentThread().interrupt();
+
+        try {
+            changeAdapter.update(1);
+            fail("Interrupt ignored");
+        } catch (IllegalStateException e) {
+            assertEquals("Message", "Interrupted while awaiting the subscribers", e.getMessage());
+        }
+
+        assertTrue("Interrupt status preserved", Thread.interrupted());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCompletionTimeout() {
+        new ParallelChangeDispatcher<>(changeAdapter.getObservable(), executorService, 0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void deliveredOnExecutor() {
+        final ManualExecutor executor = new ManualExecutor();
+        final ParallelChangeDispatcher<Integer> dispatcher = new ParallelChangeDispatcher<>(
+                changeAdapter.getObservable(), executor, false);
+        final List<Integer> resultList = new ArrayList<>();
+
+        dispatcher.subscribe(new ChangeMessageObserver<Integer>() {
+            @Override
+            public void onNext(ChangeMessage<Integer> changeMessage) {
+                resultList.add(changeMessage.getNewData());
+            }
+        });
+
+        changeAdapter.update(1);
+        changeAdapter.update(2);
+
+        assertTrue("Not delivered on publishing thread", resultList.isEmpty());
+        assertEquals("Single task per lane", 1, executor.getPendingCount());
+
+        executor.runAll();
+        assertEquals("Delivered in order", Lists.newArrayList(1, 2), resultList);
+    }
+
+    @Test
+    public void pooledMessagesRetained() {
+        final ManualExecutor executor = new ManualExecutor();
+        final ParallelChangeDispatcher<Integer> dispatcher = new ParallelChangeDispatcher<>(
+                changeAdapter.getObservable(), executor, false);
+        final List<Integer> resultList = new ArrayList<>();
+
+        changeAdapter.setMessagePooling(true);
+        dispatcher.subscribe(new ChangeMessageObserver<Integer>() {
+            @Override
+            public void onNext(ChangeMessage<Integer> changeMessage) {
+                resultList.add(changeMessage.getNewData());
+            }
+        });
+
+        changeAdapter.update(1);
+        changeAdapter.update(2);
+        executor.runAll();
+
+        // The queued change messages are copies that outlive their delivery
+        assertEquals("Delivered in order", Lists.newArrayList(1, 2), resultList);
+    }
+
+    @Test
+    public void dispose() {
+        final ParallelChangeDispatcher<Integer> dispatcher = new ParallelChangeDispatcher<>(
+                changeAdapter.getObservable(), executorService, true);
+        final List<Integer> resultList = Collections.synchronizedList(new ArrayList<Integer>());
+
+        final Disposable subscription = dispatcher.subscribe(new ChangeMessageObserver<Integer>() {
+            @Override
+            public void onNext(ChangeMessage<Integer> changeMessage) {
+                resultList.add(changeMessage.getNewData());
+            }
+        });
+
+        changeAdapter.update(1);
+        subscription.dispose();
+        changeAdapter.update(2);
+
+        assertEquals("Subscription removed", 0, dispatcher.getSubscriptionCount());
+        assertEquals("Only delivered before disposal", Lists.newArrayList(1), resultList);
+    }
+}
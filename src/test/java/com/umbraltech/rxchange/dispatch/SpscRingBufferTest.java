@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpscRingBufferTest {
+
+    @Test
+    public void offerPoll() {
+        final SpscRingBuffer<Integer> ringBuffer = new SpscRingBuffer<>(3);
+
+        assertTrue("Offer", ringBuffer.offer(0));
+        assertTrue("Offer", ringBuffer.offer(1));
+        assertTrue("Offer", ringBuffer.offer(2));
+        assertFalse("Offer full", ringBuffer.offer(3));
+        assertEquals("Size", 3, ringBuffer.size());
+
+        assertEquals("Poll", Integer.valueOf(0), ringBuffer.poll());
+        assertTrue("Offer after poll", ringBuffer.offer(3));
+
+        for (int i = 1; i <= 3; i++) {
+            assertEquals("Poll in order", Integer.valueOf(i), ringBuffer.poll());
+        }
+
+        assertNull("Poll empty", ringBuffer.poll());
+        assertTrue("Empty", ringBuffer.isEmpty());
+    }
+
+    @Test
+    public void wrapAround() {
+        final SpscRingBuffer<Integer> ringBuffer = new SpscRingBuffer<>(1);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue("Offer", ringBuffer.offer(i));
+            assertEquals("Poll", Integer.valueOf(i), ringBuffer.poll());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCapacity() {
+        new SpscRingBuffer<Integer>(0);
+    }
+}
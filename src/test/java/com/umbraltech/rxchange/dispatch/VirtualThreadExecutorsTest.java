@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.dispatch;
+
+import com.umbraltech.rxchange.adapter.SingleChangeAdapter;
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.observer.ChangeMessageObserver;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+public class VirtualThreadExecutorsTest {
+    private static final int OBSERVER_COUNT = 10;
+    private static final int UPDATE_COUNT = 100;
+
+    @Test
+    public void orderedPerObserver() throws InterruptedException {
+        assumeTrue(VirtualThreadExecutors.isSupported());
+
+        final ExecutorService executorService = VirtualThreadExecutors.newVirtualThreadPerTaskExecutor();
+        final SingleChangeAdapter<Integer> changeAdapter = new SingleChangeAdapter<>(0);
+        final AsyncChangeDispatcher<Integer> dispatcher = new AsyncChangeDispatcher<>(changeAdapter.getObservable(),
+                executorService);
+        final CountDownLatch latch = new CountDownLatch(OBSERVER_COUNT * UPDATE_COUNT);
+        final List<List<Integer>> resultLists = new ArrayList<>();
+
+        for (int i = 0; i < OBSERVER_COUNT; i++) {
+            final List<Integer> resultList = Collections.synchronizedList(new ArrayList<Integer>());
+            resultLists.add(resultList);
+
+            dispatcher.subscribe(new ChangeMessageObserver<Integer>() {
+                @Override
+                public void onNext(ChangeMessage<Integer> changeMessage) {
+                    try {
+                        // Blocking observer
+                        Thread.sleep(0, 1000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    resultList.add(changeMessage.getNewData());
+                    latch.countDown();
+                }
+            }, UPDATE_COUNT, OverflowPolicy.BLOCK);
+        }
+
+        for (int i = 1; i <= UPDATE_COUNT; i++) {
+            changeAdapter.update(i);
+        }
+
+        try {
+            assertTrue("All delivered", latch.await(10, TimeUnit.SECONDS));
+
+            for (final List<Integer> resultList : resultLists) {
+                for (int i = 0; i < UPDATE_COUNT; i++) {
+                    assertEquals("Delivered in order", Integer.valueOf(i + 1), resultList.get(i));
+                }
+            }
+        } finally {
+            dispatcher.dispose();
+            executorService.shutdown();
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void unsupported() {
+        assumeFalse(VirtualThreadExecutors.isSupported());
+
+        VirtualThreadExecutors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.filter;
+
+import com.umbraltech.rxchange.message.ChangeMessage;
+import com.umbraltech.rxchange.type.ChangeType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChangedDataFilterTest {
+    private final ChangedDataFilter changedDataFilter = new ChangedDataFilter();
+
+    @Test
+    public void test() {
+        assertTrue("Changed data", changedDataFilter.test(new ChangeMessage<>(0, 1, ChangeType.UPDATE)));
+        assertFalse("Unchanged data", changedDataFilter.test(new ChangeMessage<>(1, 1, ChangeType.UPDATE)));
+        assertTrue("Added data", changedDataFilter.test(new ChangeMessage<>(null, 1, ChangeType.ADD)));
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.filter;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NonEmptyBatchFilterTest {
+    private final NonEmptyBatchFilter nonEmptyBatchFilter = new NonEmptyBatchFilter();
+
+    @Test
+    public void test() {
+        assertTrue("Non-empty batch", nonEmptyBatchFilter.test(Lists.newArrayList(1)));
+        assertFalse("Empty batch", nonEmptyBatchFilter.test(Collections.emptyList()));
+    }
+}
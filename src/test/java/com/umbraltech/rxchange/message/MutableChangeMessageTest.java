@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.message;
+
+import com.umbraltech.rxchange.type.ChangeType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MutableChangeMessageTest {
+    private MutableChangeMessage<Integer, Integer> changeMessage;
+
+    @Before
+    public void setUp() {
+        changeMessage = new MutableChangeMessage<>();
+        changeMessage.set(2, 1, ChangeType.UPDATE, -1);
+    }
+
+    @Test
+    public void set() {
+        assertEquals("Old data", Integer.valueOf(2), changeMessage.getOldData());
+        assertEquals("New data", Integer.valueOf(1), changeMessage.getNewData());
+        assertEquals("Change type", ChangeType.UPDATE, changeMessage.getChangeType());
+        assertEquals("Metadata", Integer.valueOf(-1), changeMessage.getMetadata());
+    }
+
+    @Test
+    public void copy() {
+        final MetaChangeMessage<Integer, Integer> copy = changeMessage.copy();
+        changeMessage.clear();
+
+        assertNull("Cleared", changeMessage.getNewData());
+        assertEquals("Copy retained", Integer.valueOf(1), copy.getNewData());
+        assertEquals("Copy metadata retained", Integer.valueOf(-1), copy.getMetadata());
+    }
+
+    @Test
+    public void getString() {
+        assertEquals("toString", "MutableChangeMessage(changeMessage=ChangeMessage(oldData=2, newData=1, "
+                + "changeType=UPDATE), metadata=-1)", changeMessage.toString());
+    }
+
+    @Test
+    public void metadataOf() {
+        assertEquals("Mutable metadata", -1, MetaChangeMessage.metadataOf(changeMessage));
+        assertEquals("Immutable metadata", -1, MetaChangeMessage.metadataOf(changeMessage.copy()));
+        assertNull("No metadata", MetaChangeMessage.metadataOf(new ChangeMessage<>(2, 1, ChangeType.UPDATE)));
+    }
+}
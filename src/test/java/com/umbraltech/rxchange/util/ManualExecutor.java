@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 - present, RxChange contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.umbraltech.rxchange.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+public class ManualExecutor implements Executor {
+    private final Queue<Runnable> taskQueue = new ArrayDeque<>();
+
+    @Override
+    public synchronized void execute(Runnable runnable) {
+        taskQueue.add(runnable);
+    }
+
+    public int runAll() {
+        int count = 0;
+        Runnable runnable;
+
+        while ((runnable = poll()) != null) {
+            runnable.run();
+            count++;
+        }
+
+        return count;
+    }
+
+    public synchronized int getPendingCount() {
+        return taskQueue.size();
+    }
+
+    private synchronized Runnable poll() {
+        return taskQueue.poll();
+    }
+}